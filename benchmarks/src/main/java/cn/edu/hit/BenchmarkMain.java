@@ -0,0 +1,27 @@
+package cn.edu.hit;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+
+//基准入口：不带参数时运行全部基准并附带 GC 分析（分配率 gc.alloc.rate.norm）；
+//带参数时交给 JMH 命令行解析，例如 -p words=100000 QueryBenchmark.calcPageRank
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        if (args.length > 0) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+        new Runner(new OptionsBuilder()
+                .include("cn\\.edu\\.hit\\..*Benchmark")
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,68 @@
+package cn.edu.hit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//建图与分词基准：语料为确定性的 Zipf 合成文本，规模由 words 参数控制
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BuildBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int words;
+
+    private Path corpus;
+    private String text;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        corpus = ZipfCorpus.forWords(words).writeTo(Files.createTempFile("zipf", ".txt"), words, 42);
+        text = Files.readString(corpus);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(corpus);
+    }
+
+    @Benchmark
+    public Object buildGraphFromFile() throws IOException {
+        return TextGraphApp.buildGraphFromFile(corpus.toString());
+    }
+
+    @Benchmark
+    public Object buildGraphFromFileStreaming() throws IOException {
+        return TextGraphApp.buildGraphFromFileStreaming(corpus.toString());
+    }
+
+    @Benchmark
+    public Object buildGraphFromFileParallel() throws IOException {
+        return TextGraphApp.buildGraphFromFileParallel(corpus.toString());
+    }
+
+    @Benchmark
+    public List<String> cleanWords() {
+        return TextGraphApp.cleanWords(text);
+    }
+}
@@ -0,0 +1,125 @@
+package cn.edu.hit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+//查询基准：在合成语料建好的图上测量桥接词、生成新文本、最短路径、PageRank 与随机游走
+//查询词按 Zipf 分布抽取，与真实查询一样偏向高频词；每次调用轮换到下一组查询
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryBenchmark {
+    private static final int QUERIES = 1024;
+
+    @Param({"1000", "100000", "1000000"})
+    public int words;
+
+    private TextGraphApp.DirectedGraph graph;
+    private CsrGraph csr;
+    /**
+     * 不带路径树缓存的引擎，测量的是搜索本身。
+     */
+    private ShortestPathEngine paths;
+    private RandomWalkEngine walks;
+    private RandomWalkEngine.Walker walker;
+    private SplittableRandom random;
+    private String[] from;
+    private String[] to;
+    private String[] sentences;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        ZipfCorpus corpus = ZipfCorpus.forWords(words);
+        Path file = corpus.writeTo(Files.createTempFile("zipf", ".txt"), words, 42);
+        try {
+            graph = TextGraphApp.buildGraphFromFileParallel(file.toString());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+        csr = graph.freeze();
+        paths = new ShortestPathEngine(csr);
+        walks = new RandomWalkEngine(csr);
+        walker = walks.new Walker();
+        random = new SplittableRandom(7);
+        from = new String[QUERIES];
+        to = new String[QUERIES];
+        sentences = new String[QUERIES];
+        SplittableRandom queries = new SplittableRandom(1);
+        for (int i = 0; i < QUERIES; i++) {
+            from[i] = corpus.next(queries);
+            to[i] = corpus.next(queries);
+            sentences[i] = corpus.generate(32, i);
+        }
+    }
+
+    private int nextQuery() {
+        next = (next + 1) & (QUERIES - 1);
+        return next;
+    }
+
+    @Benchmark
+    public String queryBridgeWords() {
+        int i = nextQuery();
+        return TextGraphApp.queryBridgeWords(graph, from[i], to[i]);
+    }
+
+    @Benchmark
+    public String generateNewText() {
+        return TextGraphApp.generateNewText(graph, sentences[nextQuery()]);
+    }
+
+    @Benchmark
+    public String calcShortestPathSingleTarget() {
+        int i = nextQuery();
+        return TextGraphApp.calcShortestPath(paths, from[i], to[i]);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public String calcShortestPathAllTargets() {
+        return TextGraphApp.calcShortestPath(paths, from[nextQuery()], null);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Map<String, Double> calcPageRank() {
+        return TextGraphApp.calcPageRank(graph, 0.85, 1e-6);
+    }
+
+    //原有接口的游走部分（不含控制台输出与写 random_walk.txt）
+    @Benchmark
+    public List<String> randomWalk() {
+        return TextGraphApp.walk(csr, null);
+    }
+
+    //游走引擎本身：一次加权游走
+    @Benchmark
+    public int randomWalkEngine() {
+        walker.walk(random.nextInt(walks.graph().nodeCount()), true, Integer.MAX_VALUE, random);
+        return walker.length;
+    }
+}
@@ -0,0 +1,69 @@
+package cn.edu.hit;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+//确定性的合成语料：词表大小 vocabulary，词频服从指数为 exponent 的 Zipf 分布
+//同样的参数和种子总是生成同样的文本，便于跨提交、跨规模比较基准结果
+final class ZipfCorpus {
+    private final double[] cumulative;
+    private final String[] words;
+
+    ZipfCorpus(int vocabulary, double exponent) {
+        cumulative = new double[vocabulary];
+        words = new String[vocabulary];
+        double sum = 0;
+        for (int rank = 0; rank < vocabulary; rank++) {
+            sum += 1.0 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = sum;
+            words[rank] = wordFor(rank);
+        }
+        for (int rank = 0; rank < vocabulary; rank++) {
+            cumulative[rank] /= sum;
+        }
+    }
+
+    //第 rank 个单词：26 进制字母编码，保证只含英文字母
+    static String wordFor(int rank) {
+        StringBuilder word = new StringBuilder();
+        int value = rank;
+        do {
+            word.append((char) ('a' + value % 26));
+            value = value / 26 - 1;
+        } while (value >= 0);
+        return word.reverse().toString();
+    }
+
+    String next(SplittableRandom random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        return words[Math.min(index < 0 ? -index - 1 : index, words.length - 1)];
+    }
+
+    //生成 wordCount 个单词的文本，每行 16 个单词，夹杂标点
+    String generate(int wordCount, long seed) {
+        StringBuilder text = new StringBuilder(wordCount * 6);
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < wordCount; i++) {
+            text.append(next(random));
+            text.append(i % 16 == 15 ? ".\n" : i % 5 == 4 ? ", " : " ");
+        }
+        return text.toString();
+    }
+
+    Path writeTo(Path file, int wordCount, long seed) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(generate(wordCount, seed));
+        }
+        return file;
+    }
+
+    //基准测试默认使用的语料：词表为单词数的十分之一（至少 100），指数 1.1
+    static ZipfCorpus forWords(int wordCount) {
+        return new ZipfCorpus(Math.max(100, wordCount / 10), 1.1);
+    }
+}
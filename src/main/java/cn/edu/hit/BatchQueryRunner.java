@@ -0,0 +1,101 @@
+package cn.edu.hit;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+//批量查询：查询文件每行一条命令（格式同 GraphQueryService），在线程池中并行执行，结果按原顺序写入同一个输出文件
+//输出为制表符分隔的表格：行号、耗时（毫秒）、状态（OK / ERROR）、命令、结果（结果中的换行与制表符转义为 \n 与 \t）
+//空行和以 # 开头的行被跳过；耗时总是以 . 作为小数点，与系统区域设置无关
+final class BatchQueryRunner {
+    /**
+     * 每个并行任务处理的查询条数。
+     */
+    static final int QUERIES_PER_TASK = 64;
+
+    static final String HEADER = "line\tmillis\tstatus\tquery\tresult\n";
+
+    private final GraphQueryService service;
+
+    BatchQueryRunner(GraphQueryService service) {
+        this.service = service;
+    }
+
+    //执行 queries 中的全部查询，返回执行的条数
+    long run(Path queries, Path output, int threads) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long count = 0;
+        try (BufferedReader reader = Files.newBufferedReader(queries, StandardCharsets.UTF_8);
+             BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8);
+             OrderedPipeline pipeline = new OrderedPipeline(executor, writer, threads * 4)) {
+            writer.write(HEADER);
+            List<String> batch = new ArrayList<>(QUERIES_PER_TASK);
+            List<Long> lines = new ArrayList<>(QUERIES_PER_TASK);
+            long lineNumber = 0;
+            String query;
+            while ((query = reader.readLine()) != null) {
+                lineNumber++;
+                query = query.trim();
+                if (query.isEmpty() || query.startsWith("#")) {
+                    continue;
+                }
+                batch.add(query);
+                lines.add(lineNumber);
+                count++;
+                if (batch.size() == QUERIES_PER_TASK) {
+                    pipeline.submit(task(batch, lines));
+                    batch = new ArrayList<>(QUERIES_PER_TASK);
+                    lines = new ArrayList<>(QUERIES_PER_TASK);
+                }
+            }
+            if (!batch.isEmpty()) {
+                pipeline.submit(task(batch, lines));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return count;
+    }
+
+    private Callable<String> task(List<String> batch, List<Long> lines) {
+        return () -> {
+            StringBuilder out = new StringBuilder();
+            for (int i = 0; i < batch.size(); i++) {
+                out.append(row(lines.get(i), batch.get(i)));
+            }
+            return out.toString();
+        };
+    }
+
+    //执行一条查询并生成一行输出
+    String row(long line, String query) {
+        long start = System.nanoTime();
+        String status = "OK";
+        String result;
+        try {
+            result = service.execute(query);
+        } catch (IllegalArgumentException e) {
+            status = "ERROR";
+            result = e.getMessage();
+        } catch (RuntimeException e) {
+            //单条查询的意外失败只记入这一行，不中断整批查询
+            status = "ERROR";
+            result = e.toString();
+        }
+        double millis = (System.nanoTime() - start) / 1e6;
+        return line + "\t" + String.format(Locale.ROOT, "%.3f", millis) + "\t" + status + "\t" + escape(query) + "\t" + escape(result) + "\n";
+    }
+
+    private static String escape(String text) {
+        return text.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,167 @@
+package cn.edu.hit;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//桥接词索引：桥接词集合 = a 的后继 ∩ b 的前驱，两者在 CSR 图与反向图中都是有序数组，直接求交集
+//两端都是高频词（枢纽词）时结果会被物化缓存，重复查询为一次哈希查找；缓存按访问顺序淘汰，总大小不超过字节上限
+final class BridgeIndex {
+    /**
+     * 默认的枢纽度数阈值。
+     */
+    static final int DEFAULT_HUB_DEGREE = 64;
+
+    /**
+     * 默认的枢纽词对缓存内存上限。
+     */
+    static final long DEFAULT_HUB_CACHE_BYTES = 16L << 20;
+
+    /**
+     * 一个缓存项除桥接词数组内容外的开销（估计值）。
+     */
+    private static final long ENTRY_OVERHEAD_BYTES = 64;
+
+    static final int[] NONE = new int[0];
+
+    private final CsrGraph graph;
+    private final CsrGraph reverse;
+    private final int hubDegree;
+    private final long cacheBytes;
+    /**
+     * 枢纽词对 (a << 32 | b) -> 桥接词编号，按访问顺序淘汰。
+     */
+    private final LinkedHashMap<Long, int[]> hubPairs = new LinkedHashMap<>(16, 0.75f, true);
+    private long usedBytes;
+
+    BridgeIndex(CsrGraph graph, int hubDegree) {
+        this(graph, hubDegree, DEFAULT_HUB_CACHE_BYTES);
+    }
+
+    BridgeIndex(CsrGraph graph, int hubDegree, long cacheBytes) {
+        this.graph = graph;
+        this.reverse = graph.transpose();
+        this.hubDegree = hubDegree;
+        this.cacheBytes = Math.max(0, cacheBytes);
+    }
+
+    //所有满足 a -> mid -> b 的 mid，按编号升序
+    int[] bridges(int a, int b) {
+        int succ = graph.outDegree(a);
+        int pred = reverse.outDegree(b);
+        if (succ == 0 || pred == 0) {
+            return NONE;
+        }
+        if (Math.min(succ, pred) < hubDegree) {
+            return intersect(a, b);
+        }
+        long key = ((long) a << 32) | b;
+        int[] cached = lookup(key);
+        if (cached != null) {
+            return cached;
+        }
+        //求交在锁外进行，并发的相同查询可能各算一次，结果相同
+        int[] result = intersect(a, b);
+        store(key, result);
+        return result;
+    }
+
+    private synchronized int[] lookup(long key) {
+        return hubPairs.get(key);
+    }
+
+    //放入缓存并从最久未访问的一端淘汰到上限以内；单项超过上限时不缓存
+    private synchronized void store(long key, int[] bridges) {
+        long size = entryBytes(bridges);
+        if (size > cacheBytes) {
+            return;
+        }
+        int[] previous = hubPairs.put(key, bridges);
+        if (previous != null) {
+            usedBytes -= entryBytes(previous);
+        }
+        usedBytes += size;
+        Iterator<int[]> eldest = hubPairs.values().iterator();
+        while (usedBytes > cacheBytes) {
+            usedBytes -= entryBytes(eldest.next());
+            eldest.remove();
+        }
+    }
+
+    private static long entryBytes(int[] bridges) {
+        return 4L * bridges.length + ENTRY_OVERHEAD_BYTES;
+    }
+
+    synchronized int hubPairCount() {
+        return hubPairs.size();
+    }
+
+    synchronized long hubPairBytes() {
+        return usedBytes;
+    }
+
+    //有序数组求交；长度悬殊时在长数组上二分（跳跃）查找
+    private int[] intersect(int a, int b) {
+        int[] x = graph.targets;
+        int xi = graph.offsets[a];
+        int xEnd = graph.offsets[a + 1];
+        int[] y = reverse.targets;
+        int yi = reverse.offsets[b];
+        int yEnd = reverse.offsets[b + 1];
+        if (xEnd - xi > yEnd - yi) {
+            int[] t = x;
+            x = y;
+            y = t;
+            int ti = xi;
+            xi = yi;
+            yi = ti;
+            int tEnd = xEnd;
+            xEnd = yEnd;
+            yEnd = tEnd;
+        }
+        int[] out = new int[xEnd - xi];
+        int count = 0;
+        boolean gallop = (yEnd - yi) > 8 * (xEnd - xi);
+        while (xi < xEnd && yi < yEnd) {
+            int value = x[xi];
+            if (gallop) {
+                int found = Arrays.binarySearch(y, yi, yEnd, value);
+                if (found >= 0) {
+                    out[count++] = value;
+                    yi = found + 1;
+                } else {
+                    yi = -found - 1;
+                }
+                xi++;
+            } else if (value < y[yi]) {
+                xi++;
+            } else if (value > y[yi]) {
+                yi++;
+            } else {
+                out[count++] = value;
+                xi++;
+                yi++;
+            }
+        }
+        return count == 0 ? NONE : Arrays.copyOf(out, count);
+    }
+
+    //从旧图的索引继承物化结果：a -> mid -> b 的集合只会因新增边 a -> mid 或 mid -> b 而改变
+    //按旧缓存的访问顺序放入，仍受本索引的字节上限约束，多次刷新不会让缓存累积增长
+    void inheritHubPairs(BridgeIndex old, boolean[] newEdgeSource, boolean[] newEdgeTarget) {
+        Map<Long, int[]> pairs;
+        synchronized (old) {
+            pairs = new LinkedHashMap<>(old.hubPairs);
+        }
+        synchronized (this) {
+            for (Map.Entry<Long, int[]> entry : pairs.entrySet()) {
+                int a = (int) (entry.getKey() >>> 32);
+                int b = (int) (long) entry.getKey();
+                if (!newEdgeSource[a] && !newEdgeTarget[b] && !hubPairs.containsKey(entry.getKey())) {
+                    store(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+    }
+}
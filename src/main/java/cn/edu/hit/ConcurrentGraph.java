@@ -0,0 +1,269 @@
+package cn.edu.hit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+//可并发写入的图：写线程按线程编号分散到若干条带，各自在条带内的基本类型哈希表中累加边计数，不需要全局锁；
+//发布时取走各条带自上次发布以来的增量，排序后与上一个 CsrGraph 逐行归并成新的快照并通过 volatile 字段替换，
+//开销为 O(E + D log D)（D 为增量中不同的边数），读线程只读快照，不加锁
+//每个快照内部一致（合法的 CSR 图），与并发写入之间是弱一致的：发布期间写入的边可能落到下一个快照
+//单词编号按首次出现的顺序分配且保持不变，与 DirectedGraph 冻结后的编号规则相同
+final class ConcurrentGraph implements AutoCloseable {
+    private static final long EMPTY = -1L;
+
+    /**
+     * 单词 -> 编号。
+     */
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+
+    /**
+     * 编号 -> 单词，只在持有其自身的锁时追加（新单词很少，绝大多数写入走 ids 的无锁读）。
+     */
+    private final List<String> words = new ArrayList<>();
+
+    /**
+     * 自上次发布以来的边计数增量，按写线程编号分条带。
+     */
+    private final Delta[] stripes;
+
+    private volatile CsrGraph snapshot = new CsrGraph(new String[0], new int[1], new int[0], new int[0]);
+    private ScheduledExecutorService publisher;
+
+    //一个条带的增量：以 (from << 32 | to) 为键的开放寻址表，只在持有条带自身的锁时访问
+    private static final class Delta {
+        long[] keys;
+        long[] counts;
+        int size;
+
+        Delta() {
+            reset();
+        }
+
+        void reset() {
+            keys = new long[64];
+            counts = new long[64];
+            Arrays.fill(keys, EMPTY);
+            size = 0;
+        }
+
+        void add(long key, long count) {
+            int mask = keys.length - 1;
+            int slot = slot(key, mask);
+            while (keys[slot] != EMPTY && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (keys[slot] == EMPTY) {
+                keys[slot] = key;
+                size++;
+            }
+            counts[slot] += count;
+            if (2 * size > keys.length) {
+                long[] oldKeys = keys;
+                long[] oldCounts = counts;
+                keys = new long[oldKeys.length * 2];
+                counts = new long[oldKeys.length * 2];
+                Arrays.fill(keys, EMPTY);
+                size = 0;
+                for (int i = 0; i < oldKeys.length; i++) {
+                    if (oldKeys[i] != EMPTY) {
+                        add(oldKeys[i], oldCounts[i]);
+                    }
+                }
+            }
+        }
+
+        long get(long key) {
+            int mask = keys.length - 1;
+            for (int slot = slot(key, mask); keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return counts[slot];
+                }
+            }
+            return 0;
+        }
+
+        private static int slot(long key, int mask) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+    }
+
+    ConcurrentGraph() {
+        //条带数取不小于 2 * CPU 数的 2 的幂，写线程之间很少争用同一条带
+        int count = Integer.highestOneBit(Math.max(1, 2 * Runtime.getRuntime().availableProcessors() - 1)) << 1;
+        stripes = new Delta[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Delta();
+        }
+    }
+
+    //以已冻结的图为初始内容（直接作为第一个快照），编号与之一致
+    ConcurrentGraph(CsrGraph graph) {
+        this();
+        for (String word : graph.words) {
+            id(word);
+        }
+        snapshot = graph;
+    }
+
+    //以已有的图为初始内容，编号与 graph.freeze() 一致
+    ConcurrentGraph(TextGraphApp.DirectedGraph graph) {
+        this(graph.freeze());
+    }
+
+    private int id(String word) {
+        Integer id = ids.get(word);
+        if (id != null) {
+            return id;
+        }
+        synchronized (words) {
+            return ids.computeIfAbsent(word, w -> {
+                words.add(w);
+                return words.size() - 1;
+            });
+        }
+    }
+
+    //加边（可在多个线程中同时调用），单词不分大小写
+    void addEdge(String from, String to) {
+        addEdge(from, to, 1);
+    }
+
+    void addEdge(String from, String to, int count) {
+        long key = ((long) id(from.toLowerCase()) << 32) | id(to.toLowerCase());
+        Delta stripe = stripes[(int) Thread.currentThread().threadId() & (stripes.length - 1)];
+        synchronized (stripe) {
+            stripe.add(key, count);
+        }
+    }
+
+    //追加一段文本，相邻单词之间加边（与之前的文本不相连）
+    void append(CharSequence text) {
+        String[] previous = new String[1];
+        StreamingTokenizer.tokenize(text, word -> {
+            if (previous[0] != null) {
+                addEdge(previous[0], word);
+            }
+            previous[0] = word;
+        });
+    }
+
+    //最近一次发布的快照（无锁读取）
+    CsrGraph snapshot() {
+        return snapshot;
+    }
+
+    //把增量并入上一个快照并发布；自上次发布以来没有写入时直接返回原快照
+    synchronized CsrGraph publish() {
+        //先取走各条带的增量，再固定单词表：增量中的编号在写入条带前已经分配，一定在单词表内
+        Delta delta = new Delta();
+        for (Delta stripe : stripes) {
+            long[] keys;
+            long[] counts;
+            synchronized (stripe) {
+                if (stripe.size == 0) {
+                    continue;
+                }
+                keys = stripe.keys;
+                counts = stripe.counts;
+                stripe.reset();
+            }
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != EMPTY) {
+                    delta.add(keys[i], counts[i]);
+                }
+            }
+        }
+        String[] names;
+        synchronized (words) {
+            names = words.toArray(new String[0]);
+        }
+        CsrGraph previous = snapshot;
+        if (delta.size == 0 && names.length == previous.nodeCount()) {
+            return previous;
+        }
+        CsrGraph next = merge(previous, names, delta);
+        snapshot = next;
+        return next;
+    }
+
+    //上一个快照与排好序的增量逐行归并：行内两边都按目标编号升序，相同的边累加次数
+    private static CsrGraph merge(CsrGraph previous, String[] names, Delta delta) {
+        long[] keys = new long[delta.size];
+        int d = 0;
+        for (long key : delta.keys) {
+            if (key != EMPTY) {
+                keys[d++] = key;
+            }
+        }
+        Arrays.sort(keys);
+        int n = names.length;
+        int oldNodes = previous.nodeCount();
+        int[] offsets = new int[n + 1];
+        int[] targets = new int[previous.edgeCount() + d];
+        int[] weights = new int[targets.length];
+        int m = 0;
+        int i = 0;
+        for (int u = 0; u < n; u++) {
+            int e = u < oldNodes ? previous.offsets[u] : 0;
+            int end = u < oldNodes ? previous.offsets[u + 1] : 0;
+            while (e < end || (i < d && (int) (keys[i] >>> 32) == u)) {
+                int oldTarget = e < end ? previous.targets[e] : Integer.MAX_VALUE;
+                int newTarget = i < d && (int) (keys[i] >>> 32) == u ? (int) keys[i] : Integer.MAX_VALUE;
+                long weight = 0;
+                if (oldTarget <= newTarget) {
+                    weight += previous.weights[e++];
+                }
+                if (newTarget <= oldTarget) {
+                    weight += delta.get(keys[i++]);
+                }
+                targets[m] = Math.min(oldTarget, newTarget);
+                weights[m++] = (int) Math.min(Integer.MAX_VALUE, weight);
+            }
+            offsets[u + 1] = m;
+        }
+        if (m < targets.length) {
+            targets = Arrays.copyOf(targets, m);
+            weights = Arrays.copyOf(weights, m);
+        }
+        return new CsrGraph(names, offsets, targets, weights);
+    }
+
+    //每隔 periodMillis 毫秒在后台发布一次快照
+    synchronized void startPublishing(long periodMillis) {
+        if (publisher != null) {
+            throw new IllegalStateException("Already publishing");
+        }
+        publisher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "graph-publisher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        publisher.scheduleWithFixedDelay(this::publish, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    //停止后台发布，并把剩余的写入发布出去
+    @Override
+    public void close() {
+        ScheduledExecutorService scheduled;
+        synchronized (this) {
+            scheduled = publisher;
+            publisher = null;
+        }
+        if (scheduled != null) {
+            scheduled.shutdown();
+            try {
+                scheduled.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        publish();
+    }
+}
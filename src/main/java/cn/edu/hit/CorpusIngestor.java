@@ -0,0 +1,343 @@
+package cn.edu.hit;
+
+import org.apache.commons.io.FilenameUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+//多文件语料导入：输入为目录（递归包含其中的文件）或文件名通配符（如 shards/*.txt.gz），.gz 文件边读边解压
+//读取、分词、汇总三个阶段由有界队列连接，队列满时上游阻塞（背压），内存中同时存在的块数有上限
+//读取线程把文件切成以非字母字节结尾的块（块尾的半个单词留给下一块），每个分词线程把各块统计到自己独占的
+//ParallelGraphBuilder.WorkerTable（基本类型计数表）中，汇总线程按 (文件序号, 块序号) 依次为各块的单词分配全局编号
+//（补上块之间的单词对），不同文件之间不产生边，最后按编号映射合并各分词线程的计数表得到冻结图，
+//节点顺序与按文件排序依次顺序读取时的首次出现顺序一致
+//正在汇总的文件（队首文件）之外的文件最多有 WINDOW 个块在流水线中，超出时读取线程等待，暂存的乱序块因此有上限
+final class CorpusIngestor {
+    /**
+     * 默认块大小（字节）。
+     */
+    static final int BLOCK_SIZE = 1 << 20;
+
+    /**
+     * 两个队列各自的容量（块数）。
+     */
+    static final int QUEUE_CAPACITY = 16;
+
+    /**
+     * 队首文件之外的文件在流水线中（已读出、尚未汇总）的块数上限。
+     */
+    static final int WINDOW = 64;
+
+    /**
+     * 解压缓冲区大小。
+     */
+    private static final int GZIP_BUFFER = 64 << 10;
+
+    //一个待分词的字节块
+    private static final class Block {
+        final int file;
+        final int seq;
+        final byte[] bytes;
+        final int length;
+        /**
+         * 是否为该文件的最后一块。
+         */
+        final boolean last;
+        /**
+         * 是否占用了窗口名额（汇总后归还）。
+         */
+        final boolean windowed;
+
+        Block(int file, int seq, byte[] bytes, int length, boolean last, boolean windowed) {
+            this.file = file;
+            this.seq = seq;
+            this.bytes = bytes;
+            this.length = length;
+            this.last = last;
+            this.windowed = windowed;
+        }
+    }
+
+    //一个块的分词结果；error 非空表示读取或分词失败
+    private static final class Piece {
+        final int file;
+        final int seq;
+        final boolean last;
+        final boolean windowed;
+        final ParallelGraphBuilder.Chunk result;
+        final IOException error;
+
+        Piece(Block block, ParallelGraphBuilder.Chunk result, IOException error) {
+            this(block.file, block.seq, block.last, block.windowed, result, error);
+        }
+
+        Piece(int file, int seq, boolean last, boolean windowed, ParallelGraphBuilder.Chunk result, IOException error) {
+            this.file = file;
+            this.seq = seq;
+            this.last = last;
+            this.windowed = windowed;
+            this.result = result;
+            this.error = error;
+        }
+    }
+
+    //读取线程与汇总线程之间的窗口：队首文件的块总能放行（汇总在等它），其余文件的块受名额限制
+    private static final class Window {
+        private final int capacity;
+        private int head;
+        private int inFlight;
+
+        Window(int capacity) {
+            this.capacity = capacity;
+        }
+
+        //等待放行 file 的下一块，返回是否占用了名额
+        synchronized boolean acquire(int file) throws InterruptedException {
+            while (file != head && inFlight >= capacity) {
+                wait();
+            }
+            if (file == head) {
+                return false;
+            }
+            inFlight++;
+            return true;
+        }
+
+        synchronized void release() {
+            inFlight--;
+            notifyAll();
+        }
+
+        synchronized void advance(int file) {
+            head = file;
+            notifyAll();
+        }
+    }
+
+    private final int readers;
+    private final int tokenizers;
+    private final int blockSize;
+
+    CorpusIngestor(int readers, int tokenizers, int blockSize) {
+        if (readers < 1 || tokenizers < 1 || blockSize < 1) {
+            throw new IllegalArgumentException("readers, tokenizers and blockSize must be positive");
+        }
+        this.readers = readers;
+        this.tokenizers = tokenizers;
+        this.blockSize = blockSize;
+    }
+
+    //读取线程数不超过 4（解压与磁盘读取为主），分词线程数与核数相同
+    CorpusIngestor() {
+        this(Math.min(4, Runtime.getRuntime().availableProcessors()), Runtime.getRuntime().availableProcessors(), BLOCK_SIZE);
+    }
+
+    //输入是否需要经本类导入：目录、.gz 文件或通配符（文件名中含 [ 或 { 等字符的已有文件不当作通配符）
+    static boolean isCorpus(String input) {
+        Path path = Paths.get(input);
+        if (Files.exists(path)) {
+            return Files.isDirectory(path) || input.endsWith(".gz");
+        }
+        return isGlob(FilenameUtils.getName(input));
+    }
+
+    private static boolean isGlob(String name) {
+        return name.indexOf('*') >= 0 || name.indexOf('?') >= 0 || name.indexOf('[') >= 0 || name.indexOf('{') >= 0;
+    }
+
+    //展开为按路径排序的文件列表；通配符只允许出现在最后一级文件名中，快照文件（.tgs）不作为语料
+    static List<Path> resolve(String input) throws IOException {
+        TextGraphApp.checkSafePath(input);
+        String name = FilenameUtils.getName(input);
+        Path base;
+        List<Path> files;
+        if (!Files.exists(Paths.get(input)) && isGlob(name)) {
+            String dir = FilenameUtils.getFullPath(input);
+            base = Paths.get(dir.isEmpty() ? "." : dir);
+            PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + name);
+            try (Stream<Path> stream = Files.list(base)) {
+                files = stream.filter(p -> Files.isRegularFile(p) && matcher.matches(p.getFileName()) && !isSnapshot(p))
+                        .sorted().collect(Collectors.toList());
+            }
+        } else if (Files.isDirectory(Paths.get(input))) {
+            base = Paths.get(input);
+            try (Stream<Path> stream = Files.walk(base)) {
+                files = stream.filter(p -> Files.isRegularFile(p) && !isSnapshot(p))
+                        .sorted().collect(Collectors.toList());
+            }
+        } else {
+            return List.of(Paths.get(input));
+        }
+        //符号链接不得指向基准目录之外
+        Path root = base.toRealPath();
+        for (Path file : files) {
+            if (!file.toRealPath().startsWith(root)) {
+                throw new SecurityException("Illegal file path detected: " + file);
+            }
+        }
+        return files;
+    }
+
+    private static boolean isSnapshot(Path file) {
+        return file.getFileName().toString().endsWith(".tgs");
+    }
+
+    CsrGraph ingest(String input) throws IOException {
+        return ingest(resolve(input));
+    }
+
+    CsrGraph ingest(List<Path> files) throws IOException {
+        if (files.isEmpty()) {
+            return new CsrGraph(new String[0], new int[1], new int[0], new int[0]);
+        }
+        BlockingQueue<Block> blocks = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        BlockingQueue<Piece> pieces = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        AtomicInteger nextFile = new AtomicInteger();
+        Window window = new Window(WINDOW);
+        ExecutorService pool = Executors.newFixedThreadPool(readers + tokenizers);
+        try {
+            for (int i = 0; i < readers; i++) {
+                pool.execute(() -> readFiles(files, nextFile, window, blocks, pieces));
+            }
+            for (int i = 0; i < tokenizers; i++) {
+                pool.execute(() -> tokenize(blocks, pieces));
+            }
+            return aggregate(files.size(), window, pieces);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Ingestion interrupted");
+        } finally {
+            //汇总结束后中断仍在等待队列的线程
+            pool.shutdownNow();
+        }
+    }
+
+    //读取阶段：各线程依次领取下一个文件，出错时把异常直接交给汇总阶段
+    private void readFiles(List<Path> files, AtomicInteger nextFile, Window window,
+                           BlockingQueue<Block> blocks, BlockingQueue<Piece> pieces) {
+        try {
+            for (int f = nextFile.getAndIncrement(); f < files.size(); f = nextFile.getAndIncrement()) {
+                try {
+                    readFile(f, files.get(f), window, blocks);
+                } catch (IOException e) {
+                    pieces.put(new Piece(f, -1, true, false, null, e));
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            //流水线已关闭
+        }
+    }
+
+    //按块读出整个文件，每块在最后一个非字母字节之后截断，剩余字节移到下一块开头
+    private void readFile(int file, Path path, Window window, BlockingQueue<Block> blocks)
+            throws IOException, InterruptedException {
+        try (InputStream in = open(path)) {
+            byte[] buf = new byte[blockSize];
+            int length = 0;
+            int seq = 0;
+            while (true) {
+                length += in.readNBytes(buf, length, buf.length - length);
+                if (length < buf.length) {
+                    blocks.put(new Block(file, seq, buf, length, true, window.acquire(file)));
+                    return;
+                }
+                int cut = length;
+                while (cut > 0 && StreamingTokenizer.isLetter(buf[cut - 1])) {
+                    cut--;
+                }
+                if (cut == 0) {
+                    //整块都在同一个单词内，扩大缓冲区继续读
+                    buf = Arrays.copyOf(buf, buf.length * 2);
+                    continue;
+                }
+                byte[] next = new byte[buf.length];
+                System.arraycopy(buf, cut, next, 0, length - cut);
+                blocks.put(new Block(file, seq++, buf, cut, false, window.acquire(file)));
+                buf = next;
+                length -= cut;
+            }
+        }
+    }
+
+    private static InputStream open(Path path) throws IOException {
+        InputStream in = Files.newInputStream(path);
+        if (!path.getFileName().toString().endsWith(".gz")) {
+            return in;
+        }
+        try {
+            return new GZIPInputStream(in, GZIP_BUFFER);
+        } catch (IOException e) {
+            in.close();
+            throw new IOException("Not a gzip file: " + path, e);
+        }
+    }
+
+    //分词阶段：各块的边计数累加到本线程的计数表，块内首次出现的单词与首尾单词交给汇总阶段
+    private static void tokenize(BlockingQueue<Block> blocks, BlockingQueue<Piece> pieces) {
+        ParallelGraphBuilder.WorkerTable table = new ParallelGraphBuilder.WorkerTable();
+        try {
+            while (true) {
+                Block block = blocks.take();
+                try {
+                    pieces.put(new Piece(block, table.count(block.bytes, 0, block.length), null));
+                } catch (RuntimeException e) {
+                    pieces.put(new Piece(block, null, new IOException("Failed to tokenize block", e)));
+                }
+            }
+        } catch (InterruptedException e) {
+            //流水线已关闭
+        }
+    }
+
+    //汇总阶段：乱序到达的块先暂存，按 (文件序号, 块序号) 依次接入，最后一个文件的最后一块处理完即结束；
+    //此时各分词线程都已写完其计数表（写入先于交出对应的块），再一次性合并
+    private static CsrGraph aggregate(int fileCount, Window window, BlockingQueue<Piece> pieces)
+            throws IOException, InterruptedException {
+        ParallelGraphBuilder.Merger merger = new ParallelGraphBuilder.Merger();
+        Map<Long, Piece> pending = new HashMap<>();
+        int file = 0;
+        int seq = 0;
+        while (file < fileCount) {
+            Piece piece = pieces.take();
+            if (piece.error != null) {
+                throw piece.error;
+            }
+            pending.put(((long) piece.file << 32) | piece.seq, piece);
+            Piece ready;
+            while (file < fileCount && (ready = pending.remove(((long) file << 32) | seq)) != null) {
+                if (ready.windowed) {
+                    window.release();
+                }
+                seq++;
+                merger.append(ready.result);
+                if (ready.last) {
+                    //文件之间不相连
+                    file++;
+                    seq = 0;
+                    merger.breakSequence();
+                    window.advance(file);
+                }
+            }
+        }
+        return merger.build();
+    }
+}
@@ -0,0 +1,278 @@
+package cn.edu.hit;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+//冻结后的不可变有向图：压缩稀疏行（CSR）表示
+//节点用 0..n-1 的整数编号，节点 u 的出边是 targets/weights 中 [offsets[u], offsets[u+1]) 这一段，且按目标编号升序排列
+final class CsrGraph {
+    /**
+     * 编号 -> 单词。
+     */
+    final String[] words;
+
+    /**
+     * 每个节点出边在 targets/weights 中的起始位置，长度为 n+1。
+     */
+    final int[] offsets;
+
+    /**
+     * 每条边的目标节点编号。
+     */
+    final int[] targets;
+
+    /**
+     * 每条边出现的次数。
+     */
+    final int[] weights;
+
+    /**
+     * 单词 -> 编号。
+     */
+    private final Map<String, Integer> ids;
+
+    /**
+     * 反向图（按需构建）。
+     */
+    private volatile CsrGraph transpose;
+
+    /**
+     * 共享的最短路径引擎（按需创建，缓存的路径树随冻结图一起失效）。
+     */
+    private volatile ShortestPathEngine shortestPaths;
+
+    /**
+     * 共享的桥接词索引（按需创建）。
+     */
+    private volatile BridgeIndex bridgeIndex;
+
+    /**
+     * 共享的可达性索引（按需构建）。
+     */
+    private volatile ReachabilityIndex reachability;
+
+    /**
+     * 共享的蒙特卡洛 PageRank（按需创建，阻尼系数不同时替换）。
+     */
+    private volatile MonteCarloPageRank monteCarlo;
+
+    /**
+     * 已计算（或随快照加载）的 PageRank，没有时为 null。
+     */
+    private volatile StoredRanks storedRanks;
+
+    //一次 PageRank 计算的结果及其参数
+    static final class StoredRanks {
+        final double damping;
+        final double epsilon;
+        final double[] ranks;
+
+        StoredRanks(double damping, double epsilon, double[] ranks) {
+            this.damping = damping;
+            this.epsilon = epsilon;
+            this.ranks = ranks;
+        }
+    }
+
+    CsrGraph(String[] words, int[] offsets, int[] targets, int[] weights) {
+        this(words, offsets, targets, weights, new HashMap<>(words.length * 2));
+        for (int i = 0; i < words.length; i++) {
+            ids.put(words[i], i);
+        }
+    }
+
+    private CsrGraph(String[] words, int[] offsets, int[] targets, int[] weights, Map<String, Integer> ids) {
+        this.words = words;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.ids = ids;
+    }
+
+    //由可变有向图构建，编号按节点加入图的先后顺序分配
+    static CsrGraph of(TextGraphApp.DirectedGraph graph) {
+        int n = graph.nodes.size();
+        String[] words = new String[n];
+        Map<TextGraphApp.Node, Integer> index = new HashMap<>(n * 2);
+        int edgeCount = 0;
+        for (TextGraphApp.Node node : graph.nodes.values()) {
+            words[index.size()] = node.word;
+            index.put(node, index.size());
+            edgeCount += node.edges.size();
+        }
+        int[] offsets = new int[n + 1];
+        int[] targets = new int[edgeCount];
+        int[] weights = new int[edgeCount];
+        long[] row = new long[0];
+        int u = 0;
+        int e = 0;
+        for (TextGraphApp.Node node : graph.nodes.values()) {
+            //每行按目标编号排序：高 32 位放目标编号，低 32 位放权重
+            if (row.length < node.edges.size()) {
+                row = new long[node.edges.size()];
+            }
+            int k = 0;
+            for (Map.Entry<TextGraphApp.Node, Integer> edge : node.edges.entrySet()) {
+                row[k++] = ((long) index.get(edge.getKey()) << 32) | edge.getValue();
+            }
+            Arrays.sort(row, 0, k);
+            for (int i = 0; i < k; i++) {
+                targets[e] = (int) (row[i] >>> 32);
+                weights[e] = (int) row[i];
+                e++;
+            }
+            offsets[++u] = e;
+        }
+        return new CsrGraph(words, offsets, targets, weights);
+    }
+
+    int nodeCount() {
+        return words.length;
+    }
+
+    int edgeCount() {
+        return targets.length;
+    }
+
+    //单词对应的编号（不分大小写），不存在时返回 -1
+    int id(String word) {
+        Integer id = ids.get(word.toLowerCase());
+        return id == null ? -1 : id;
+    }
+
+    int outDegree(int u) {
+        return offsets[u + 1] - offsets[u];
+    }
+
+    //边 u->v 在 targets 中的位置，不存在时返回负数
+    int edgeIndex(int u, int v) {
+        return Arrays.binarySearch(targets, offsets[u], offsets[u + 1], v);
+    }
+
+    boolean hasEdge(int u, int v) {
+        return edgeIndex(u, v) >= 0;
+    }
+
+    //反向图：v 的出边对应原图中指向 v 的边，编号与原图相同
+    CsrGraph transpose() {
+        CsrGraph t = transpose;
+        if (t == null) {
+            int n = nodeCount();
+            int[] inOffsets = new int[n + 1];
+            for (int target : targets) {
+                inOffsets[target + 1]++;
+            }
+            for (int v = 0; v < n; v++) {
+                inOffsets[v + 1] += inOffsets[v];
+            }
+            int[] next = Arrays.copyOf(inOffsets, n);
+            int[] sources = new int[targets.length];
+            int[] inWeights = new int[targets.length];
+            //按源节点升序扫描，每行自然有序
+            for (int u = 0; u < n; u++) {
+                for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                    int slot = next[targets[e]]++;
+                    sources[slot] = u;
+                    inWeights[slot] = weights[e];
+                }
+            }
+            t = new CsrGraph(words, inOffsets, sources, inWeights, ids);
+            t.transpose = this;
+            transpose = t;
+        }
+        return t;
+    }
+
+    //本图共享的最短路径引擎，默认开启路径树缓存（按内存上限折算棵数）并使用可达性索引（第一次查询时才构建）
+    ShortestPathEngine shortestPaths() {
+        ShortestPathEngine engine = shortestPaths;
+        if (engine == null) {
+            synchronized (this) {
+                engine = shortestPaths;
+                if (engine == null) {
+                    engine = new ShortestPathEngine(this);
+                    engine.setTreeCacheBytes(ShortestPathEngine.DEFAULT_TREE_CACHE_BYTES);
+                    engine.useGraphReachability();
+                    shortestPaths = engine;
+                }
+            }
+        }
+        return engine;
+    }
+
+    //已创建的最短路径引擎，尚未查询过时返回 null（不会因此创建）
+    ShortestPathEngine shortestPathsIfPresent() {
+        return shortestPaths;
+    }
+
+    //本图共享的桥接词索引
+    BridgeIndex bridgeIndex() {
+        BridgeIndex index = bridgeIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = bridgeIndex;
+                if (index == null) {
+                    index = new BridgeIndex(this, BridgeIndex.DEFAULT_HUB_DEGREE);
+                    bridgeIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    //已创建的桥接词索引，没有时返回 null
+    BridgeIndex bridgeIndexIfPresent() {
+        return bridgeIndex;
+    }
+
+    //本图共享的可达性索引（强连通分量 + 缩点 DAG）
+    ReachabilityIndex reachability() {
+        ReachabilityIndex index = reachability;
+        if (index == null) {
+            synchronized (this) {
+                index = reachability;
+                if (index == null) {
+                    index = new ReachabilityIndex(this);
+                    reachability = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    //已构建的可达性索引，没有时返回 null
+    ReachabilityIndex reachabilityIfPresent() {
+        return reachability;
+    }
+
+    //本图共享的蒙特卡洛 PageRank
+    MonteCarloPageRank monteCarloPageRank(double d) {
+        MonteCarloPageRank engine = monteCarlo;
+        if (engine == null || engine.damping() != d) {
+            synchronized (this) {
+                engine = monteCarlo;
+                if (engine == null || engine.damping() != d) {
+                    engine = new MonteCarloPageRank(this, d);
+                    monteCarlo = engine;
+                }
+            }
+        }
+        return engine;
+    }
+
+    //记录按阻尼系数 d、收敛阈值 epsilon 计算得到的 PageRank
+    void storePageRank(double d, double epsilon, double[] ranks) {
+        storedRanks = new StoredRanks(d, epsilon, ranks);
+    }
+
+    StoredRanks storedPageRank() {
+        return storedRanks;
+    }
+
+    //阻尼系数相同且收敛阈值不更宽松时返回已有的 PageRank，否则返回 null
+    double[] storedPageRank(double d, double epsilon) {
+        StoredRanks stored = storedRanks;
+        return stored != null && stored.damping == d && stored.epsilon <= epsilon ? stored.ranks : null;
+    }
+}
@@ -0,0 +1,290 @@
+package cn.edu.hit;
+
+import org.apache.commons.exec.CommandLine;
+import org.apache.commons.exec.DefaultExecuteResultHandler;
+import org.apache.commons.exec.DefaultExecutor;
+import org.apache.commons.exec.ExecuteException;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+//流式 DOT 导出：按节点编号顺序直接把节点和边写入文件，不在内存中构建 Graphviz 模型
+//可按最小边权、按度或 PageRank 取前 N 个节点、以某个单词为中心的 k 跳邻域裁剪，只保留值得看的部分
+//渲染调用外部 dot 命令，在后台进程中执行；到达期限时 future 立即失败，并强制结束整个进程树
+final class DotExporter {
+    /**
+     * 默认的渲染超时时间。
+     */
+    static final Duration DEFAULT_RENDER_TIMEOUT = Duration.ofMinutes(2);
+
+    //取前 N 个节点时的排序依据
+    enum Rank {
+        /**
+         * 入度与出度之和。
+         */
+        DEGREE,
+        PAGERANK
+    }
+
+    private int minWeight = 1;
+    private int topN = Integer.MAX_VALUE;
+    private Rank rank = Rank.DEGREE;
+    private String focus;
+    private int hops;
+    private String renderCommand = "dot";
+
+    //只导出出现次数不少于 minWeight 的边
+    void setMinWeight(int minWeight) {
+        this.minWeight = minWeight;
+    }
+
+    //只导出按 rank 排名前 topN 的节点
+    void setTopN(int topN, Rank rank) {
+        this.topN = topN;
+        this.rank = rank;
+    }
+
+    //只导出与 word 相距不超过 hops 跳（不计方向）的节点
+    void setFocus(String word, int hops) {
+        this.focus = word;
+        this.hops = hops;
+    }
+
+    //Graphviz 可执行文件（默认为 PATH 中的 dot）
+    void setRenderCommand(String renderCommand) {
+        this.renderCommand = renderCommand;
+    }
+
+    //裁剪后保留的节点；中心单词不在图中时抛出 IllegalArgumentException
+    boolean[] select(CsrGraph graph) {
+        int n = graph.nodeCount();
+        boolean[] kept = new boolean[n];
+        if (focus == null) {
+            Arrays.fill(kept, true);
+        } else {
+            int center = graph.id(focus);
+            if (center < 0) {
+                throw new IllegalArgumentException("No " + focus + " in the graph!");
+            }
+            neighbourhood(graph, center, kept);
+        }
+        if (topN < n) {
+            keepTop(graph, kept);
+        }
+        return kept;
+    }
+
+    //正反两个方向的广度优先搜索，最多 hops 层
+    private void neighbourhood(CsrGraph graph, int center, boolean[] kept) {
+        CsrGraph reverse = graph.transpose();
+        //每个节点至多入队一次，队列即按层排列的已访问节点，[head, levelEnd) 为当前层
+        int[] queue = new int[graph.nodeCount()];
+        int head = 0;
+        int tail = 0;
+        kept[center] = true;
+        queue[tail++] = center;
+        for (int depth = 0; depth < hops && head < tail; depth++) {
+            for (int levelEnd = tail; head < levelEnd; head++) {
+                int u = queue[head];
+                for (CsrGraph side : new CsrGraph[]{graph, reverse}) {
+                    for (int e = side.offsets[u]; e < side.offsets[u + 1]; e++) {
+                        int v = side.targets[e];
+                        if (!kept[v]) {
+                            kept[v] = true;
+                            queue[tail++] = v;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    //在已保留的节点中只留下得分最高的 topN 个
+    private void keepTop(CsrGraph graph, boolean[] kept) {
+        int n = graph.nodeCount();
+        int count = 0;
+        for (boolean k : kept) {
+            count += k ? 1 : 0;
+        }
+        if (count <= topN) {
+            return;
+        }
+        double[] score;
+        if (rank == Rank.PAGERANK) {
+            score = TextGraphApp.pageRankValues(graph, 0.85, 1e-6);
+        } else {
+            score = new double[n];
+            CsrGraph reverse = graph.transpose();
+            for (int u = 0; u < n; u++) {
+                score[u] = graph.outDegree(u) + reverse.outDegree(u);
+            }
+        }
+        //大小为 topN 的小顶堆：堆顶为当前保留项中排名最靠后的节点，得分相同时编号小的优先
+        int[] heap = new int[topN];
+        int size = 0;
+        for (int u = 0; u < n; u++) {
+            if (!kept[u]) {
+                continue;
+            }
+            if (size < topN) {
+                heap[size] = u;
+                siftUp(heap, size++, score);
+            } else if (size > 0 && before(u, heap[0], score)) {
+                heap[0] = u;
+                siftDown(heap, size, score);
+            }
+        }
+        Arrays.fill(kept, false);
+        for (int i = 0; i < size; i++) {
+            kept[heap[i]] = true;
+        }
+    }
+
+    //节点 a 的排名是否在 b 之前
+    private static boolean before(int a, int b, double[] score) {
+        return score[a] != score[b] ? score[a] > score[b] : a < b;
+    }
+
+    private static void siftUp(int[] heap, int i, double[] score) {
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (!before(heap[parent], heap[i], score)) {
+                break;
+            }
+            swap(heap, parent, i);
+            i = parent;
+        }
+    }
+
+    private static void siftDown(int[] heap, int size, double[] score) {
+        int i = 0;
+        while (2 * i + 1 < size) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && before(heap[child], heap[child + 1], score)) {
+                child++;
+            }
+            if (!before(heap[i], heap[child], score)) {
+                break;
+            }
+            swap(heap, i, child);
+            i = child;
+        }
+    }
+
+    private static void swap(int[] heap, int a, int b) {
+        int t = heap[a];
+        heap[a] = heap[b];
+        heap[b] = t;
+    }
+
+    //写出裁剪后的 DOT 文本，返回写出的边数
+    long write(CsrGraph graph, Writer out) throws IOException {
+        boolean[] kept = select(graph);
+        int center = focus == null ? -1 : graph.id(focus);
+        out.write("digraph Graph {\n");
+        //只写出至少连着一条保留边的节点（中心单词总是写出）
+        boolean[] linked = new boolean[graph.nodeCount()];
+        for (int u = 0; u < graph.nodeCount(); u++) {
+            for (int e = graph.offsets[u]; kept[u] && e < graph.offsets[u + 1]; e++) {
+                if (kept[graph.targets[e]] && graph.weights[e] >= minWeight) {
+                    linked[u] = true;
+                    linked[graph.targets[e]] = true;
+                }
+            }
+        }
+        for (int u = 0; u < graph.nodeCount(); u++) {
+            if (linked[u] || u == center) {
+                out.write("  " + quote(graph.words[u]) + ";\n");
+            }
+        }
+        long edges = 0;
+        for (int u = 0; u < graph.nodeCount(); u++) {
+            if (!linked[u]) {
+                continue;
+            }
+            for (int e = graph.offsets[u]; e < graph.offsets[u + 1]; e++) {
+                int v = graph.targets[e];
+                if (kept[v] && graph.weights[e] >= minWeight) {
+                    out.write("  " + quote(graph.words[u]) + " -> " + quote(graph.words[v])
+                            + " [label=\"" + graph.weights[e] + "\"];\n");
+                    edges++;
+                }
+            }
+        }
+        out.write("}\n");
+        return edges;
+    }
+
+    long writeTo(CsrGraph graph, Path file) throws IOException {
+        try (Writer out = new BufferedWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8), 1 << 16)) {
+            return write(graph, out);
+        }
+    }
+
+    private static String quote(String word) {
+        return "\"" + word.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    //在后台进程中执行 dot -T<format> -o <image> <dotFile>
+    //到达期限时 future 立即以 TimeoutException 失败，不等待子进程的输出管道关闭，随后强制结束进程及其子孙进程
+    CompletableFuture<Path> render(Path dotFile, Path image, String format, Duration timeout) throws IOException {
+        CommandLine command = new CommandLine(renderCommand)
+                .addArgument("-T" + format)
+                .addArgument("-o")
+                .addArgument(image.toString(), false)
+                .addArgument(dotFile.toString(), false);
+        CompletableFuture<Path> result = new CompletableFuture<>();
+        AtomicReference<Process> process = new AtomicReference<>();
+        DefaultExecutor executor = new DefaultExecutor() {
+            @Override
+            protected Process launch(CommandLine command, Map<String, String> env, File dir) throws IOException {
+                Process launched = super.launch(command, env, dir);
+                process.set(launched);
+                //进程启动前就已超时
+                if (result.isDone()) {
+                    destroyTree(launched);
+                }
+                return launched;
+            }
+        };
+        executor.execute(command, new DefaultExecuteResultHandler() {
+            @Override
+            public void onProcessComplete(int exitValue) {
+                result.complete(image);
+            }
+
+            @Override
+            public void onProcessFailed(ExecuteException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        CompletableFuture.delayedExecutor(timeout.toMillis(), TimeUnit.MILLISECONDS).execute(() -> {
+            if (result.completeExceptionally(new TimeoutException(
+                    "Rendering " + dotFile + " took longer than " + timeout.toMillis() + "ms"))) {
+                Process launched = process.get();
+                if (launched != null) {
+                    destroyTree(launched);
+                }
+            }
+        });
+        return result;
+    }
+
+    //先结束子孙进程（父进程退出后它们会被收养，无法再从父进程找到），再结束进程本身
+    private static void destroyTree(Process process) {
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+    }
+}
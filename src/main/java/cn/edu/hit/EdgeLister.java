@@ -0,0 +1,258 @@
+package cn.edu.hit;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+//边列表导出：逐条写入缓冲 Writer，不拼接整个列表
+//可按权重或字母序排序、按最小权重与起点/终点过滤、按 offset/limit 分页
+//不排序与按字母序时边按顺序流式产生，只占 O(节点数) 内存；按权重排序时用只保留 offset+limit 项的堆，
+//不限条数时退化为对每条边 8 字节的原地堆排序
+final class EdgeLister {
+
+    //输出顺序
+    enum Order {
+        /**
+         * 按节点编号（即单词首次出现的顺序）。
+         */
+        NONE,
+        /**
+         * 权重从大到小，相同权重按字母序。
+         */
+        WEIGHT,
+        /**
+         * 先按起点、再按终点的字母序。
+         */
+        ALPHA
+    }
+
+    //按顺序接收一条边（source 为起点编号，edge 为边在 CSR 中的下标）
+    private interface EdgeVisitor {
+        void visit(int source, int edge) throws IOException;
+    }
+
+    private Order order = Order.NONE;
+    private int minWeight = 1;
+    private String from;
+    private String to;
+    private long offset;
+    private long limit = Long.MAX_VALUE;
+
+    void setOrder(Order order) {
+        this.order = order;
+    }
+
+    void setMinWeight(int minWeight) {
+        this.minWeight = minWeight;
+    }
+
+    //只列出从 word 出发的边（null 表示不限）
+    void setFrom(String word) {
+        this.from = word;
+    }
+
+    //只列出指向 word 的边（null 表示不限）
+    void setTo(String word) {
+        this.to = word;
+    }
+
+    //跳过前 offset 条，最多列出 limit 条
+    void setPage(long offset, long limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("offset and limit must not be negative");
+        }
+        this.offset = offset;
+        this.limit = limit;
+    }
+
+    //写出符合条件的边，每行一条，格式与 showDirectedGraph 相同；返回写出的行数
+    long list(CsrGraph graph, Writer out) throws IOException {
+        int fromId = from == null ? -1 : graph.id(from);
+        int toId = to == null ? -1 : graph.id(to);
+        if ((from != null && fromId < 0) || (to != null && toId < 0) || limit == 0) {
+            return 0;
+        }
+        long[] written = new long[1];
+        long[] skipped = new long[1];
+        EdgeVisitor page = (source, edge) -> {
+            if (skipped[0] < offset) {
+                skipped[0]++;
+            } else if (written[0] < limit) {
+                writeLine(graph, source, edge, out);
+                written[0]++;
+            }
+        };
+        if (order == Order.WEIGHT) {
+            listByWeight(graph, fromId, toId, page);
+        } else {
+            scan(graph, fromId, toId, order == Order.ALPHA, page);
+        }
+        return written[0];
+    }
+
+    //按编号或字母序依次产生符合过滤条件的边
+    private void scan(CsrGraph graph, int fromId, int toId, boolean alphabetical, EdgeVisitor visitor) throws IOException {
+        int n = graph.nodeCount();
+        int[] sources;
+        int[] rank = null;
+        if (alphabetical) {
+            sources = alphabeticalOrder(graph);
+            rank = new int[n];
+            for (int i = 0; i < n; i++) {
+                rank[sources[i]] = i;
+            }
+        } else {
+            sources = null;
+        }
+        long[] row = new long[0];
+        for (int i = 0, end = fromId >= 0 ? 1 : n; i < end; i++) {
+            int u = fromId >= 0 ? fromId : sources == null ? i : sources[i];
+            int begin = graph.offsets[u];
+            int degree = graph.outDegree(u);
+            if (rank == null) {
+                for (int e = begin; e < begin + degree; e++) {
+                    if (accept(graph, e, toId)) {
+                        visitor.visit(u, e);
+                    }
+                }
+                continue;
+            }
+            //行内按终点的字母序：高 32 位放终点的字母序名次，低 32 位放边下标
+            if (row.length < degree) {
+                row = new long[degree];
+            }
+            int k = 0;
+            for (int e = begin; e < begin + degree; e++) {
+                if (accept(graph, e, toId)) {
+                    row[k++] = ((long) rank[graph.targets[e]] << 32) | e;
+                }
+            }
+            Arrays.sort(row, 0, k);
+            for (int j = 0; j < k; j++) {
+                visitor.visit(u, (int) row[j]);
+            }
+        }
+    }
+
+    private boolean accept(CsrGraph graph, int edge, int toId) {
+        return graph.weights[edge] >= minWeight && (toId < 0 || graph.targets[edge] == toId);
+    }
+
+    //按权重降序，相同权重按字母序；堆中每项为 (起点 << 32 | 边下标)
+    private void listByWeight(CsrGraph graph, int fromId, int toId, EdgeVisitor visitor) throws IOException {
+        int[] rank = new int[graph.nodeCount()];
+        int[] alphabetical = alphabeticalOrder(graph);
+        for (int i = 0; i < alphabetical.length; i++) {
+            rank[alphabetical[i]] = i;
+        }
+        EntryComparator byWeight = (a, b) -> {
+            int ea = (int) a;
+            int eb = (int) b;
+            if (graph.weights[ea] != graph.weights[eb]) {
+                return Integer.compare(graph.weights[eb], graph.weights[ea]);
+            }
+            int sa = rank[(int) (a >>> 32)];
+            int sb = rank[(int) (b >>> 32)];
+            return sa != sb ? Integer.compare(sa, sb) : Integer.compare(rank[graph.targets[ea]], rank[graph.targets[eb]]);
+        };
+        long keep = limit == Long.MAX_VALUE ? Long.MAX_VALUE : offset + limit;
+        EntryHeap heap = new EntryHeap(byWeight, keep);
+        scan(graph, fromId, toId, false, (source, edge) -> heap.offer(((long) source << 32) | edge));
+        for (long entry : heap.drainSorted()) {
+            visitor.visit((int) (entry >>> 32), (int) entry);
+        }
+    }
+
+    private static int[] alphabeticalOrder(CsrGraph graph) {
+        Integer[] ids = new Integer[graph.nodeCount()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = i;
+        }
+        Arrays.sort(ids, (a, b) -> graph.words[a].compareTo(graph.words[b]));
+        return Arrays.stream(ids).mapToInt(Integer::intValue).toArray();
+    }
+
+    private static void writeLine(CsrGraph graph, int source, int edge, Writer out) throws IOException {
+        out.write(graph.words[source]);
+        out.write(" -> ");
+        out.write(graph.words[graph.targets[edge]]);
+        out.write(" (weight: ");
+        out.write(Integer.toString(graph.weights[edge]));
+        out.write(")\n");
+    }
+
+    private interface EntryComparator {
+        int compare(long a, long b);
+    }
+
+    //只保留排序最靠前的 keep 项：堆顶为当前保留项中最靠后的一项
+    private static final class EntryHeap {
+        private final EntryComparator comparator;
+        private final long keep;
+        private long[] entries = new long[16];
+        private int size;
+
+        EntryHeap(EntryComparator comparator, long keep) {
+            this.comparator = comparator;
+            this.keep = keep;
+        }
+
+        void offer(long entry) {
+            if (size < keep) {
+                if (size == entries.length) {
+                    entries = Arrays.copyOf(entries, size * 2);
+                }
+                entries[size] = entry;
+                siftUp(size++);
+            } else if (comparator.compare(entry, entries[0]) < 0) {
+                entries[0] = entry;
+                siftDown(size);
+            }
+        }
+
+        //原地堆排序后按顺序返回（堆随之清空）
+        long[] drainSorted() {
+            for (int end = size - 1; end > 0; end--) {
+                long top = entries[0];
+                entries[0] = entries[end];
+                entries[end] = top;
+                siftDown(end);
+            }
+            long[] sorted = Arrays.copyOf(entries, size);
+            size = 0;
+            return sorted;
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (comparator.compare(entries[parent], entries[i]) >= 0) {
+                    break;
+                }
+                swap(parent, i);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int limit) {
+            int i = 0;
+            while (2 * i + 1 < limit) {
+                int child = 2 * i + 1;
+                if (child + 1 < limit && comparator.compare(entries[child + 1], entries[child]) > 0) {
+                    child++;
+                }
+                if (comparator.compare(entries[i], entries[child]) >= 0) {
+                    break;
+                }
+                swap(i, child);
+                i = child;
+            }
+        }
+
+        private void swap(int a, int b) {
+            long t = entries[a];
+            entries[a] = entries[b];
+            entries[b] = t;
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package cn.edu.hit;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.IntConsumer;
+import java.util.stream.Stream;
+
+//外存建图：语料与全部二元组都不必装入堆内存，只有词表常驻
+//相邻单词编号对编码为 (from << 32 | to) 放入固定大小的 long 缓冲区，满了就排序、合并相同的对，
+//作为一个有序段写入临时文件；输入结束后对段做多趟 k 路归并（每趟至多 fanIn 路），按 (起点, 终点) 顺序直接拼出 CSR 图，
+//或者不经堆内存直接把归并结果流式写成快照文件（见 writeSnapshot）
+final class ExternalGraphBuilder implements IntConsumer, AutoCloseable {
+    /**
+     * 默认缓冲的编号对数（64 MB）。
+     */
+    static final int DEFAULT_BUFFER_PAIRS = 8 << 20;
+
+    /**
+     * 默认一次归并的最多段数；段更多时分多趟归并，同时打开的文件与读缓冲不超过这个数。
+     */
+    static final int DEFAULT_FAN_IN = 64;
+
+    private static final int IO_BUFFER = 1 << 16;
+
+    private final WordDictionary dictionary;
+    private final long[] buffer;
+    private int buffered;
+    private int previous = -1;
+
+    private final int fanIn;
+    private final Path tempDir;
+    private Path runDir;
+    private int runSequence;
+    private int spilled;
+    private int passes;
+    /**
+     * 已写出的有序段及其记录数。
+     */
+    private final List<Path> runs = new ArrayList<>();
+    private final List<Integer> runSizes = new ArrayList<>();
+
+    //tempDir 为存放临时段文件的目录（null 表示系统临时目录）
+    ExternalGraphBuilder(WordDictionary dictionary, int bufferPairs, Path tempDir) {
+        this(dictionary, bufferPairs, tempDir, DEFAULT_FAN_IN);
+    }
+
+    //fanIn 为一次归并的最多段数（至少 2）
+    ExternalGraphBuilder(WordDictionary dictionary, int bufferPairs, Path tempDir, int fanIn) {
+        if (bufferPairs < 1) {
+            throw new IllegalArgumentException("bufferPairs must be positive: " + bufferPairs);
+        }
+        if (fanIn < 2) {
+            throw new IllegalArgumentException("fanIn must be at least 2: " + fanIn);
+        }
+        this.dictionary = dictionary;
+        this.buffer = new long[bufferPairs];
+        this.fanIn = fanIn;
+        this.tempDir = tempDir;
+    }
+
+    //按默认缓冲大小从单个文件建图
+    static CsrGraph build(Path corpus) throws IOException {
+        return build(corpus, DEFAULT_BUFFER_PAIRS, null);
+    }
+
+    static CsrGraph build(Path corpus, int bufferPairs, Path tempDir) throws IOException {
+        WordDictionary dictionary = new WordDictionary();
+        try (ExternalGraphBuilder builder = new ExternalGraphBuilder(dictionary, bufferPairs, tempDir)) {
+            try {
+                StreamingTokenizer.tokenizeFile(corpus, dictionary, builder);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            return builder.build();
+        }
+    }
+
+    //外存建图并直接保存为快照，整个过程堆内存只与词表大小和缓冲区大小相关
+    static void buildSnapshot(Path corpus, int bufferPairs, Path tempDir, Path output) throws IOException {
+        WordDictionary dictionary = new WordDictionary();
+        try (ExternalGraphBuilder builder = new ExternalGraphBuilder(dictionary, bufferPairs, tempDir)) {
+            try {
+                StreamingTokenizer.tokenizeFile(corpus, dictionary, builder);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            builder.writeSnapshot(corpus, output);
+        }
+    }
+
+    //喂入下一个单词的编号；缓冲区满时写出一个有序段
+    @Override
+    public void accept(int id) {
+        if (previous >= 0) {
+            if (buffered == buffer.length) {
+                try {
+                    spill();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            buffer[buffered++] = ((long) previous << 32) | id;
+        }
+        previous = id;
+    }
+
+    //结束当前文本，下一个单词不与之前的单词相连
+    void breakSequence() {
+        previous = -1;
+    }
+
+    //缓冲区写出的有序段数（不含归并产生的段）
+    int runCount() {
+        return spilled;
+    }
+
+    int mergePassCount() {
+        return passes;
+    }
+
+    //排序缓冲区并把 (键, 次数) 写成一个段
+    private void spill() throws IOException {
+        if (buffered == 0) {
+            return;
+        }
+        Path run = nextRunPath();
+        int records = 0;
+        Arrays.parallelSort(buffer, 0, buffered);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run), IO_BUFFER))) {
+            for (int i = 0; i < buffered; ) {
+                long key = buffer[i];
+                int j = i;
+                while (j < buffered && buffer[j] == key) {
+                    j++;
+                }
+                out.writeLong(key);
+                out.writeInt(j - i);
+                records++;
+                i = j;
+            }
+        }
+        runs.add(run);
+        runSizes.add(records);
+        spilled++;
+        buffered = 0;
+    }
+
+    //写出剩余的缓冲区并多趟归并，直到只剩一个段（其记录数即边数）；没有任何边时返回 false
+    private boolean mergeAll() throws IOException {
+        spill();
+        while (runs.size() > 1) {
+            mergePass();
+        }
+        return !runs.isEmpty();
+    }
+
+    //归并所有段为 CSR 图；没有任何边时返回空图
+    //每趟把至多 fanIn 个段归并为一个，直到只剩一个段：这个段的记录数就是边数，CSR 数组一次分配到位
+    CsrGraph build() throws IOException {
+        if (!mergeAll()) {
+            return new CsrGraph(new String[0], new int[1], new int[0], new int[0]);
+        }
+        String[] words = dictionary.words();
+        int n = words.length;
+        int m = runSizes.get(0);
+        int[] offsets = new int[n + 1];
+        int[] targets = new int[m];
+        int[] weights = new int[m];
+        try (RunReader reader = new RunReader(runs.get(0), m)) {
+            for (int i = 0; reader.next(); i++) {
+                offsets[(int) (reader.key >>> 32) + 1]++;
+                targets[i] = (int) reader.key;
+                weights[i] = reader.count;
+            }
+        }
+        for (int u = 0; u < n; u++) {
+            offsets[u + 1] += offsets[u];
+        }
+        return new CsrGraph(words, offsets, targets, weights);
+    }
+
+    //归并所有段并直接写成快照文件，不在堆中构建 CSR 图：堆内存只需词表与每个节点的出边偏移
+    //最后一个段顺序读三遍，依次得到 offsets、targets、weights 三段；快照中不附带 PageRank
+    void writeSnapshot(Path corpus, Path output) throws IOException {
+        if (!mergeAll()) {
+            GraphSnapshot.save(new String[0], 0, sink -> sink.putInt(0), null, corpus, output);
+            return;
+        }
+        String[] words = dictionary.words();
+        Path run = runs.get(0);
+        int m = runSizes.get(0);
+        int[] offsets = new int[words.length + 1];
+        try (RunReader reader = new RunReader(run, m)) {
+            while (reader.next()) {
+                offsets[(int) (reader.key >>> 32) + 1]++;
+            }
+        }
+        for (int u = 0; u < words.length; u++) {
+            offsets[u + 1] += offsets[u];
+        }
+        GraphSnapshot.save(words, m, sink -> {
+            sink.putInts(offsets);
+            try (RunReader reader = new RunReader(run, m)) {
+                while (reader.next()) {
+                    sink.putInt((int) reader.key);
+                }
+            }
+            try (RunReader reader = new RunReader(run, m)) {
+                while (reader.next()) {
+                    sink.putInt(reader.count);
+                }
+            }
+        }, null, corpus, output);
+    }
+
+    //一趟归并：相邻的每 fanIn 个段归并为一个新段，归并完的段立即删除
+    private void mergePass() throws IOException {
+        List<Path> inputs = new ArrayList<>(runs);
+        List<Integer> sizes = new ArrayList<>(runSizes);
+        runs.clear();
+        runSizes.clear();
+        passes++;
+        for (int from = 0; from < inputs.size(); from += fanIn) {
+            int to = Math.min(inputs.size(), from + fanIn);
+            if (to - from == 1) {
+                runs.add(inputs.get(from));
+                runSizes.add(sizes.get(from));
+                continue;
+            }
+            Path merged = nextRunPath();
+            runSizes.add(merge(inputs.subList(from, to), sizes.subList(from, to), merged));
+            runs.add(merged);
+            for (Path run : inputs.subList(from, to)) {
+                Files.delete(run);
+            }
+        }
+    }
+
+    //k 路归并若干段写成一个段（相同的对累加次数，超过 int 范围时取上限），返回写出的记录数
+    private static int merge(List<Path> group, List<Integer> sizes, Path output) throws IOException {
+        PriorityQueue<RunReader> heap = new PriorityQueue<>((a, b) -> Long.compare(a.key, b.key));
+        int records = 0;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(output), IO_BUFFER))) {
+            for (int i = 0; i < group.size(); i++) {
+                RunReader reader = new RunReader(group.get(i), sizes.get(i));
+                if (reader.next()) {
+                    heap.add(reader);
+                } else {
+                    reader.close();
+                }
+            }
+            while (!heap.isEmpty()) {
+                long key = heap.peek().key;
+                long count = 0;
+                while (!heap.isEmpty() && heap.peek().key == key) {
+                    RunReader reader = heap.poll();
+                    count += reader.count;
+                    if (reader.next()) {
+                        heap.add(reader);
+                    } else {
+                        reader.close();
+                    }
+                }
+                out.writeLong(key);
+                out.writeInt((int) Math.min(Integer.MAX_VALUE, count));
+                records++;
+            }
+        } finally {
+            for (RunReader reader : heap) {
+                reader.close();
+            }
+        }
+        return records;
+    }
+
+    private Path nextRunPath() throws IOException {
+        if (runDir == null) {
+            runDir = tempDir == null ? Files.createTempDirectory("graph-runs") : Files.createTempDirectory(tempDir, "graph-runs");
+        }
+        return runDir.resolve("run-" + runSequence++);
+    }
+
+    //删除临时目录及其中的全部段文件（包括归并中途失败时留下的段）
+    @Override
+    public void close() throws IOException {
+        runs.clear();
+        runSizes.clear();
+        if (runDir != null) {
+            try (Stream<Path> left = Files.list(runDir)) {
+                for (Path run : (Iterable<Path>) left::iterator) {
+                    Files.deleteIfExists(run);
+                }
+            }
+            Files.deleteIfExists(runDir);
+            runDir = null;
+        }
+    }
+
+    //顺序读取一个段
+    private static final class RunReader implements Closeable {
+        private final DataInputStream in;
+        private int remaining;
+        long key;
+        int count;
+
+        RunReader(Path run, int records) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run), IO_BUFFER));
+            this.remaining = records;
+        }
+
+        boolean next() throws IOException {
+            if (remaining == 0) {
+                return false;
+            }
+            key = in.readLong();
+            count = in.readInt();
+            remaining--;
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
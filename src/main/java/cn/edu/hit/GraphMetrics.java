@@ -0,0 +1,125 @@
+package cn.edu.hit;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+//图操作的埋点：每类操作一个 OperationMetrics，注册为 JMX MBean（cn.edu.hit:type=GraphMetrics,operation=...），
+//同时为每次调用提交一条 GraphOperationEvent，不需要调试器即可用 JConsole / JFR 观察运行中的进程
+final class GraphMetrics {
+    private static final Logger LOGGER = Logger.getLogger(GraphMetrics.class.getName());
+
+    static final String DOMAIN = "cn.edu.hit";
+
+    //被统计的操作及其工作量单位
+    enum Operation {
+        BUILD("build", "words"),
+        BRIDGE("bridge", "bridge words"),
+        NEW_TEXT("newtext", "words"),
+        SHORTEST_PATH("path", "nodes settled"),
+        PAGE_RANK("pagerank", "iterations"),
+        RANDOM_WALK("walk", "steps");
+
+        final String key;
+        final String workUnit;
+
+        Operation(String key, String workUnit) {
+            this.key = key;
+            this.workUnit = workUnit;
+        }
+    }
+
+    private static final Map<Operation, OperationMetrics> METRICS = new EnumMap<>(Operation.class);
+
+    static {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (Operation operation : Operation.values()) {
+            OperationMetrics metrics = new OperationMetrics(operation.workUnit);
+            METRICS.put(operation, metrics);
+            try {
+                ObjectName name = objectName(operation);
+                if (!server.isRegistered(name)) {
+                    server.registerMBean(metrics, name);
+                }
+            } catch (JMException e) {
+                LOGGER.log(Level.WARNING, "Failed to register metrics for " + operation.key, e);
+            }
+        }
+    }
+
+    private GraphMetrics() {
+    }
+
+    static ObjectName objectName(Operation operation) throws JMException {
+        return new ObjectName(DOMAIN + ":type=GraphMetrics,operation=" + operation.key);
+    }
+
+    static OperationMetrics of(Operation operation) {
+        return METRICS.get(operation);
+    }
+
+    //开始计时一次操作
+    static Timer start(Operation operation) {
+        return new Timer(operation);
+    }
+
+    //一次操作的计时：stop 时记入统计并提交 JFR 事件
+    static final class Timer {
+        private final Operation operation;
+        private final GraphOperationEvent event = new GraphOperationEvent();
+        private final long start;
+
+        private Timer(Operation operation) {
+            this.operation = operation;
+            event.begin();
+            this.start = System.nanoTime();
+        }
+
+        //detail 为操作参数的简短描述，work 为本次的工作量；返回耗时（纳秒）
+        long stop(String detail, long work) {
+            long nanos = record(work);
+            if (event.shouldCommit()) {
+                commit(detail, work);
+            }
+            return nanos;
+        }
+
+        //描述为 "first second"（如两个查询单词），只在事件确实要提交时才拼接，未开启 JFR 时不产生字符串
+        long stop(String first, String second, long work) {
+            long nanos = record(work);
+            if (event.shouldCommit()) {
+                commit(first + " " + second, work);
+            }
+            return nanos;
+        }
+
+        //描述为 "count label"（如 "12 nodes"），同样只在提交事件时拼接
+        long stop(long count, String label, long work) {
+            long nanos = record(work);
+            if (event.shouldCommit()) {
+                commit(count + " " + label, work);
+            }
+            return nanos;
+        }
+
+        private long record(long work) {
+            long nanos = System.nanoTime() - start;
+            METRICS.get(operation).record(nanos, work);
+            event.end();
+            return nanos;
+        }
+
+        private void commit(String detail, long work) {
+            event.operation = operation.key;
+            event.detail = detail;
+            event.work = work;
+            event.workUnit = operation.workUnit;
+            event.commit();
+        }
+    }
+}
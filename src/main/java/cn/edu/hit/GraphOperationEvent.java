@@ -0,0 +1,29 @@
+package cn.edu.hit;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+//JFR 事件：每次图操作一条，持续时间由 JFR 记录；可用 jcmd <pid> JFR.start 在运行中的进程上开启
+@Name("cn.edu.hit.GraphOperation")
+@Label("Graph Operation")
+@Category("Text Graph")
+@Description("A build, query or walk on the word graph")
+@StackTrace(false)
+final class GraphOperationEvent extends Event {
+    @Label("Operation")
+    String operation;
+
+    @Label("Detail")
+    String detail;
+
+    @Label("Work")
+    @Description("Words ingested, nodes settled, PageRank iterations, ... depending on the operation")
+    long work;
+
+    @Label("Work Unit")
+    String workUnit;
+}
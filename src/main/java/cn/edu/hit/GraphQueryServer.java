@@ -0,0 +1,186 @@
+package cn.edu.hit;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+//无界面的查询服务器：监听本机端口，按行读取命令（见 GraphQueryService），每个连接和每条查询都在虚拟线程上执行
+//应答格式：首行为 "OK" 或 "ERROR <原因>"，OK 之后是结果文本，最后以一个空行结束；发送 quit 关闭连接
+//同时执行的查询数受信号量限制，等待名额与执行的总时间超过超时时间时返回 ERROR timeout
+final class GraphQueryServer implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(GraphQueryServer.class.getName());
+
+    /**
+     * 默认的并发查询上限。
+     */
+    static final int DEFAULT_MAX_CONCURRENT = 1024;
+
+    /**
+     * 默认的单条查询超时时间。
+     */
+    static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(10);
+
+    /**
+     * 连接空闲超过该时间（毫秒）后关闭。
+     */
+    static final int IDLE_TIMEOUT_MILLIS = 5 * 60 * 1000;
+
+    private final Function<String, String> handler;
+    private final ServerSocket serverSocket;
+    private final Semaphore permits;
+    private final long timeoutNanos;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+    private Thread acceptor;
+
+    //port 为 0 时使用任意空闲端口；handler 执行一条命令，抛出 IllegalArgumentException 表示命令有误
+    GraphQueryServer(Function<String, String> handler, int port, int maxConcurrent, Duration timeout) throws IOException {
+        this.handler = handler;
+        this.serverSocket = new ServerSocket(port, 0, InetAddress.getLoopbackAddress());
+        this.permits = new Semaphore(maxConcurrent);
+        this.timeoutNanos = timeout.toNanos();
+    }
+
+    int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    //在后台线程中开始接受连接
+    synchronized void start() {
+        if (acceptor == null) {
+            acceptor = Thread.ofPlatform().name("graph-query-accept").start(this::acceptLoop);
+        }
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket client = serverSocket.accept();
+                connections.add(client);
+                executor.execute(() -> serve(client));
+            } catch (RejectedExecutionException e) {
+                break;
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    LOGGER.log(Level.WARNING, "Failed to accept connection", e);
+                }
+            }
+        }
+    }
+
+    private void serve(Socket client) {
+        try (client;
+             BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(new OutputStreamWriter(client.getOutputStream(), StandardCharsets.UTF_8))) {
+            client.setSoTimeout(IDLE_TIMEOUT_MILLIS);
+            String line;
+            while ((line = in.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty()) {
+                    continue;
+                }
+                if (line.equalsIgnoreCase("quit")) {
+                    break;
+                }
+                out.write(respond(line));
+                out.write("\n\n");
+                out.flush();
+            }
+        } catch (SocketTimeoutException e) {
+            LOGGER.fine("Closing idle connection " + client.getRemoteSocketAddress());
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Connection closed: " + client.getRemoteSocketAddress(), e);
+        } finally {
+            connections.remove(client);
+        }
+    }
+
+    //执行一条命令并生成应答（不含结尾空行）
+    String respond(String line) {
+        long deadline = System.nanoTime() + timeoutNanos;
+        try {
+            if (!permits.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS)) {
+                return "ERROR busy";
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "ERROR interrupted";
+        }
+        Future<String> result;
+        try {
+            //名额在查询真正结束时才归还，超时后仍在运行的查询继续占用名额
+            result = executor.submit(() -> {
+                try {
+                    return handler.apply(line);
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            return "ERROR server is shutting down";
+        }
+        try {
+            String body = result.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            //结果中的空行会被当作应答结束，去掉
+            String text = body.replaceAll("\n+", "\n").strip();
+            return text.isEmpty() ? "OK" : "OK\n" + text;
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            return "ERROR timeout";
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IllegalArgumentException) {
+                return "ERROR " + e.getCause().getMessage();
+            }
+            LOGGER.log(Level.WARNING, "Query failed: " + line, e.getCause());
+            return "ERROR internal error";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.cancel(true);
+            return "ERROR interrupted";
+        }
+    }
+
+    //停止接受连接，关闭所有连接并中断在途查询
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        for (Socket client : connections) {
+            client.close();
+        }
+        executor.shutdownNow();
+        Thread thread;
+        synchronized (this) {
+            thread = acceptor;
+        }
+        if (thread != null) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package cn.edu.hit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+//查询服务：把一行文本命令解析为对共享只读图的查询并返回结果文本，可被多个线程同时调用（不加锁读图）
+//命令（单词间以空白分隔）：
+//  bridge <word1> <word2>      查询桥接词
+//  newtext <text>              根据桥接词生成新文本
+//  path <start> [end]          最短路径，省略 end 时为到所有节点
+//  pagerank [word | k]         单个单词的 PR 值，或 PR 最高的 k 个（默认 10 个）
+//  pagerank approx <k> [seed ...]
+//                              蒙特卡洛近似的 PR 最高的 k 个；给出起点单词时为以它们为起点的个性化 PR
+//  walk                        一次随机游走
+//  stats                       各类操作的调用次数与耗时，以及当前图的最短路径树缓存统计
+final class GraphQueryService {
+    /**
+     * pagerank 命令默认列出的单词数。
+     */
+    static final int DEFAULT_TOP = 10;
+
+    /**
+     * 每条命令开始时取一次图，图可以在两次命令之间被替换（如 ConcurrentGraph 发布的新快照）。
+     */
+    private final Supplier<CsrGraph> graphs;
+
+    /**
+     * 最近一个图上按需计算的结果。
+     */
+    private volatile Derived derived;
+
+    //某个图上按需计算的结果，图被替换后整体失效
+    private static final class Derived {
+        final CsrGraph graph;
+        /**
+         * 全图 PageRank。
+         */
+        volatile Map<String, Double> pageRank;
+        /**
+         * 按 PR 值降序排列的单词，晚于 pageRank 写入。
+         */
+        volatile List<String> byRank;
+        /**
+         * 游走引擎（别名表）。
+         */
+        volatile RandomWalkEngine walks;
+
+        Derived(CsrGraph graph) {
+            this.graph = graph;
+        }
+    }
+
+    GraphQueryService(CsrGraph graph) {
+        this(() -> graph);
+    }
+
+    GraphQueryService(Supplier<CsrGraph> graphs) {
+        this.graphs = graphs;
+    }
+
+    CsrGraph graph() {
+        return graphs.get();
+    }
+
+    private Derived derived(CsrGraph graph) {
+        Derived current = derived;
+        if (current == null || current.graph != graph) {
+            current = new Derived(graph);
+            derived = current;
+        }
+        return current;
+    }
+
+    //执行一条命令；命令格式错误时抛出 IllegalArgumentException
+    String execute(String line) {
+        String[] parts = line.trim().split("\\s+", 2);
+        String command = parts[0].toLowerCase();
+        String rest = parts.length > 1 ? parts[1] : "";
+        String[] args = rest.isEmpty() ? new String[0] : rest.split("\\s+");
+        CsrGraph graph = graphs.get();
+        switch (command) {
+            case "bridge":
+                expect(args.length == 2, "usage: bridge <word1> <word2>");
+                return TextGraphApp.queryBridgeWords(graph, args[0], args[1]);
+            case "newtext":
+                expect(!TextGraphApp.cleanWords(rest).isEmpty(), "usage: newtext <text>");
+                return TextGraphApp.generateNewText(graph, rest);
+            case "path":
+                expect(args.length == 1 || args.length == 2, "usage: path <start> [end]");
+                return TextGraphApp.calcShortestPath(graph, args[0], args.length == 2 ? args[1] : null).stripTrailing();
+            case "pagerank":
+                if (args.length > 0 && args[0].equalsIgnoreCase("approx")) {
+                    expect(args.length >= 2 && args[1].matches("[1-9][0-9]{0,8}"), "usage: pagerank approx <k> [seed ...]");
+                    return approximatePageRank(graph, Integer.parseInt(args[1]), Arrays.asList(args).subList(2, args.length));
+                }
+                expect(args.length <= 1, "usage: pagerank [word | k]");
+                return pageRank(graph, args.length == 0 ? String.valueOf(DEFAULT_TOP) : args[0]);
+            case "walk":
+                expect(args.length == 0, "usage: walk");
+                return walk(graph);
+            case "stats":
+                expect(args.length == 0, "usage: stats");
+                return stats(graph);
+            default:
+                throw new IllegalArgumentException("Unknown command: " + parts[0]);
+        }
+    }
+
+    private static void expect(boolean condition, String usage) {
+        if (!condition) {
+            throw new IllegalArgumentException(usage);
+        }
+    }
+
+    private String pageRank(CsrGraph graph, String arg) {
+        Derived cached = derived(graph);
+        if (cached.byRank == null) {
+            synchronized (cached) {
+                if (cached.byRank == null) {
+                    Map<String, Double> values = TextGraphApp.calcPageRank(graph, 0.85, 1e-6);
+                    List<String> sorted = new ArrayList<>(values.keySet());
+                    sorted.sort(Comparator.comparing((String word) -> values.get(word)).reversed()
+                            .thenComparing(Comparator.naturalOrder()));
+                    cached.pageRank = values;
+                    cached.byRank = sorted;
+                }
+            }
+        }
+        List<String> order = cached.byRank;
+        Map<String, Double> ranks = cached.pageRank;
+        if (!arg.chars().allMatch(Character::isDigit)) {
+            int id = graph.id(arg);
+            if (id < 0) {
+                return "No " + arg + " in the graph!";
+            }
+            return String.format("%s: %.6f", graph.words[id], ranks.get(graph.words[id]));
+        }
+        int k = (int) Math.min(Long.parseLong(arg), order.size());
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < k; i++) {
+            if (i > 0) {
+                result.append('\n');
+            }
+            result.append(String.format("%s: %.6f", order.get(i), ranks.get(order.get(i))));
+        }
+        return result.toString();
+    }
+
+    private static String approximatePageRank(CsrGraph graph, int k, List<String> seeds) {
+        StringBuilder result = new StringBuilder();
+        for (Map.Entry<String, Double> entry : TextGraphApp.calcPageRankTopK(graph, seeds, k, 0.85).entrySet()) {
+            if (result.length() > 0) {
+                result.append('\n');
+            }
+            result.append(String.format("%s: %.6f", entry.getKey(), entry.getValue()));
+        }
+        return result.length() == 0 ? "No PageRank estimate." : result.toString();
+    }
+
+    private static String stats(CsrGraph graph) {
+        StringBuilder result = new StringBuilder("path tree cache: ").append(graph.shortestPaths().cacheStats());
+        for (GraphMetrics.Operation operation : GraphMetrics.Operation.values()) {
+            OperationMetrics metrics = GraphMetrics.of(operation);
+            if (metrics.getCount() > 0) {
+                result.append('\n').append(String.format(Locale.ROOT, "%s: count=%d, mean=%.3f ms, p99=%.3f ms, %.1f %s/s",
+                        operation.key, metrics.getCount(), metrics.getMeanMillis(), metrics.getP99Millis(),
+                        metrics.getWorkPerSecond(), operation.workUnit));
+            }
+        }
+        return result.toString();
+    }
+
+    //与交互模式相同的游走规则（均匀选边、遇到走过的边停止），但不打印也不写文件
+    private String walk(CsrGraph graph) {
+        if (graph.nodeCount() == 0) {
+            return "Graph is empty.";
+        }
+        Derived cached = derived(graph);
+        RandomWalkEngine engine = cached.walks;
+        if (engine == null) {
+            synchronized (cached) {
+                engine = cached.walks;
+                if (engine == null) {
+                    engine = new RandomWalkEngine(graph);
+                    cached.walks = engine;
+                }
+            }
+        }
+        GraphMetrics.Timer timer = GraphMetrics.start(GraphMetrics.Operation.RANDOM_WALK);
+        SplittableRandom random = new SplittableRandom();
+        RandomWalkEngine.Walker walker = engine.new Walker();
+        walker.walk(random.nextInt(graph.nodeCount()), false, Integer.MAX_VALUE, random);
+        timer.stop("server", walker.length - 1);
+        String[] words = new String[walker.length];
+        for (int i = 0; i < walker.length; i++) {
+            words[i] = graph.words[walker.nodes[i]];
+        }
+        return String.join(" -> ", Arrays.asList(words));
+    }
+}
@@ -0,0 +1,491 @@
+package cn.edu.hit;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+//二进制图快照：把冻结图（词典、CSR 邻接与权重，可选 PageRank）写成带版本号的文件，
+//加载时顺序读入数组，无需重新分词建图；读写都经固定大小的缓冲区分段进行，校验和随读写累计，文件大小不受 2GB 限制
+//文件头记录正文校验和与源语料的哈希、长度和修改时间，用于发现损坏或过期的快照
+//
+//布局（小端）：
+//  头部 72 字节：magic, version, flags, nodeCount, edgeCount, wordBytes, corpusHash(8), checksum(8), corpusSize(8),
+//               PageRank 的阻尼系数(8) 与收敛阈值(8), corpusModified(8，纳秒)
+//  int[n+1] 单词在字节块中的偏移 | byte[wordBytes] UTF-8 单词（补齐到 8 字节）
+//  int[n+1] offsets | int[E] targets | int[E] weights | double[n] PageRank（flags & 1）
+final class GraphSnapshot {
+    static final int MAGIC = 0x5447534E; // "TGSN"
+    static final int VERSION = 3;
+    static final int HEADER_BYTES = 72;
+    static final int FLAG_PAGERANK = 1;
+
+    /**
+     * 读写正文时使用的缓冲区大小。
+     */
+    static final int IO_BUFFER = 1 << 20;
+
+    //加载得到的内容
+    static final class Loaded {
+        final CsrGraph graph;
+        /**
+         * 预先计算的 PageRank，未保存时为 null。
+         */
+        final double[] pageRank;
+        final long corpusHash;
+        final long corpusSize;
+
+        Loaded(CsrGraph graph, double[] pageRank, long corpusHash, long corpusSize) {
+            this.graph = graph;
+            this.pageRank = pageRank;
+            this.corpusHash = corpusHash;
+            this.corpusSize = corpusSize;
+        }
+    }
+
+    //CSR 三段的写出目标：依次接收 n+1 个 offsets、E 个 targets、E 个 weights
+    interface IntSink {
+        void putInt(int value) throws IOException;
+
+        void putInts(int[] values) throws IOException;
+    }
+
+    //按顺序写出 CSR 三段，可以边读外存数据边写，不必先在堆中拼出数组
+    interface CsrSource {
+        void writeTo(IntSink sink) throws IOException;
+    }
+
+    //顺序写出正文（从文件头之后开始），缓冲区满时写入通道，同时累计 CRC32C
+    private static final class BodyWriter implements IntSink {
+        private final FileChannel channel;
+        private final ByteBuffer buf = ByteBuffer.allocate(IO_BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+        private final CRC32C crc = new CRC32C();
+
+        /**
+         * 缓冲区开头对应的文件位置。
+         */
+        private long position = HEADER_BYTES;
+
+        BodyWriter(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void putInt(int value) throws IOException {
+            if (buf.remaining() < 4) {
+                flush();
+            }
+            buf.putInt(value);
+        }
+
+        @Override
+        public void putInts(int[] values) throws IOException {
+            for (int i = 0; i < values.length; ) {
+                if (buf.remaining() < 4) {
+                    flush();
+                }
+                int k = Math.min(values.length - i, buf.remaining() / 4);
+                buf.asIntBuffer().put(values, i, k);
+                buf.position(buf.position() + 4 * k);
+                i += k;
+            }
+        }
+
+        void putDoubles(double[] values) throws IOException {
+            for (int i = 0; i < values.length; ) {
+                if (buf.remaining() < 8) {
+                    flush();
+                }
+                int k = Math.min(values.length - i, buf.remaining() / 8);
+                buf.asDoubleBuffer().put(values, i, k);
+                buf.position(buf.position() + 8 * k);
+                i += k;
+            }
+        }
+
+        void putBytes(byte[] bytes) throws IOException {
+            for (int i = 0; i < bytes.length; ) {
+                if (!buf.hasRemaining()) {
+                    flush();
+                }
+                int k = Math.min(bytes.length - i, buf.remaining());
+                buf.put(bytes, i, k);
+                i += k;
+            }
+        }
+
+        //补零到 8 字节边界
+        void align() throws IOException {
+            long at = position + buf.position();
+            for (long pad = GraphSnapshot.align(at) - at; pad > 0; pad--) {
+                if (!buf.hasRemaining()) {
+                    flush();
+                }
+                buf.put((byte) 0);
+            }
+        }
+
+        void flush() throws IOException {
+            buf.flip();
+            crc.update(buf.array(), 0, buf.limit());
+            while (buf.hasRemaining()) {
+                position += channel.write(buf, position);
+            }
+            buf.clear();
+        }
+
+        //下一个字节的文件位置
+        long position() {
+            return position + buf.position();
+        }
+
+        long checksum() {
+            return crc.getValue();
+        }
+    }
+
+    //顺序读取正文（从文件头之后开始），同时累计读到的字节的 CRC32C
+    private static final class BodyReader {
+        private final FileChannel channel;
+        private final ByteBuffer buf = ByteBuffer.allocate(IO_BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+        private final CRC32C crc = new CRC32C();
+
+        /**
+         * 下一次从通道读取的位置。
+         */
+        private long filePosition = HEADER_BYTES;
+
+        /**
+         * 下一个待取出的字节的文件位置。
+         */
+        private long position = HEADER_BYTES;
+
+        BodyReader(FileChannel channel) {
+            this.channel = channel;
+            buf.limit(0);
+        }
+
+        //保证缓冲区中至少有 bytes 个未取出的字节
+        private void fill(int bytes) throws IOException {
+            if (buf.remaining() >= bytes) {
+                return;
+            }
+            buf.compact();
+            while (buf.position() < bytes) {
+                int start = buf.position();
+                int read = channel.read(buf, filePosition);
+                if (read < 0) {
+                    throw new EOFException("Truncated snapshot");
+                }
+                crc.update(buf.array(), start, read);
+                filePosition += read;
+            }
+            buf.flip();
+        }
+
+        void readInts(int[] values) throws IOException {
+            for (int i = 0; i < values.length; ) {
+                fill(4);
+                int k = Math.min(values.length - i, buf.remaining() / 4);
+                buf.asIntBuffer().get(values, i, k);
+                buf.position(buf.position() + 4 * k);
+                position += 4L * k;
+                i += k;
+            }
+        }
+
+        void readDoubles(double[] values) throws IOException {
+            for (int i = 0; i < values.length; ) {
+                fill(8);
+                int k = Math.min(values.length - i, buf.remaining() / 8);
+                buf.asDoubleBuffer().get(values, i, k);
+                buf.position(buf.position() + 8 * k);
+                position += 8L * k;
+                i += k;
+            }
+        }
+
+        void readBytes(byte[] bytes) throws IOException {
+            for (int i = 0; i < bytes.length; ) {
+                fill(1);
+                int k = Math.min(bytes.length - i, buf.remaining());
+                buf.get(bytes, i, k);
+                position += k;
+                i += k;
+            }
+        }
+
+        //跳过填充字节（仍计入校验和）
+        void skipTo(long offset) throws IOException {
+            while (position < offset) {
+                fill(1);
+                int k = (int) Math.min(buf.remaining(), offset - position);
+                buf.position(buf.position() + k);
+                position += k;
+            }
+        }
+
+        //读完整个正文后的校验和
+        long checksum() throws IOException {
+            while (filePosition < channel.size()) {
+                buf.clear();
+                int read = channel.read(buf, filePosition);
+                if (read < 0) {
+                    break;
+                }
+                crc.update(buf.array(), 0, read);
+                filePosition += read;
+            }
+            return crc.getValue();
+        }
+    }
+
+    private GraphSnapshot() {
+    }
+
+    //源语料内容的 CRC32C（文件长度另行记录）
+    static long hashCorpus(Path corpus) throws IOException {
+        CRC32C crc = new CRC32C();
+        try (FileChannel channel = FileChannel.open(corpus, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long pos = 0; pos < size; pos += StreamingTokenizer.MAP_WINDOW) {
+                crc.update(channel.map(FileChannel.MapMode.READ_ONLY, pos,
+                        Math.min(StreamingTokenizer.MAP_WINDOW, size - pos)));
+            }
+        }
+        return crc.getValue();
+    }
+
+    //语料的修改时间（纳秒）
+    private static long modified(Path corpus) throws IOException {
+        return Files.getLastModifiedTime(corpus).to(TimeUnit.NANOSECONDS);
+    }
+
+    //写入快照（先写临时文件再改名，避免留下半个文件）；图上已计算的 PageRank 连同其参数一起保存
+    //各段经缓冲区依次写出，除单词外不复制图的数组
+    static void save(CsrGraph graph, Path corpus, Path output) throws IOException {
+        save(graph.words, graph.edgeCount(), sink -> {
+            sink.putInts(graph.offsets);
+            sink.putInts(graph.targets);
+            sink.putInts(graph.weights);
+        }, graph.storedPageRank(), corpus, output);
+    }
+
+    //由词表与按顺序产生的 CSR 三段写入快照；stored 为要一并保存的 PageRank（可为 null）
+    static void save(String[] words, int edges, CsrSource csr, CsrGraph.StoredRanks stored, Path corpus, Path output)
+            throws IOException {
+        double[] pageRank = stored == null ? null : stored.ranks;
+        int n = words.length;
+        int e = edges;
+        long wordBytes = 0;
+        for (String word : words) {
+            wordBytes += utf8Length(word);
+        }
+        if (wordBytes > Integer.MAX_VALUE) {
+            throw new IOException("Vocabulary too large for a snapshot: " + wordBytes + " bytes");
+        }
+        Path temp = output.resolveSibling(output.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            BodyWriter body = new BodyWriter(channel);
+            int offset = 0;
+            body.putInt(0);
+            for (String word : words) {
+                offset += utf8Length(word);
+                body.putInt(offset);
+            }
+            for (String word : words) {
+                body.putBytes(word.getBytes(StandardCharsets.UTF_8));
+            }
+            body.align();
+            csr.writeTo(body);
+            if (body.position() != bodyOffsets(n, e, (int) wordBytes, false)[3]) {
+                throw new IOException("CSR sections do not match " + n + " nodes and " + e + " edges");
+            }
+            if (pageRank != null) {
+                body.align();
+                body.putDoubles(pageRank);
+            }
+            body.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(pageRank != null ? FLAG_PAGERANK : 0)
+                    .putInt(n).putInt(e).putInt((int) wordBytes).putLong(hashCorpus(corpus)).putLong(body.checksum())
+                    .putLong(Files.size(corpus))
+                    .putDouble(stored == null ? 0 : stored.damping).putDouble(stored == null ? 0 : stored.epsilon)
+                    .putLong(modified(corpus));
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+        } catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(temp);
+            throw ex;
+        }
+        Files.move(temp, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    //String.getBytes(UTF_8) 得到的字节数（不成对的代理字符编码为一个 '?'）
+    private static int utf8Length(String word) {
+        int length = 0;
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < word.length() && Character.isLowSurrogate(word.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private static ByteBuffer readHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+            //读满文件头或到达文件末尾
+        }
+        return header;
+    }
+
+    //顺序读入各段；verify 为 true 时校验正文校验和；保存过的 PageRank 会附在加载得到的图上
+    //文件头或正文损坏（包括长度、偏移不合法）时抛出 IOException，调用方可据此改为重新建图
+    static Loaded load(Path input, boolean verify) throws IOException {
+        try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+            ByteBuffer header = readHeader(channel);
+            if (header.hasRemaining() || header.getInt(0) != MAGIC) {
+                throw new IOException("Not a graph snapshot: " + input);
+            }
+            if (header.getInt(4) != VERSION) {
+                throw new IOException("Unsupported snapshot version " + header.getInt(4) + ": " + input);
+            }
+            boolean hasRanks = (header.getInt(8) & FLAG_PAGERANK) != 0;
+            int n = header.getInt(12);
+            int e = header.getInt(16);
+            int wordBytes = header.getInt(20);
+            long corpusHash = header.getLong(24);
+            long checksum = header.getLong(32);
+            long corpusSize = header.getLong(40);
+            if (n < 0 || n == Integer.MAX_VALUE || e < 0 || wordBytes < 0) {
+                throw new IOException("Corrupt snapshot header: " + input);
+            }
+            long[] at = bodyOffsets(n, e, wordBytes, hasRanks);
+            if (channel.size() != at[3]) {
+                throw new IOException("Truncated snapshot: " + input);
+            }
+
+            BodyReader body = new BodyReader(channel);
+            int[] wordOffsets = new int[n + 1];
+            body.readInts(wordOffsets);
+            byte[] blob = new byte[wordBytes];
+            body.readBytes(blob);
+            body.skipTo(at[1]);
+            int[] offsets = new int[n + 1];
+            int[] targets = new int[e];
+            int[] weights = new int[e];
+            body.readInts(offsets);
+            body.readInts(targets);
+            body.readInts(weights);
+            double[] ranks = null;
+            if (hasRanks) {
+                ranks = new double[n];
+                body.skipTo(at[2]);
+                body.readDoubles(ranks);
+            }
+            if (verify && body.checksum() != checksum) {
+                throw new IOException("Snapshot checksum mismatch: " + input);
+            }
+            if (!isValid(wordOffsets, wordBytes, offsets, targets)) {
+                throw new IOException("Corrupt snapshot body: " + input);
+            }
+
+            String[] words = new String[n];
+            for (int i = 0; i < n; i++) {
+                words[i] = new String(blob, wordOffsets[i], wordOffsets[i + 1] - wordOffsets[i], StandardCharsets.UTF_8);
+            }
+            CsrGraph graph = new CsrGraph(words, offsets, targets, weights);
+            if (ranks != null) {
+                graph.storePageRank(header.getDouble(48), header.getDouble(56), ranks);
+            }
+            return new Loaded(graph, ranks, corpusHash, corpusSize);
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt snapshot: " + input, e);
+        }
+    }
+
+    //偏移单调且不越界，目标编号都是合法节点
+    private static boolean isValid(int[] wordOffsets, int wordBytes, int[] offsets, int[] targets) {
+        int n = offsets.length - 1;
+        if (wordOffsets[0] != 0 || wordOffsets[n] != wordBytes || offsets[0] != 0 || offsets[n] != targets.length) {
+            return false;
+        }
+        for (int i = 0; i < n; i++) {
+            if (wordOffsets[i + 1] < wordOffsets[i] || offsets[i + 1] < offsets[i]) {
+                return false;
+            }
+        }
+        for (int target : targets) {
+            if (target < 0 || target >= n) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //快照是否与语料不符（快照不存在或无法识别也视为过期）
+    //长度不同即过期；长度与修改时间都相同时认为语料未变，不读取语料；只有修改时间变了（如被 touch 或复制）才比较内容哈希，
+    //内容未变时把新的修改时间写回文件头，下次启动不必再读取整个语料
+    static boolean isStale(Path snapshot, Path corpus) throws IOException {
+        if (!Files.isRegularFile(snapshot)) {
+            return true;
+        }
+        ByteBuffer header;
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            header = readHeader(channel);
+        }
+        if (header.hasRemaining() || header.getInt(0) != MAGIC || header.getInt(4) != VERSION
+                || header.getLong(40) != Files.size(corpus)) {
+            return true;
+        }
+        long modified = modified(corpus);
+        if (header.getLong(64) == modified) {
+            return false;
+        }
+        if (header.getLong(24) != hashCorpus(corpus)) {
+            return true;
+        }
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putLong(0, modified), 64);
+        } catch (IOException e) {
+            //快照所在目录只读时下次启动仍需比较哈希
+        }
+        return false;
+    }
+
+    //正文各段起点：{单词字节块, CSR 数组, PageRank, 文件总长}
+    private static long[] bodyOffsets(int n, int e, int wordBytes, boolean hasRanks) {
+        long blob = HEADER_BYTES + 4L * (n + 1);
+        long csr = align(blob + wordBytes);
+        long csrEnd = csr + 4L * (n + 1 + 2L * e);
+        long ranks = align(csrEnd);
+        return new long[]{blob, csr, ranks, hasRanks ? ranks + 8L * n : csrEnd};
+    }
+
+    private static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+}
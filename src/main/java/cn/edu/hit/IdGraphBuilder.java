@@ -0,0 +1,137 @@
+package cn.edu.hit;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+//按单词编号建图：依次喂入编号，相邻编号之间计一次边；边计数放在以 (from << 32 | to) 为键的开放寻址表中，
+//不创建 Node、不装箱，最后一次性整理成 CsrGraph
+//与 WordDictionary 一起使用时编号即单词首次出现的顺序，与 DirectedGraph 冻结后的编号一致
+final class IdGraphBuilder implements IntConsumer {
+    private static final long EMPTY = -1L;
+
+    private final WordDictionary dictionary;
+    private long[] keys;
+    private int[] counts;
+    private int edges;
+    private int previous = -1;
+
+    //逐条访问边计数
+    interface EdgeVisitor {
+        void visit(int from, int to, int count);
+    }
+
+    IdGraphBuilder(WordDictionary dictionary) {
+        this(dictionary, 1 << 11);
+    }
+
+    //expectedEdges 为预计的不同边数，预先分配足够的表长，避免合并大量计数时反复扩容
+    IdGraphBuilder(WordDictionary dictionary, int expectedEdges) {
+        this.dictionary = dictionary;
+        keys = new long[Integer.highestOneBit(Math.max(1 << 11, Math.min(expectedEdges, 1 << 29)) * 2 - 1) << 1];
+        counts = new int[keys.length];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    //喂入下一个单词的编号
+    @Override
+    public void accept(int id) {
+        if (previous >= 0) {
+            addEdge(previous, id, 1);
+        }
+        previous = id;
+    }
+
+    //结束当前文本，下一个单词不与之前的单词相连
+    void breakSequence() {
+        previous = -1;
+    }
+
+    void addEdge(int from, int to, int count) {
+        long key = ((long) from << 32) | to;
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (keys[slot] == EMPTY) {
+            keys[slot] = key;
+            if (2 * ++edges > keys.length) {
+                counts[slot] = count;
+                rehash();
+                return;
+            }
+        }
+        counts[slot] += count;
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new long[oldKeys.length * 2];
+        counts = new int[keys.length];
+        Arrays.fill(keys, EMPTY);
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = mix(oldKeys[i]) & mask;
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    private static int mix(long key) {
+        key *= 0x9E3779B97F4A7C15L;
+        return (int) (key ^ (key >>> 32));
+    }
+
+    int edgeCount() {
+        return edges;
+    }
+
+    //按表内顺序（无序）访问每条边的编号对与计数
+    void forEachEdge(EdgeVisitor visitor) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                visitor.visit((int) (keys[i] >>> 32), (int) keys[i], counts[i]);
+            }
+        }
+    }
+
+    //整理为 CSR 图；没有任何边时返回空图（与逐对加边的 DirectedGraph 一致）
+    CsrGraph build() {
+        if (edges == 0) {
+            return new CsrGraph(new String[0], new int[1], new int[0], new int[0]);
+        }
+        String[] words = dictionary.words();
+        long[] sorted = new long[edges];
+        int m = 0;
+        for (long key : keys) {
+            if (key != EMPTY) {
+                sorted[m++] = key;
+            }
+        }
+        Arrays.sort(sorted);
+        int[] offsets = new int[words.length + 1];
+        int[] targets = new int[edges];
+        int[] weights = new int[edges];
+        int mask = keys.length - 1;
+        for (int i = 0; i < edges; i++) {
+            long key = sorted[i];
+            offsets[(int) (key >>> 32) + 1]++;
+            targets[i] = (int) key;
+            int slot = mix(key) & mask;
+            while (keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            weights[i] = counts[slot];
+        }
+        for (int u = 0; u < words.length; u++) {
+            offsets[u + 1] += offsets[u];
+        }
+        return new CsrGraph(words, offsets, targets, weights);
+    }
+}
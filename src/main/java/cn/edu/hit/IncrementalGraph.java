@@ -0,0 +1,162 @@
+package cn.edu.hit;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Stream;
+
+//增量更新的图：向已有的 DirectedGraph 追加文本，记录哪些节点和边发生了变化，
+//重新冻结时只让受影响的派生结果（路径树缓存、桥接词缓存）失效，PageRank 从上一次的结果热启动
+//节点编号按加入顺序分配，追加只会在末尾增加新编号，旧编号保持不变
+final class IncrementalGraph {
+
+    //一次追加带来的变化
+    static final class Delta {
+        /**
+         * 新出现的单词。
+         */
+        final Set<String> newNodes = new HashSet<>();
+        /**
+         * 出边权重发生变化（含新增出边）的单词。
+         */
+        final Set<String> changedSources = new HashSet<>();
+        /**
+         * 新增边的起点。
+         */
+        final Set<String> newEdgeSources = new HashSet<>();
+        /**
+         * 新增边的终点。
+         */
+        final Set<String> newEdgeTargets = new HashSet<>();
+        long edgesAdded;
+
+        boolean isEmpty() {
+            return edgesAdded == 0;
+        }
+
+        void addAll(Delta other) {
+            newNodes.addAll(other.newNodes);
+            changedSources.addAll(other.changedSources);
+            newEdgeSources.addAll(other.newEdgeSources);
+            newEdgeTargets.addAll(other.newEdgeTargets);
+            edgesAdded += other.edgesAdded;
+        }
+    }
+
+    private final TextGraphApp.DirectedGraph graph;
+    private CsrGraph current;
+    /**
+     * 上一次 PageRank 结果，按 current 的编号索引。
+     */
+    private double[] ranks;
+    private final Delta pending = new Delta();
+
+    IncrementalGraph(TextGraphApp.DirectedGraph graph) {
+        this.graph = graph;
+        this.current = graph.freeze();
+    }
+
+    TextGraphApp.DirectedGraph graph() {
+        return graph;
+    }
+
+    //当前冻结图（不含尚未 refresh 的追加）
+    CsrGraph current() {
+        return current;
+    }
+
+    //追加一段文本（与之前的文本不相连），返回本次的变化
+    Delta append(String text) {
+        Delta delta = new Delta();
+        String[] previous = new String[1];
+        StreamingTokenizer.tokenize(text, word -> {
+            if (previous[0] != null) {
+                addEdge(previous[0], word, delta);
+            }
+            previous[0] = word;
+        });
+        pending.addAll(delta);
+        return delta;
+    }
+
+    //逐句追加，每句独立
+    Delta appendSentences(Stream<String> sentences) {
+        Delta delta = new Delta();
+        sentences.forEach(sentence -> delta.addAll(append(sentence)));
+        return delta;
+    }
+
+    private void addEdge(String from, String to, Delta delta) {
+        TextGraphApp.Node fromNode = graph.getNode(from);
+        TextGraphApp.Node toNode = graph.getNode(to);
+        if (fromNode == null) {
+            delta.newNodes.add(from);
+        }
+        if (toNode == null) {
+            delta.newNodes.add(to);
+        }
+        if (fromNode == null || toNode == null || !fromNode.edges.containsKey(toNode)) {
+            delta.newEdgeSources.add(from);
+            delta.newEdgeTargets.add(to);
+        }
+        delta.changedSources.add(from);
+        delta.edgesAdded++;
+        graph.addEdge(from, to);
+    }
+
+    //重新冻结，并把旧图上未受影响的路径树与桥接词结果转移到新图
+    //只在旧图的引擎或索引已经创建过时才继承（否则没有可继承的内容），新图的可达性索引等到第一次查询才构建
+    CsrGraph refresh() {
+        if (pending.isEmpty()) {
+            return current;
+        }
+        CsrGraph old = current;
+        CsrGraph next = graph.freeze();
+        ShortestPathEngine oldPaths = old.shortestPathsIfPresent();
+        if (oldPaths != null) {
+            next.shortestPaths().inheritTrees(oldPaths, ids(next, pending.changedSources));
+        }
+        BridgeIndex oldBridges = old.bridgeIndexIfPresent();
+        if (oldBridges != null) {
+            next.bridgeIndex().inheritHubPairs(oldBridges,
+                    ids(next, pending.newEdgeSources), ids(next, pending.newEdgeTargets));
+        }
+        current = next;
+        pending.newNodes.clear();
+        pending.changedSources.clear();
+        pending.newEdgeSources.clear();
+        pending.newEdgeTargets.clear();
+        pending.edgesAdded = 0;
+        return next;
+    }
+
+    //PageRank：先 refresh，再以上一次的结果为初值迭代（新节点取 1/N，整体归一化）
+    PageRankEngine.Result pageRank(double d, double epsilon) {
+        CsrGraph g = refresh();
+        int n = g.nodeCount();
+        double[] initial = null;
+        if (ranks != null && n > 0) {
+            initial = Arrays.copyOf(ranks, n);
+            Arrays.fill(initial, ranks.length, n, 1.0 / n);
+            double sum = Arrays.stream(initial).sum();
+            for (int v = 0; v < n; v++) {
+                initial[v] /= sum;
+            }
+        }
+        PageRankEngine.Result result = new PageRankEngine(g)
+                .compute(d, epsilon, Integer.MAX_VALUE, PageRankEngine.Norm.LINF, false, initial);
+        ranks = result.ranks;
+        return result;
+    }
+
+    private static boolean[] ids(CsrGraph graph, Set<String> words) {
+        boolean[] marked = new boolean[graph.nodeCount()];
+        for (String word : words) {
+            int id = graph.id(word);
+            if (id >= 0) {
+                marked[id] = true;
+            }
+        }
+        return marked;
+    }
+}
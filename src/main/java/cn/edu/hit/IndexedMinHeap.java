@@ -0,0 +1,100 @@
+package cn.edu.hit;
+
+import java.util.Arrays;
+
+//带索引的二叉小顶堆：元素为 0..n-1 的整数编号，键为 int，支持真正的 decrease-key
+//pos 记录每个编号在堆数组中的位置，不在堆中时为 -1
+final class IndexedMinHeap {
+    private final int[] heap;
+    private final int[] pos;
+    private final int[] keys;
+    private int size;
+
+    IndexedMinHeap(int capacity) {
+        heap = new int[capacity];
+        pos = new int[capacity];
+        keys = new int[capacity];
+        Arrays.fill(pos, -1);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean contains(int item) {
+        return pos[item] >= 0;
+    }
+
+    int minKey() {
+        return keys[heap[0]];
+    }
+
+    //插入新元素，或在已存在且新键更小时降低它的键
+    void insertOrDecrease(int item, int key) {
+        if (pos[item] < 0) {
+            pos[item] = size;
+            heap[size++] = item;
+        } else if (key >= keys[item]) {
+            return;
+        }
+        keys[item] = key;
+        siftUp(pos[item]);
+    }
+
+    //弹出键最小的元素
+    int poll() {
+        int top = heap[0];
+        pos[top] = -1;
+        if (--size > 0) {
+            heap[0] = heap[size];
+            pos[heap[0]] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    //清空堆（只重置仍在堆中的元素，便于复用）
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            pos[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int i) {
+        int item = heap[i];
+        int key = keys[item];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (keys[heap[parent]] <= key) {
+                break;
+            }
+            move(heap[parent], i);
+            i = parent;
+        }
+        move(item, i);
+    }
+
+    private void siftDown(int i) {
+        int item = heap[i];
+        int key = keys[item];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && keys[heap[child + 1]] < keys[heap[child]]) {
+                child++;
+            }
+            if (key <= keys[heap[child]]) {
+                break;
+            }
+            move(heap[child], i);
+            i = child;
+        }
+        move(item, i);
+    }
+
+    private void move(int item, int i) {
+        heap[i] = item;
+        pos[item] = i;
+    }
+}
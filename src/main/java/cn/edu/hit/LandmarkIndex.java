@@ -0,0 +1,144 @@
+package cn.edu.hit;
+
+import java.util.Arrays;
+import java.util.Random;
+
+//ALT 地标索引：预先计算少量地标到所有节点、所有节点到地标的最短距离，
+//利用三角不等式给出 d(v, t) 的可采纳下界，供 A* 搜索使用
+final class LandmarkIndex {
+    /**
+     * 默认地标数。
+     */
+    static final int DEFAULT_COUNT = 8;
+
+    //地标选取策略
+    enum Strategy {
+        /**
+         * 随机选取。
+         */
+        RANDOM,
+        /**
+         * 出度 + 入度最大的节点。
+         */
+        HIGHEST_DEGREE,
+        /**
+         * 依次选取离已有地标最远的节点（已有地标都到不了的节点优先）。
+         */
+        FARTHEST
+    }
+
+    final int[] landmarks;
+    final Strategy strategy;
+    /**
+     * 构建耗时（毫秒）。
+     */
+    final long buildMillis;
+    /**
+     * fromLandmark[i][v] = d(L_i, v)
+     */
+    private final int[][] fromLandmark;
+    /**
+     * toLandmark[i][v] = d(v, L_i)
+     */
+    private final int[][] toLandmark;
+
+    private LandmarkIndex(int[] landmarks, Strategy strategy, int[][] fromLandmark, int[][] toLandmark, long buildMillis) {
+        this.landmarks = landmarks;
+        this.strategy = strategy;
+        this.fromLandmark = fromLandmark;
+        this.toLandmark = toLandmark;
+        this.buildMillis = buildMillis;
+    }
+
+    static LandmarkIndex build(CsrGraph graph, int count, Strategy strategy, long seed) {
+        long begin = System.nanoTime();
+        int n = graph.nodeCount();
+        count = Math.min(count, n);
+        ShortestPathEngine forward = new ShortestPathEngine(graph);
+        ShortestPathEngine backward = new ShortestPathEngine(graph.transpose());
+        int[] landmarks = new int[count];
+        int[][] from = new int[count][];
+        int[][] to = new int[count][];
+        Random random = new Random(seed);
+        CsrGraph reverse = graph.transpose();
+        long[] minDist = new long[n];
+        Arrays.fill(minDist, Long.MAX_VALUE);
+        boolean[] chosen = new boolean[n];
+        for (int i = 0; i < count; i++) {
+            int landmark;
+            switch (strategy) {
+                case HIGHEST_DEGREE:
+                    landmark = -1;
+                    for (int v = 0; v < n; v++) {
+                        if (!chosen[v] && (landmark < 0 || degree(graph, reverse, v) > degree(graph, reverse, landmark))) {
+                            landmark = v;
+                        }
+                    }
+                    break;
+                case FARTHEST:
+                    landmark = i == 0 ? random.nextInt(n) : -1;
+                    for (int v = 0; landmark < 0 && v < n; v++) {
+                        if (!chosen[v]) {
+                            landmark = v;
+                        }
+                    }
+                    if (i > 0) {
+                        for (int v = 0; v < n; v++) {
+                            if (!chosen[v] && minDist[v] > minDist[landmark]) {
+                                landmark = v;
+                            }
+                        }
+                    }
+                    break;
+                default:
+                    do {
+                        landmark = random.nextInt(n);
+                    } while (chosen[landmark]);
+            }
+            chosen[landmark] = true;
+            landmarks[i] = landmark;
+            from[i] = forward.singleSource(landmark).dist;
+            to[i] = backward.singleSource(landmark).dist;
+            for (int v = 0; v < n; v++) {
+                int d = from[i][v];
+                minDist[v] = Math.min(minDist[v], d == ShortestPathEngine.INFINITY ? Long.MAX_VALUE : d);
+            }
+        }
+        return new LandmarkIndex(landmarks, strategy, from, to, (System.nanoTime() - begin) / 1_000_000);
+    }
+
+    private static int degree(CsrGraph graph, CsrGraph reverse, int v) {
+        return graph.outDegree(v) + reverse.outDegree(v);
+    }
+
+    //d(v, t) 的下界；能确定 v 到不了 t 时返回 INFINITY
+    int lowerBound(int v, int t) {
+        int bound = 0;
+        for (int i = 0; i < landmarks.length; i++) {
+            int lv = fromLandmark[i][v];
+            int lt = fromLandmark[i][t];
+            if (lv != ShortestPathEngine.INFINITY) {
+                if (lt == ShortestPathEngine.INFINITY) {
+                    //地标能到 v 却到不了 t，说明 v 到不了 t
+                    return ShortestPathEngine.INFINITY;
+                }
+                bound = Math.max(bound, lt - lv);
+            }
+            int vl = toLandmark[i][v];
+            int tl = toLandmark[i][t];
+            if (tl != ShortestPathEngine.INFINITY) {
+                if (vl == ShortestPathEngine.INFINITY) {
+                    //t 能到地标而 v 不能，说明 v 到不了 t
+                    return ShortestPathEngine.INFINITY;
+                }
+                bound = Math.max(bound, vl - tl);
+            }
+        }
+        return bound;
+    }
+
+    @Override
+    public String toString() {
+        return landmarks.length + " landmarks (" + strategy + "), built in " + buildMillis + " ms";
+    }
+}
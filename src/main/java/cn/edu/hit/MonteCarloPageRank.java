@@ -0,0 +1,296 @@
+package cn.edu.hit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+//蒙特卡洛近似 PageRank：从起点集合出发做带重启的随机游走，每步以概率 1-d 结束，
+//节点被访问的次数占总访问次数的比例即为 PR 估计值（出度为 0 时跳回起点分布）
+//全局 PR 以所有节点为起点集合；个性化 PR 以给定单词为起点集合
+//Top-K 查询按批次增加游走数，当第 K 名与第 K+1 名的置信区间分离时提前结束
+//每步在出边中均匀选取（与 PageRankEngine 的均匀转移一致）；访问次数只记在被访问过的节点上，每批次的开销与游走步数成正比，与节点总数无关
+final class MonteCarloPageRank {
+    /**
+     * 每批次的游走条数。
+     */
+    static final int WALKS_PER_BATCH = 1 << 14;
+
+    /**
+     * 置信区间的 z 值（约 99.7%）。
+     */
+    static final double Z = 3.0;
+
+    /**
+     * 默认的游走条数上限。
+     */
+    static final long DEFAULT_MAX_WALKS = 1L << 22;
+
+    //近似计算的结果
+    static final class Result {
+        /**
+         * 按估计值降序排列的节点编号（最多 K 个）。
+         */
+        final int[] top;
+        /**
+         * 与 top 对应的估计值。
+         */
+        final double[] scores;
+        /**
+         * 实际使用的游走条数。
+         */
+        final long walks;
+        /**
+         * 第 K 名与第 K+1 名是否已在统计上分开。
+         */
+        final boolean separated;
+
+        Result(int[] top, double[] scores, long walks, boolean separated) {
+            this.top = top;
+            this.scores = scores;
+            this.walks = walks;
+            this.separated = separated;
+        }
+    }
+
+    private final CsrGraph graph;
+    private final double d;
+
+    //通常经 CsrGraph.monteCarloPageRank 取得图共享的实例
+    MonteCarloPageRank(CsrGraph graph, double d) {
+        this.graph = graph;
+        this.d = d;
+    }
+
+    double damping() {
+        return d;
+    }
+
+    //全局 PR 的 Top-K
+    Result topK(int k, long maxWalks, long seed) {
+        return topK(null, k, maxWalks, seed);
+    }
+
+    //以 seeds 为起点集合（null 表示所有节点）的个性化 PR 的 Top-K
+    Result topK(int[] seeds, int k, long maxWalks, long seed) {
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be positive: " + k);
+        }
+        int n = graph.nodeCount();
+        if (n == 0 || (seeds != null && seeds.length == 0)) {
+            return new Result(new int[0], new double[0], 0, true);
+        }
+        VisitCounts visits = new VisitCounts(1 << 10);
+        long done = 0;
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        SplittableRandom root = new SplittableRandom(seed);
+        int[] top = new int[0];
+        boolean separated = false;
+        while (done < maxWalks && !separated) {
+            //每批次拆成若干并行任务，各自统计后合并
+            int tasks = parallelism;
+            int perTask = (int) Math.min(WALKS_PER_BATCH / tasks + 1, (maxWalks - done + tasks - 1) / tasks);
+            SplittableRandom[] randoms = new SplittableRandom[tasks];
+            for (int t = 0; t < tasks; t++) {
+                randoms[t] = root.split();
+            }
+            VisitCounts[] partial = new VisitCounts[tasks];
+            IntStream.range(0, tasks).parallel().forEach(t -> partial[t] = run(seeds, perTask, randoms[t]));
+            for (VisitCounts counts : partial) {
+                visits.addAll(counts);
+            }
+            done += (long) perTask * tasks;
+            top = topNodes(visits, Math.min(k + 1, n));
+            double total = visits.total;
+            separated = top.length <= k || isSeparated(visits.get(top[k - 1]) / total, visits.get(top[k]) / total, done);
+        }
+        int[] result = Arrays.copyOf(top, Math.min(k, top.length));
+        double[] scores = new double[result.length];
+        for (int i = 0; i < result.length; i++) {
+            scores[i] = visits.get(result[i]) / (double) visits.total;
+        }
+        return new Result(result, scores, done, separated);
+    }
+
+    //固定游走条数下所有节点的估计值
+    double[] estimate(int[] seeds, long count, long seed) {
+        VisitCounts visits = run(seeds, count, new SplittableRandom(seed));
+        double[] pr = new double[graph.nodeCount()];
+        for (int slot = 0; slot < visits.nodes.length; slot++) {
+            if (visits.nodes[slot] >= 0) {
+                pr[visits.nodes[slot]] = visits.counts[slot] / (double) visits.total;
+            }
+        }
+        return pr;
+    }
+
+    //执行 count 条带重启的游走，返回被访问节点的访问次数
+    private VisitCounts run(int[] seeds, long count, SplittableRandom random) {
+        int[] offsets = graph.offsets;
+        VisitCounts visits = new VisitCounts(1 << 8);
+        for (long i = 0; i < count; i++) {
+            int current = start(seeds, random);
+            visits.add(current, 1);
+            while (random.nextDouble() < d) {
+                int degree = offsets[current + 1] - offsets[current];
+                current = degree == 0 ? start(seeds, random) : graph.targets[offsets[current] + random.nextInt(degree)];
+                visits.add(current, 1);
+            }
+        }
+        return visits;
+    }
+
+    private int start(int[] seeds, SplittableRandom random) {
+        return seeds == null ? random.nextInt(graph.nodeCount()) : seeds[random.nextInt(seeds.length)];
+    }
+
+    //访问次数最多的 m 个节点（只看被访问过的节点），降序；堆中存放计数表的槽位
+    private static int[] topNodes(VisitCounts visits, int m) {
+        //小顶堆保留当前最大的 m 个
+        long[] counts = visits.counts;
+        int[] heap = new int[m];
+        int size = 0;
+        for (int slot = 0; slot < visits.nodes.length; slot++) {
+            if (visits.nodes[slot] < 0) {
+                continue;
+            }
+            if (size < m) {
+                heap[size] = slot;
+                siftUp(heap, size++, counts);
+            } else if (counts[slot] > counts[heap[0]]) {
+                heap[0] = slot;
+                siftDown(heap, size, counts);
+            }
+        }
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = heap[i];
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(counts[b], counts[a]));
+        return Arrays.stream(order).mapToInt(slot -> visits.nodes[slot]).toArray();
+    }
+
+    private static void siftUp(int[] heap, int i, long[] visits) {
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (visits[heap[parent]] <= visits[heap[i]]) {
+                break;
+            }
+            int t = heap[parent];
+            heap[parent] = heap[i];
+            heap[i] = t;
+            i = parent;
+        }
+    }
+
+    private static void siftDown(int[] heap, int size, long[] visits) {
+        int i = 0;
+        while (2 * i + 1 < size) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && visits[heap[child + 1]] < visits[heap[child]]) {
+                child++;
+            }
+            if (visits[heap[i]] <= visits[heap[child]]) {
+                break;
+            }
+            int t = heap[child];
+            heap[child] = heap[i];
+            heap[i] = t;
+            i = child;
+        }
+    }
+
+    //第 K 名与第 K+1 名的置信区间是否分离
+    //同一条游走内的访问相互关联，保守地以游走条数作为样本量：标准误取 sqrt(p(1-p) / walks)
+    private static boolean isSeparated(double p1, double p2, long walks) {
+        double margin1 = Z * Math.sqrt(p1 * (1 - p1) / walks);
+        double margin2 = Z * Math.sqrt(p2 * (1 - p2) / walks);
+        return p1 - margin1 > p2 + margin2;
+    }
+
+    //稀疏的访问计数：以节点编号为键的开放寻址表（-1 表示空槽），只占用与被访问节点数成正比的空间
+    private static final class VisitCounts {
+        int[] nodes;
+        long[] counts;
+        int size;
+        long total;
+
+        VisitCounts(int capacity) {
+            nodes = new int[capacity];
+            counts = new long[capacity];
+            Arrays.fill(nodes, -1);
+        }
+
+        void add(int node, long count) {
+            int mask = nodes.length - 1;
+            int slot = slot(node, mask);
+            while (nodes[slot] >= 0 && nodes[slot] != node) {
+                slot = (slot + 1) & mask;
+            }
+            if (nodes[slot] < 0) {
+                nodes[slot] = node;
+                size++;
+            }
+            counts[slot] += count;
+            total += count;
+            if (2 * size > nodes.length) {
+                grow();
+            }
+        }
+
+        long get(int node) {
+            int mask = nodes.length - 1;
+            for (int slot = slot(node, mask); nodes[slot] >= 0; slot = (slot + 1) & mask) {
+                if (nodes[slot] == node) {
+                    return counts[slot];
+                }
+            }
+            return 0;
+        }
+
+        void addAll(VisitCounts other) {
+            for (int slot = 0; slot < other.nodes.length; slot++) {
+                if (other.nodes[slot] >= 0) {
+                    add(other.nodes[slot], other.counts[slot]);
+                }
+            }
+        }
+
+        private void grow() {
+            int[] oldNodes = nodes;
+            long[] oldCounts = counts;
+            nodes = new int[oldNodes.length * 2];
+            counts = new long[oldNodes.length * 2];
+            Arrays.fill(nodes, -1);
+            int mask = nodes.length - 1;
+            for (int i = 0; i < oldNodes.length; i++) {
+                if (oldNodes[i] >= 0) {
+                    int slot = slot(oldNodes[i], mask);
+                    while (nodes[slot] >= 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    nodes[slot] = oldNodes[i];
+                    counts[slot] = oldCounts[i];
+                }
+            }
+        }
+
+        private static int slot(int node, int mask) {
+            int h = node * 0x9E3779B9;
+            return (h ^ (h >>> 16)) & mask;
+        }
+    }
+
+    //单词列表转为起点编号，不在图中的单词被忽略
+    static int[] seedIds(CsrGraph graph, List<String> words) {
+        List<Integer> ids = new ArrayList<>();
+        for (String word : words) {
+            int id = graph.id(word);
+            if (id >= 0) {
+                ids.add(id);
+            }
+        }
+        return ids.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
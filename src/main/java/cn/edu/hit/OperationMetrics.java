@@ -0,0 +1,136 @@
+package cn.edu.hit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+//单类图操作的统计：计数器与对数分桶的延迟直方图都用 LongAdder，记录时无锁
+//分位数取所在桶的上界，误差在 2 倍以内
+final class OperationMetrics implements OperationMetricsMBean {
+    /**
+     * 直方图桶数，最后一桶收纳约 9 分钟以上的调用。
+     */
+    static final int BUCKETS = 31;
+
+    private final String workUnit;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAdder totalWork = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder[] histogram = new LongAdder[BUCKETS];
+
+    OperationMetrics(String workUnit) {
+        this.workUnit = workUnit;
+        for (int i = 0; i < BUCKETS; i++) {
+            histogram[i] = new LongAdder();
+        }
+    }
+
+    void record(long nanos, long work) {
+        count.increment();
+        totalNanos.add(nanos);
+        totalWork.add(work);
+        maxNanos.accumulate(nanos);
+        histogram[bucket(nanos)].increment();
+    }
+
+    static int bucket(long nanos) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+        return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+
+    @Override
+    public double getMeanMillis() {
+        long n = count.sum();
+        return n == 0 ? 0 : totalNanos.sum() / 1e6 / n;
+    }
+
+    @Override
+    public double getMaxMillis() {
+        return maxNanos.get() / 1e6;
+    }
+
+    @Override
+    public double getP50Millis() {
+        return percentileMillis(0.50);
+    }
+
+    @Override
+    public double getP90Millis() {
+        return percentileMillis(0.90);
+    }
+
+    @Override
+    public double getP99Millis() {
+        return percentileMillis(0.99);
+    }
+
+    //第 q 分位所在桶的上界（毫秒）
+    double percentileMillis(double q) {
+        long[] counts = getLatencyHistogram();
+        long total = 0;
+        for (long c : counts) {
+            total += c;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(q * total);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return (1L << i) / 1e3;
+            }
+        }
+        return getMaxMillis();
+    }
+
+    @Override
+    public long[] getLatencyHistogram() {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = histogram[i].sum();
+        }
+        return counts;
+    }
+
+    @Override
+    public String getWorkUnit() {
+        return workUnit;
+    }
+
+    @Override
+    public long getTotalWork() {
+        return totalWork.sum();
+    }
+
+    @Override
+    public double getMeanWork() {
+        long n = count.sum();
+        return n == 0 ? 0 : totalWork.sum() / (double) n;
+    }
+
+    @Override
+    public double getWorkPerSecond() {
+        long nanos = totalNanos.sum();
+        return nanos == 0 ? 0 : totalWork.sum() * 1e9 / nanos;
+    }
+
+    //清零（与并发记录交错时各计数器可能略有出入）
+    @Override
+    public void reset() {
+        count.reset();
+        totalNanos.reset();
+        totalWork.reset();
+        maxNanos.reset();
+        for (LongAdder bucket : histogram) {
+            bucket.reset();
+        }
+    }
+}
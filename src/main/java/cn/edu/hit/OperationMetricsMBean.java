@@ -0,0 +1,35 @@
+package cn.edu.hit;
+
+//单类图操作的 JMX 视图：调用次数、延迟分布与工作量
+//工作量的单位随操作而定（见 WorkUnit）：建图为单词数，最短路径为出堆节点数，PageRank 为迭代轮数
+public interface OperationMetricsMBean {
+
+    long getCount();
+
+    double getMeanMillis();
+
+    double getMaxMillis();
+
+    double getP50Millis();
+
+    double getP90Millis();
+
+    double getP99Millis();
+
+    /**
+     * 延迟直方图：第 0 格为不足 1 微秒，第 i 格为 [2^(i-1), 2^i) 微秒。
+     */
+    long[] getLatencyHistogram();
+
+    String getWorkUnit();
+
+    long getTotalWork();
+
+    //每次调用的平均工作量
+    double getMeanWork();
+
+    //按累计耗时计算的吞吐量（工作量/秒）
+    double getWorkPerSecond();
+
+    void reset();
+}
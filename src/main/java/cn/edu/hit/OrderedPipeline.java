@@ -0,0 +1,67 @@
+package cn.edu.hit;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+//有序并行流水线：任务在线程池中并行执行，结果严格按提交顺序写出
+//在途任务数有上限，窗口满时提交方先等待并写出最早的结果（背压），内存占用与窗口大小成正比
+final class OrderedPipeline implements AutoCloseable {
+    private final ExecutorService executor;
+    private final Writer out;
+    private final int window;
+    private final ArrayDeque<Future<String>> pending = new ArrayDeque<>();
+
+    OrderedPipeline(ExecutorService executor, Writer out, int window) {
+        this.executor = executor;
+        this.out = out;
+        this.window = window;
+    }
+
+    //提交一个任务，其返回的文本将按提交顺序写出
+    void submit(Callable<String> task) throws IOException {
+        while (pending.size() >= window) {
+            writeNext();
+        }
+        pending.add(executor.submit(task));
+    }
+
+    //等待所有在途任务并写出
+    void finish() throws IOException {
+        while (!pending.isEmpty()) {
+            writeNext();
+        }
+        out.flush();
+    }
+
+    private void writeNext() throws IOException {
+        Future<String> next = pending.poll();
+        try {
+            out.write(next.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for result", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Task failed: " + e.getCause(), e.getCause());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            for (Future<String> future : pending) {
+                future.cancel(true);
+            }
+            pending.clear();
+        }
+    }
+}
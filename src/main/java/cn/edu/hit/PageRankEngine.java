@@ -0,0 +1,148 @@
+package cn.edu.hit;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+//稀疏并行 PageRank：预先建立反向邻接，每轮按入边“拉取”上一轮的 PR 值，迭代在 double[] 上进行
+//节点按块切分到多个核上计算，每个节点只由一个线程写入，结果与线程数无关
+final class PageRankEngine {
+    /**
+     * 每个并行任务处理的节点数。
+     */
+    static final int BLOCK = 1 << 12;
+
+    /**
+     * 节点数少于该值时不开并行。
+     */
+    static final int PARALLEL_THRESHOLD = 1 << 15;
+
+    //收敛判据：两轮 PR 向量差的 L1 范数或 L∞ 范数
+    enum Norm {
+        L1, LINF
+    }
+
+    //一次计算的结果
+    static final class Result {
+        /**
+         * 按节点编号索引的 PR 值。
+         */
+        final double[] ranks;
+        /**
+         * 实际迭代轮数。
+         */
+        final int iterations;
+        /**
+         * 最后一轮的变化量（按所选范数）。
+         */
+        final double residual;
+        final boolean converged;
+
+        Result(double[] ranks, int iterations, double residual, boolean converged) {
+            this.ranks = ranks;
+            this.iterations = iterations;
+            this.residual = residual;
+            this.converged = converged;
+        }
+    }
+
+    private final CsrGraph graph;
+    /**
+     * 反向邻接：reverse 中 u 的出边即原图中指向 u 的边。
+     */
+    private final CsrGraph reverse;
+    /**
+     * 每个节点出边权重之和（加权转移时使用）。
+     */
+    private final long[] outWeight;
+
+    PageRankEngine(CsrGraph graph) {
+        this.graph = graph;
+        this.reverse = graph.transpose();
+        this.outWeight = new long[graph.nodeCount()];
+        for (int u = 0; u < graph.nodeCount(); u++) {
+            for (int e = graph.offsets[u]; e < graph.offsets[u + 1]; e++) {
+                outWeight[u] += graph.weights[e];
+            }
+        }
+    }
+
+    //与 calcPageRank 原有语义一致：均匀转移、L∞ 收敛、不限迭代次数
+    Result compute(double d, double epsilon) {
+        return compute(d, epsilon, Integer.MAX_VALUE, Norm.LINF, false, null);
+    }
+
+    //d 为阻尼系数；weighted 为 true 时按边出现次数分配转移概率；initial 为初始向量（null 表示均匀分布）
+    Result compute(double d, double epsilon, int maxIterations, Norm norm, boolean weighted, double[] initial) {
+        int n = graph.nodeCount();
+        double[] pr = initial == null ? uniform(n) : initial.clone();
+        if (n == 0) {
+            return new Result(pr, 0, 0, true);
+        }
+        double[] contrib = new double[n];
+        double[] next = new double[n];
+        int blocks = (n + BLOCK - 1) / BLOCK;
+        double[] blockDangling = new double[blocks];
+        double[] blockDiff = new double[blocks];
+        double base = (1 - d) / n;
+
+        int iterations = 0;
+        double residual = Double.POSITIVE_INFINITY;
+        while (iterations < maxIterations && !(residual < epsilon)) {
+            final double[] current = pr;
+            //第一步：每个节点向外分配的份额，同时汇总出度为 0 的节点的 PR
+            blocks(n, blocks).forEach(b -> {
+                double dangling = 0;
+                for (int v = b * BLOCK, end = Math.min(n, v + BLOCK); v < end; v++) {
+                    if (graph.outDegree(v) == 0) {
+                        dangling += current[v];
+                        contrib[v] = 0;
+                    } else {
+                        contrib[v] = current[v] / (weighted ? outWeight[v] : graph.outDegree(v));
+                    }
+                }
+                blockDangling[b] = dangling;
+            });
+            double dangling = 0;
+            for (double value : blockDangling) {
+                dangling += value;
+            }
+            final double shared = base + d * dangling / n;
+
+            //第二步：每个节点沿入边拉取份额
+            blocks(n, blocks).forEach(b -> {
+                double diff = 0;
+                for (int u = b * BLOCK, end = Math.min(n, u + BLOCK); u < end; u++) {
+                    double sum = 0;
+                    for (int e = reverse.offsets[u]; e < reverse.offsets[u + 1]; e++) {
+                        double share = contrib[reverse.targets[e]];
+                        sum += weighted ? share * reverse.weights[e] : share;
+                    }
+                    double value = shared + d * sum;
+                    double delta = Math.abs(value - current[u]);
+                    diff = norm == Norm.L1 ? diff + delta : Math.max(diff, delta);
+                    next[u] = value;
+                }
+                blockDiff[b] = diff;
+            });
+            residual = 0;
+            for (double value : blockDiff) {
+                residual = norm == Norm.L1 ? residual + value : Math.max(residual, value);
+            }
+
+            System.arraycopy(next, 0, pr, 0, n);
+            iterations++;
+        }
+        return new Result(pr, iterations, residual, residual < epsilon);
+    }
+
+    private static double[] uniform(int n) {
+        double[] pr = new double[n];
+        Arrays.fill(pr, 1.0 / n);
+        return pr;
+    }
+
+    private static IntStream blocks(int n, int blocks) {
+        IntStream stream = IntStream.range(0, blocks);
+        return n < PARALLEL_THRESHOLD ? stream : stream.parallel();
+    }
+}
@@ -0,0 +1,259 @@
+package cn.edu.hit;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+//并行分块建图：按单词边界把文件切成若干字节区间，每个工作线程依次领取区间，在自己独占的 WordDictionary 与
+//基本类型边计数表（IdGraphBuilder）中统计，重复出现的单词不创建 String，计数不装箱，区间之间不复制计数表
+//每个区间只记下本区间首次出现的单词与首尾单词；全部区间完成后按区间顺序为单词分配全局编号（补上跨区间边界的那一对单词），
+//再按编号映射把各线程的计数表并入一张表，结果与顺序构建完全相同（包括节点编号顺序）
+final class ParallelGraphBuilder {
+    /**
+     * 默认每个区间的字节数。
+     */
+    static final int CHUNK_SIZE = 16 << 20;
+
+    private ParallelGraphBuilder() {
+    }
+
+    //一个工作线程独占的计数表，单词使用线程内编号；非线程安全，统计结果以 Chunk 交给合并方
+    static final class WorkerTable implements IntConsumer {
+        final WordDictionary dictionary = new WordDictionary();
+        final IdGraphBuilder counts = new IdGraphBuilder(dictionary);
+
+        /**
+         * 线程内编号 -> 最近一次出现所在区间的序号（从 1 开始），用于找出区间内首次出现的单词。
+         */
+        private int[] seenIn = new int[1024];
+        private int chunk;
+
+        /**
+         * 当前区间内首次出现的单词（线程内编号），按出现顺序排列。
+         */
+        private int[] order = new int[1024];
+        private int distinct;
+        private int last;
+
+        @Override
+        public void accept(int id) {
+            counts.accept(id);
+            if (id >= seenIn.length) {
+                seenIn = Arrays.copyOf(seenIn, Math.max(id + 1, seenIn.length * 2));
+            }
+            if (seenIn[id] != chunk) {
+                seenIn[id] = chunk;
+                if (distinct == order.length) {
+                    order = Arrays.copyOf(order, distinct * 2);
+                }
+                order[distinct++] = id;
+            }
+            last = id;
+        }
+
+        //统计一个区间，区间与之前统计过的区间不相连
+        Chunk count(ByteBuffer buf) {
+            StreamingTokenizer tokenizer = begin();
+            tokenizer.feed(buf);
+            return end(tokenizer);
+        }
+
+        Chunk count(byte[] bytes, int offset, int length) {
+            StreamingTokenizer tokenizer = begin();
+            tokenizer.feed(bytes, offset, length);
+            return end(tokenizer);
+        }
+
+        private StreamingTokenizer begin() {
+            chunk++;
+            distinct = 0;
+            last = -1;
+            counts.breakSequence();
+            return new StreamingTokenizer(dictionary, this);
+        }
+
+        private Chunk end(StreamingTokenizer tokenizer) {
+            tokenizer.finish();
+            int[] ids = Arrays.copyOf(order, distinct);
+            String[] words = new String[distinct];
+            for (int i = 0; i < distinct; i++) {
+                words[i] = dictionary.word(ids[i]);
+            }
+            return new Chunk(this, ids, words, last);
+        }
+    }
+
+    //一个区间的统计结果：区间内首次出现的单词（线程内编号与单词本身，第一个即区间首词）及区间尾词，边计数留在所属线程的计数表中
+    //单词直接引用线程字典中的 String，合并方不必读取仍在被写入的字典
+    static final class Chunk {
+        final WorkerTable table;
+        final int[] ids;
+        final String[] words;
+        final int last;
+
+        Chunk(WorkerTable table, int[] ids, String[] words, int last) {
+            this.table = table;
+            this.ids = ids;
+            this.words = words;
+            this.last = last;
+        }
+
+        boolean isEmpty() {
+            return ids.length == 0;
+        }
+    }
+
+    //按区间顺序合并：依次为各区间新出现的单词分配全局编号并补上相邻区间之间的边，
+    //最后按编号映射把各线程的计数表并入一张表；非线程安全，由一个线程按顺序调用
+    static final class Merger {
+        private final WordDictionary dictionary = new WordDictionary();
+
+        /**
+         * 线程计数表 -> (线程内编号 -> 全局编号)。
+         */
+        private final Map<WorkerTable, int[]> remaps = new IdentityHashMap<>();
+
+        /**
+         * 相邻区间之间的边，以 (from << 32 | to) 表示。
+         */
+        private long[] joins = new long[16];
+        private int joinCount;
+        private int tail = -1;
+
+        //接在上一个区间之后；空区间不打断前后两个区间之间的边
+        void append(Chunk chunk) {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            int[] remap = remaps.get(chunk.table);
+            int maxId = 0;
+            for (int id : chunk.ids) {
+                maxId = Math.max(maxId, id);
+            }
+            if (remap == null || remap.length <= maxId) {
+                remap = remap == null ? new int[maxId + 1] : Arrays.copyOf(remap, Math.max(maxId + 1, remap.length * 2));
+                remaps.put(chunk.table, remap);
+            }
+            for (int i = 0; i < chunk.ids.length; i++) {
+                remap[chunk.ids[i]] = dictionary.intern(chunk.words[i]);
+            }
+            if (tail >= 0) {
+                if (joinCount == joins.length) {
+                    joins = Arrays.copyOf(joins, joinCount * 2);
+                }
+                joins[joinCount++] = ((long) tail << 32) | remap[chunk.ids[0]];
+            }
+            tail = remap[chunk.last];
+        }
+
+        //下一个区间与之前的区间不相连（用于互不相连的文件）
+        void breakSequence() {
+            tail = -1;
+        }
+
+        //所有区间都已接入、各线程不再写入计数表后调用；没有任何边时（不足两个单词）返回空图
+        CsrGraph build() {
+            int expected = 0;
+            for (WorkerTable table : remaps.keySet()) {
+                expected = Math.max(expected, table.counts.edgeCount());
+            }
+            IdGraphBuilder total = new IdGraphBuilder(dictionary, expected);
+            for (Map.Entry<WorkerTable, int[]> entry : remaps.entrySet()) {
+                int[] remap = entry.getValue();
+                entry.getKey().counts.forEachEdge((from, to, count) -> total.addEdge(remap[from], remap[to], count));
+            }
+            for (int i = 0; i < joinCount; i++) {
+                total.addEdge((int) (joins[i] >>> 32), (int) joins[i], 1);
+            }
+            return total.build();
+        }
+    }
+
+    static CsrGraph build(Path path) throws IOException {
+        return build(path, CHUNK_SIZE, ForkJoinPool.commonPool());
+    }
+
+    static CsrGraph build(Path path, int chunkSize, ForkJoinPool pool) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long[] bounds = splitAtWordBoundaries(channel, chunkSize);
+            Chunk[] chunks = new Chunk[bounds.length - 1];
+            AtomicInteger next = new AtomicInteger();
+            //每个工作线程一张计数表，依次领取下一个区间
+            List<Callable<Void>> workers = new ArrayList<>();
+            for (int w = Math.min(pool.getParallelism(), chunks.length); w > 0; w--) {
+                workers.add(() -> {
+                    WorkerTable table = new WorkerTable();
+                    for (int i = next.getAndIncrement(); i < chunks.length; i = next.getAndIncrement()) {
+                        chunks[i] = table.count(channel.map(FileChannel.MapMode.READ_ONLY, bounds[i], bounds[i + 1] - bounds[i]));
+                    }
+                    return null;
+                });
+            }
+            for (Future<Void> worker : pool.invokeAll(workers)) {
+                worker.get();
+            }
+            Merger merger = new Merger();
+            for (Chunk chunk : chunks) {
+                merger.append(chunk);
+            }
+            return merger.build();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Graph build interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Failed to build graph: " + e.getCause(), e.getCause());
+        }
+    }
+
+    //按固定步长切分，再把每个切点向后移动到不在单词内部的位置
+    static long[] splitAtWordBoundaries(FileChannel channel, int chunkSize) throws IOException {
+        long size = channel.size();
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        ByteBuffer buf = ByteBuffer.allocate(4096);
+        long pos = chunkSize;
+        while (pos < size) {
+            pos = nextBoundary(channel, buf, pos, size);
+            if (pos >= size) {
+                break;
+            }
+            bounds.add(pos);
+            pos += chunkSize;
+        }
+        bounds.add(size);
+        return bounds.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    //从 pos 起找到第一个非字母字节的位置，保证 pos 前后不会是同一个单词
+    private static long nextBoundary(FileChannel channel, ByteBuffer buf, long pos, long size) throws IOException {
+        while (pos < size) {
+            buf.clear();
+            channel.read(buf, pos);
+            buf.flip();
+            while (buf.hasRemaining()) {
+                if (!StreamingTokenizer.isLetter(buf.get())) {
+                    return pos;
+                }
+                pos++;
+            }
+        }
+        return size;
+    }
+}
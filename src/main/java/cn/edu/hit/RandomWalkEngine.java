@@ -0,0 +1,215 @@
+package cn.edu.hit;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+//随机游走引擎：每个节点的出边建一张别名表（Vose alias），按边出现次数加权采样为 O(1)
+//已走过的边用 CSR 边下标记录在小型开放寻址集合中；随机数使用可拆分的非加密 SplittableRandom
+final class RandomWalkEngine {
+    /**
+     * 批量模式下每个任务生成的游走条数。
+     */
+    static final int WALKS_PER_TASK = 4096;
+
+    private final CsrGraph graph;
+    /**
+     * 别名表：第 e 个槽位保留自身的概率。
+     */
+    private final double[] aliasProb;
+    /**
+     * 别名表：第 e 个槽位未保留时改选的边下标。
+     */
+    private final int[] alias;
+
+    RandomWalkEngine(CsrGraph graph) {
+        this.graph = graph;
+        this.aliasProb = new double[graph.edgeCount()];
+        this.alias = new int[graph.edgeCount()];
+        int maxDegree = 0;
+        for (int u = 0; u < graph.nodeCount(); u++) {
+            maxDegree = Math.max(maxDegree, graph.outDegree(u));
+        }
+        int[] small = new int[maxDegree];
+        int[] large = new int[maxDegree];
+        for (int u = 0; u < graph.nodeCount(); u++) {
+            buildAlias(graph.offsets[u], graph.offsets[u + 1], small, large);
+        }
+    }
+
+    //为 [begin, end) 这一行出边建立别名表
+    private void buildAlias(int begin, int end, int[] small, int[] large) {
+        int k = end - begin;
+        long total = 0;
+        for (int e = begin; e < end; e++) {
+            total += graph.weights[e];
+        }
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int e = begin; e < end; e++) {
+            aliasProb[e] = (double) graph.weights[e] * k / total;
+            alias[e] = e;
+            if (aliasProb[e] < 1.0) {
+                small[smallCount++] = e;
+            } else {
+                large[largeCount++] = e;
+            }
+        }
+        while (smallCount > 0 && largeCount > 0) {
+            int s = small[--smallCount];
+            int l = large[largeCount - 1];
+            alias[s] = l;
+            aliasProb[l] -= 1.0 - aliasProb[s];
+            if (aliasProb[l] < 1.0) {
+                largeCount--;
+                small[smallCount++] = l;
+            }
+        }
+        //浮点误差留下的槽位概率视为 1
+        while (largeCount > 0) {
+            aliasProb[large[--largeCount]] = 1.0;
+        }
+        while (smallCount > 0) {
+            aliasProb[small[--smallCount]] = 1.0;
+        }
+    }
+
+    CsrGraph graph() {
+        return graph;
+    }
+
+    //从 node 出发选一条出边（weighted 为 true 时按出现次数加权），返回边下标；没有出边时返回 -1
+    int nextEdge(int node, boolean weighted, SplittableRandom random) {
+        int begin = graph.offsets[node];
+        int degree = graph.offsets[node + 1] - begin;
+        if (degree == 0) {
+            return -1;
+        }
+        int slot = begin + random.nextInt(degree);
+        if (!weighted || random.nextDouble() < aliasProb[slot]) {
+            return slot;
+        }
+        return alias[slot];
+    }
+
+    //单线程使用的游走器：复用节点缓冲区与已走边集合
+    final class Walker {
+        int[] nodes = new int[64];
+        int length;
+        private int[] seen = new int[64];
+        private int seenCount;
+
+        Walker() {
+            Arrays.fill(seen, -1);
+        }
+
+        //从 start 出发游走，直到没有出边、遇到走过的边或达到 maxLength 个节点
+        void walk(int start, boolean weighted, int maxLength, SplittableRandom random) {
+            clearSeen();
+            length = 0;
+            int current = start;
+            append(current);
+            while (length < maxLength) {
+                int edge = nextEdge(current, weighted, random);
+                if (edge < 0 || !markSeen(edge)) {
+                    break;
+                }
+                current = graph.targets[edge];
+                append(current);
+            }
+        }
+
+        private void append(int node) {
+            if (length == nodes.length) {
+                nodes = Arrays.copyOf(nodes, length * 2);
+            }
+            nodes[length++] = node;
+        }
+
+        //开放寻址集合（-1 为空槽），装载率超过一半时扩容；已存在时返回 false
+        private boolean markSeen(int edge) {
+            if (2 * (seenCount + 1) > seen.length) {
+                int[] old = seen;
+                seen = new int[old.length * 2];
+                Arrays.fill(seen, -1);
+                for (int e : old) {
+                    if (e >= 0) {
+                        insert(e);
+                    }
+                }
+            }
+            if (!insert(edge)) {
+                return false;
+            }
+            seenCount++;
+            return true;
+        }
+
+        private boolean insert(int edge) {
+            int mask = seen.length - 1;
+            int i = (edge * 0x9E3779B9) >>> 1 & mask;
+            while (seen[i] >= 0) {
+                if (seen[i] == edge) {
+                    return false;
+                }
+                i = (i + 1) & mask;
+            }
+            seen[i] = edge;
+            return true;
+        }
+
+        private void clearSeen() {
+            if (seenCount > 0) {
+                Arrays.fill(seen, -1);
+                seenCount = 0;
+            }
+        }
+
+        //当前游走写成一行单词
+        void appendTo(StringBuilder out) {
+            for (int i = 0; i < length; i++) {
+                if (i > 0) {
+                    out.append(' ');
+                }
+                out.append(graph.words[nodes[i]]);
+            }
+            out.append('\n');
+        }
+    }
+
+    //批量生成 count 条游走（起点均匀随机），多线程并行，按任务提交顺序写入 output，每行一条
+    //同一 seed 下输出与线程数无关
+    void generate(long count, Path output, boolean weighted, int maxLength, long seed, int threads) throws IOException {
+        if (graph.nodeCount() == 0) {
+            Files.write(output, new byte[0]);
+            return;
+        }
+        SplittableRandom root = new SplittableRandom(seed);
+        ThreadLocal<Walker> walkers = ThreadLocal.withInitial(Walker::new);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8);
+             OrderedPipeline pipeline = new OrderedPipeline(executor, writer, threads * 4)) {
+            for (long done = 0; done < count; done += WALKS_PER_TASK) {
+                int walks = (int) Math.min(WALKS_PER_TASK, count - done);
+                SplittableRandom random = root.split();
+                pipeline.submit(() -> {
+                    Walker walker = walkers.get();
+                    StringBuilder out = new StringBuilder(walks * 32);
+                    for (int i = 0; i < walks; i++) {
+                        walker.walk(random.nextInt(graph.nodeCount()), weighted, maxLength, random);
+                        walker.appendTo(out);
+                    }
+                    return out.toString();
+                });
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
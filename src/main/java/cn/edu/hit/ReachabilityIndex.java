@@ -0,0 +1,187 @@
+package cn.edu.hit;
+
+import java.util.Arrays;
+
+//可达性索引：迭代式 Tarjan 求强连通分量，并在缩点后的 DAG 上给出 O(1) 的“不可达”判定
+//Tarjan 按逆拓扑序完成分量，因此边 u->v 总有 comp[u] >= comp[v]；另记录每个分量到汇点的最长层数，
+//u 能到达 v（不同分量）必须满足 comp[u] > comp[v] 且 level[u] > level[v]
+//分量数不超过 closureLimit 时再预先计算传递闭包位图，此时判定是精确的
+final class ReachabilityIndex {
+    /**
+     * 默认计算传递闭包的分量数上限（闭包按下三角存储，约占 分量数^2 / 16 字节）。
+     */
+    static final int CLOSURE_LIMIT = 1 << 12;
+
+    /**
+     * 节点 -> 所在分量编号（按 Tarjan 完成顺序，汇点分量编号最小）。
+     */
+    private final int[] component;
+
+    /**
+     * 每个分量的节点数。
+     */
+    private final int[] size;
+
+    /**
+     * 分量在缩点 DAG 中到汇点的最长路径边数，汇点为 0。
+     */
+    private final int[] level;
+
+    /**
+     * closure[c] 中第 d 位表示分量 c 能到达分量 d（d <= c，只存前 c+1 位）；分量过多时为 null。
+     */
+    private final long[][] closure;
+
+    ReachabilityIndex(CsrGraph graph) {
+        this(graph, CLOSURE_LIMIT);
+    }
+
+    ReachabilityIndex(CsrGraph graph, int closureLimit) {
+        int n = graph.nodeCount();
+        component = new int[n];
+        //members 按分量编号顺序排列各分量的节点，start[c] 为分量 c 的起点
+        int[] members = new int[n];
+        int[] start = new int[n + 1];
+        int count = tarjan(graph, component, members, start);
+        start[count] = n;
+
+        size = new int[count];
+        level = new int[count];
+        //后继分量编号都更小，按编号递增即可保证后继已经算完
+        for (int c = 0; c < count; c++) {
+            size[c] = start[c + 1] - start[c];
+            for (int i = start[c]; i < start[c + 1]; i++) {
+                int u = members[i];
+                for (int e = graph.offsets[u]; e < graph.offsets[u + 1]; e++) {
+                    int d = component[graph.targets[e]];
+                    if (d != c) {
+                        level[c] = Math.max(level[c], level[d] + 1);
+                    }
+                }
+            }
+        }
+
+        if (count > closureLimit) {
+            closure = null;
+            return;
+        }
+        closure = new long[count][];
+        //mark[d] == c 表示分量 d 已并入 c 的闭包，避免多条平行边重复合并
+        int[] mark = new int[count];
+        Arrays.fill(mark, -1);
+        for (int c = 0; c < count; c++) {
+            long[] bits = new long[(c >>> 6) + 1];
+            bits[c >>> 6] |= 1L << c;
+            for (int i = start[c]; i < start[c + 1]; i++) {
+                int u = members[i];
+                for (int e = graph.offsets[u]; e < graph.offsets[u + 1]; e++) {
+                    int d = component[graph.targets[e]];
+                    if (d != c && mark[d] != c) {
+                        mark[d] = c;
+                        long[] other = closure[d];
+                        for (int w = 0; w < other.length; w++) {
+                            bits[w] |= other[w];
+                        }
+                    }
+                }
+            }
+            closure[c] = bits;
+        }
+    }
+
+    //迭代式 Tarjan：用显式栈代替递归，每个节点记录下一条待检查的出边；返回分量数
+    private static int tarjan(CsrGraph graph, int[] component, int[] members, int[] start) {
+        int n = graph.nodeCount();
+        int[] index = new int[n];
+        int[] low = new int[n];
+        int[] cursor = new int[n];
+        int[] calls = new int[n];
+        int[] stack = new int[n];
+        boolean[] onStack = new boolean[n];
+        Arrays.fill(index, -1);
+        int counter = 0;
+        int sp = 0;
+        int count = 0;
+        int placed = 0;
+        for (int root = 0; root < n; root++) {
+            if (index[root] >= 0) {
+                continue;
+            }
+            int depth = 0;
+            calls[0] = root;
+            index[root] = low[root] = counter++;
+            cursor[root] = graph.offsets[root];
+            stack[sp++] = root;
+            onStack[root] = true;
+            while (depth >= 0) {
+                int u = calls[depth];
+                if (cursor[u] < graph.offsets[u + 1]) {
+                    int v = graph.targets[cursor[u]++];
+                    if (index[v] < 0) {
+                        index[v] = low[v] = counter++;
+                        cursor[v] = graph.offsets[v];
+                        stack[sp++] = v;
+                        onStack[v] = true;
+                        calls[++depth] = v;
+                    } else if (onStack[v]) {
+                        low[u] = Math.min(low[u], index[v]);
+                    }
+                    continue;
+                }
+                //u 的出边都已检查：若 u 是分量的根，弹出整个分量
+                if (low[u] == index[u]) {
+                    start[count] = placed;
+                    int w;
+                    do {
+                        w = stack[--sp];
+                        onStack[w] = false;
+                        component[w] = count;
+                        members[placed++] = w;
+                    } while (w != u);
+                    count++;
+                }
+                depth--;
+                if (depth >= 0) {
+                    int parent = calls[depth];
+                    low[parent] = Math.min(low[parent], low[u]);
+                }
+            }
+        }
+        return count;
+    }
+
+    int componentCount() {
+        return size.length;
+    }
+
+    int component(int u) {
+        return component[u];
+    }
+
+    boolean sameComponent(int u, int v) {
+        return component[u] == component[v];
+    }
+
+    boolean hasClosure() {
+        return closure != null;
+    }
+
+    //u 是否可能到达 v：返回 false 时一定不可达；有传递闭包时返回 true 也一定可达
+    boolean mayReach(int u, int v) {
+        int cu = component[u];
+        int cv = component[v];
+        if (cu == cv) {
+            return true;
+        }
+        if (cu < cv || level[cu] <= level[cv]) {
+            return false;
+        }
+        return closure == null || (closure[cu][cv >>> 6] & (1L << cv)) != 0;
+    }
+
+    //u 除自身所在分量外到不了任何节点，且分量中只有它自己
+    boolean isDeadEnd(int u) {
+        int c = component[u];
+        return level[c] == 0 && size[c] == 1;
+    }
+}
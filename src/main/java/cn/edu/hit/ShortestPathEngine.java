@@ -0,0 +1,428 @@
+package cn.edu.hit;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//最短路径引擎：在 CSR 图上运行 Dijkstra，使用带 decrease-key 的索引堆和基本类型的距离、前驱数组
+//单目标查询在目标出堆（距离确定）时立即停止；两词查询还可选用双向 Dijkstra 或 ALT（地标 + A*）加速
+//单源最短路径树可按源节点缓存（LRU），之后从同一起点出发的两词查询直接沿前驱回溯
+//设置可达性索引后，不可达的两词查询在搜索前直接返回，单目标搜索也不再扩展到不了目标的节点
+final class ShortestPathEngine {
+    /**
+     * 不可达节点的距离。
+     */
+    static final int INFINITY = Integer.MAX_VALUE;
+
+    /**
+     * 默认的路径树缓存内存上限（64 MB），按节点数折算为棵数。
+     */
+    static final long DEFAULT_TREE_CACHE_BYTES = 64L << 20;
+
+    /**
+     * 一棵路径树除两个 int 数组外的对象开销（估计值）。
+     */
+    private static final long TREE_OVERHEAD_BYTES = 64;
+
+    //两词查询的搜索方式
+    enum Mode {
+        /**
+         * 单向 Dijkstra，目标确定后停止。
+         */
+        DIJKSTRA,
+        /**
+         * 正向图与反向图上同时搜索，两侧相遇后停止。
+         */
+        BIDIRECTIONAL,
+        /**
+         * 以地标下界为启发函数的 A* 搜索（需要先设置地标索引）。
+         */
+        ALT
+    }
+
+    //两词查询的结果：路径上的节点编号（不可达时为空）、长度与确定距离的节点数
+    static final class Path {
+        final int[] nodes;
+        final int length;
+        final int settled;
+
+        Path(int[] nodes, int length, int settled) {
+            this.nodes = nodes;
+            this.length = length;
+            this.settled = settled;
+        }
+
+        boolean exists() {
+            return length != INFINITY;
+        }
+    }
+
+    //一次搜索的结果：距离与前驱数组（前驱 -1 表示无），以及确定距离的节点数
+    static final class Tree {
+        final int source;
+        final int[] dist;
+        final int[] prev;
+        final int settled;
+
+        Tree(int source, int[] dist, int[] prev, int settled) {
+            this.source = source;
+            this.dist = dist;
+            this.prev = prev;
+            this.settled = settled;
+        }
+    }
+
+    private final CsrGraph graph;
+    private volatile Mode mode = Mode.DIJKSTRA;
+    private volatile LandmarkIndex landmarks;
+    private volatile ReachabilityIndex reachability;
+
+    /**
+     * 为 true 时在第一次需要时取用图共享的可达性索引（按需构建）。
+     */
+    private volatile boolean graphReachability;
+
+    /**
+     * 源节点编号 -> 最短路径树，按访问顺序淘汰；为 null 表示不缓存。
+     */
+    private Map<Integer, Tree> treeCache;
+    private int treeCapacity;
+    private long cacheHits;
+    private long cacheMisses;
+
+    ShortestPathEngine(CsrGraph graph) {
+        this.graph = graph;
+    }
+
+    //开启最短路径树缓存，最多保留 capacity 棵（每棵约占 8 * 节点数 字节），0 表示关闭
+    synchronized void setTreeCacheCapacity(int capacity) {
+        treeCapacity = Math.max(0, capacity);
+        if (capacity <= 0) {
+            treeCache = null;
+            return;
+        }
+        Map<Integer, Tree> cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Tree> eldest) {
+                return size() > capacity;
+            }
+        };
+        if (treeCache != null) {
+            cache.putAll(treeCache);
+        }
+        treeCache = cache;
+    }
+
+    //按内存上限开启路径树缓存：每棵树约占 8 * 节点数 字节，上限至少能放下一棵
+    void setTreeCacheBytes(long bytes) {
+        long perTree = 8L * graph.nodeCount() + TREE_OVERHEAD_BYTES;
+        setTreeCacheCapacity((int) Math.max(1, Math.min(Integer.MAX_VALUE, bytes / perTree)));
+    }
+
+    synchronized int treeCacheCapacity() {
+        return treeCapacity;
+    }
+
+    //只查缓存，不计入命中/未命中（两词查询在缓存未命中时并不建树，不应算作未命中）
+    private synchronized Tree peek(int source) {
+        return treeCache == null ? null : treeCache.get(source);
+    }
+
+    //查缓存并记录命中/未命中，未开启缓存或未命中时返回 null
+    private synchronized Tree lookup(int source) {
+        if (treeCache == null) {
+            return null;
+        }
+        Tree tree = treeCache.get(source);
+        if (tree == null) {
+            cacheMisses++;
+        } else {
+            cacheHits++;
+        }
+        return tree;
+    }
+
+    synchronized long cacheHits() {
+        return cacheHits;
+    }
+
+    synchronized long cacheMisses() {
+        return cacheMisses;
+    }
+
+    synchronized String cacheStats() {
+        int size = treeCache == null ? 0 : treeCache.size();
+        return "trees=" + size + "/" + treeCapacity + ", hits=" + cacheHits + ", misses=" + cacheMisses;
+    }
+
+    //选择两词查询的方式；ALT 需要地标索引
+    void setMode(Mode mode) {
+        if (mode == Mode.ALT && landmarks == null) {
+            throw new IllegalStateException("ALT mode requires a landmark index");
+        }
+        this.mode = mode;
+    }
+
+    Mode mode() {
+        return mode;
+    }
+
+    void setLandmarks(LandmarkIndex landmarks) {
+        this.landmarks = landmarks;
+    }
+
+    LandmarkIndex landmarks() {
+        return landmarks;
+    }
+
+    void setReachability(ReachabilityIndex reachability) {
+        this.reachability = reachability;
+    }
+
+    //使用图共享的可达性索引，但推迟到第一次查询时才构建，只创建引擎（如继承路径树）不触发 Tarjan
+    void useGraphReachability() {
+        graphReachability = true;
+    }
+
+    private ReachabilityIndex reachability() {
+        ReachabilityIndex index = reachability;
+        if (index == null && graphReachability) {
+            index = graph.reachability();
+            reachability = index;
+        }
+        return index;
+    }
+
+    CsrGraph graph() {
+        return graph;
+    }
+
+    //单源最短路径树，开启缓存时先查缓存
+    Tree singleSource(int source) {
+        ReachabilityIndex reachability = reachability();
+        if (reachability != null && reachability.isDeadEnd(source)) {
+            //除起点外全部不可达，不必搜索
+            int[] dist = new int[graph.nodeCount()];
+            int[] prev = new int[graph.nodeCount()];
+            Arrays.fill(dist, INFINITY);
+            Arrays.fill(prev, -1);
+            dist[source] = 0;
+            return new Tree(source, dist, prev, 1);
+        }
+        Tree tree = lookup(source);
+        if (tree != null) {
+            return tree;
+        }
+        tree = search(source, -1);
+        synchronized (this) {
+            if (treeCache != null) {
+                treeCache.put(source, tree);
+            }
+        }
+        return tree;
+    }
+
+    //从 source 出发搜索，target 为 -1 时搜索全部可达节点，否则在 target 确定后停止
+    Tree search(int source, int target) {
+        int n = graph.nodeCount();
+        int[] dist = new int[n];
+        int[] prev = new int[n];
+        Arrays.fill(dist, INFINITY);
+        Arrays.fill(prev, -1);
+        IndexedMinHeap heap = new IndexedMinHeap(n);
+        dist[source] = 0;
+        heap.insertOrDecrease(source, 0);
+        int settled = 0;
+        ReachabilityIndex reachability = target >= 0 ? reachability() : null;
+        while (!heap.isEmpty()) {
+            int u = heap.poll();
+            settled++;
+            if (u == target) {
+                break;
+            }
+            int du = dist[u];
+            for (int e = graph.offsets[u]; e < graph.offsets[u + 1]; e++) {
+                int v = graph.targets[e];
+                int alt = du + graph.weights[e];
+                if (alt < dist[v]) {
+                    if (reachability != null && !reachability.mayReach(v, target)) {
+                        continue;
+                    }
+                    dist[v] = alt;
+                    prev[v] = u;
+                    heap.insertOrDecrease(v, alt);
+                }
+            }
+        }
+        return new Tree(source, dist, prev, settled);
+    }
+
+    //两词最短路径：可达性索引判定不可达时直接返回，起点的树已缓存时直接回溯，否则按当前模式搜索
+    Path pointToPoint(int source, int target) {
+        ReachabilityIndex reachability = reachability();
+        if (reachability != null && !reachability.mayReach(source, target)) {
+            return new Path(new int[0], INFINITY, 0);
+        }
+        Tree cached = peek(source);
+        if (cached != null) {
+            return toPath(cached.prev, source, target, cached.dist[target], 0);
+        }
+        switch (mode) {
+            case BIDIRECTIONAL:
+                return bidirectional(source, target);
+            case ALT:
+                return alt(source, target);
+            default:
+                Tree tree = search(source, target);
+                return toPath(tree.prev, source, target, tree.dist[target], tree.settled);
+        }
+    }
+
+    //双向 Dijkstra：正向在原图、反向在反向图上交替扩展，当两侧堆顶之和不小于当前最优值时停止
+    Path bidirectional(int source, int target) {
+        int n = graph.nodeCount();
+        CsrGraph reverse = graph.transpose();
+        int[] distF = new int[n];
+        int[] distB = new int[n];
+        int[] prev = new int[n];
+        int[] next = new int[n];
+        Arrays.fill(distF, INFINITY);
+        Arrays.fill(distB, INFINITY);
+        Arrays.fill(prev, -1);
+        Arrays.fill(next, -1);
+        IndexedMinHeap heapF = new IndexedMinHeap(n);
+        IndexedMinHeap heapB = new IndexedMinHeap(n);
+        distF[source] = 0;
+        distB[target] = 0;
+        heapF.insertOrDecrease(source, 0);
+        heapB.insertOrDecrease(target, 0);
+        long best = source == target ? 0 : Long.MAX_VALUE;
+        int meet = source == target ? source : -1;
+        int settled = 0;
+        while (!heapF.isEmpty() && !heapB.isEmpty()
+                && (long) heapF.minKey() + heapB.minKey() < best) {
+            boolean forward = heapF.minKey() <= heapB.minKey();
+            CsrGraph side = forward ? graph : reverse;
+            int[] dist = forward ? distF : distB;
+            int[] other = forward ? distB : distF;
+            int[] link = forward ? prev : next;
+            IndexedMinHeap heap = forward ? heapF : heapB;
+            int u = heap.poll();
+            settled++;
+            int du = dist[u];
+            for (int e = side.offsets[u]; e < side.offsets[u + 1]; e++) {
+                int v = side.targets[e];
+                int alt = du + side.weights[e];
+                if (alt < dist[v]) {
+                    dist[v] = alt;
+                    link[v] = u;
+                    heap.insertOrDecrease(v, alt);
+                }
+                if (other[v] != INFINITY && (long) dist[v] + other[v] < best) {
+                    best = (long) dist[v] + other[v];
+                    meet = v;
+                }
+            }
+        }
+        if (meet < 0) {
+            return new Path(new int[0], INFINITY, settled);
+        }
+        //正向前驱回溯到起点，反向后继走到终点
+        int[] head = toPath(prev, source, meet, distF[meet], 0).nodes;
+        int count = 0;
+        for (int at = next[meet]; at >= 0; at = next[at]) {
+            count++;
+        }
+        int[] nodes = Arrays.copyOf(head, head.length + count);
+        int i = head.length;
+        for (int at = next[meet]; at >= 0; at = next[at]) {
+            nodes[i++] = at;
+        }
+        return new Path(nodes, (int) best, settled);
+    }
+
+    //ALT：A* 搜索，键为 已知距离 + 地标下界；下界为 INFINITY 的节点不可能到达目标，直接剪枝
+    Path alt(int source, int target) {
+        int n = graph.nodeCount();
+        int[] dist = new int[n];
+        int[] prev = new int[n];
+        Arrays.fill(dist, INFINITY);
+        Arrays.fill(prev, -1);
+        IndexedMinHeap heap = new IndexedMinHeap(n);
+        int settled = 0;
+        int h = landmarks.lowerBound(source, target);
+        if (h != INFINITY) {
+            dist[source] = 0;
+            heap.insertOrDecrease(source, h);
+        }
+        while (!heap.isEmpty()) {
+            int u = heap.poll();
+            settled++;
+            if (u == target) {
+                break;
+            }
+            int du = dist[u];
+            for (int e = graph.offsets[u]; e < graph.offsets[u + 1]; e++) {
+                int v = graph.targets[e];
+                int alt = du + graph.weights[e];
+                if (alt < dist[v]) {
+                    int bound = landmarks.lowerBound(v, target);
+                    if (bound == INFINITY) {
+                        continue;
+                    }
+                    dist[v] = alt;
+                    prev[v] = u;
+                    heap.insertOrDecrease(v, alt + bound);
+                }
+            }
+        }
+        return toPath(prev, source, target, dist[target], settled);
+    }
+
+    //沿前驱数组得到 source 到 target 的路径
+    private static Path toPath(int[] prev, int source, int target, int length, int settled) {
+        if (length == INFINITY) {
+            return new Path(new int[0], INFINITY, settled);
+        }
+        int count = 0;
+        for (int at = target; at >= 0; at = prev[at]) {
+            count++;
+        }
+        int[] nodes = new int[count];
+        for (int at = target; at >= 0; at = prev[at]) {
+            nodes[--count] = at;
+        }
+        return new Path(nodes, length, settled);
+    }
+
+    //从旧图的引擎继承缓存的路径树：changed[u] 表示 u 的出边有变化，
+    //只有从源点能到达某个变化节点的树才可能改变，其余树补齐新节点（不可达）后沿用
+    void inheritTrees(ShortestPathEngine old, boolean[] changed) {
+        Map<Integer, Tree> trees;
+        synchronized (old) {
+            if (old.treeCache == null) {
+                return;
+            }
+            trees = new LinkedHashMap<>(old.treeCache);
+        }
+        int n = graph.nodeCount();
+        synchronized (this) {
+            if (treeCache == null) {
+                return;
+            }
+            for (Tree tree : trees.values()) {
+                boolean affected = false;
+                for (int u = 0; u < tree.dist.length && !affected; u++) {
+                    affected = changed[u] && tree.dist[u] != INFINITY;
+                }
+                if (!affected) {
+                    int[] dist = Arrays.copyOf(tree.dist, n);
+                    int[] prev = Arrays.copyOf(tree.prev, n);
+                    Arrays.fill(dist, tree.dist.length, n, INFINITY);
+                    Arrays.fill(prev, tree.prev.length, n, -1);
+                    treeCache.put(tree.source, new Tree(tree.source, dist, prev, tree.settled));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package cn.edu.hit;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+//近似建图：所有相邻编号对只计入固定大小的 count-min sketch（depth 行 x width 列），
+//估计值达到阈值的边才作为“重边”显式保存，出现次数少的长尾边不占用邻接表；建图时每个节点最多保留 topK 条估计值最大的重边
+//边权取 sketch 的估计值：估计值不小于真实值，且以至少 1 - δ 的概率不超过 真实值 + ε·N（ε = e / width，δ = e^-depth，N 为总边数）
+//采用保守更新（只增加等于最小值的计数格），误差界不变而实际误差更小
+//重边数达到上限时按当前估计值淘汰最轻的约 1/4，并把准入阈值提高到被淘汰的最大估计值之上：被淘汰或暂未准入的边
+//之后估计值超过准入阈值时仍会重新进入，后出现的高频边不会因为上限被永久挡在外面
+//内存上限只约束边：单词编号仍由 WordDictionary 分配，词表随不同单词数线性增长（自然语言中不同单词数约为总词数的平方根量级，
+//远小于不同的相邻单词对数），需要限制词表时应在分词前过滤
+final class SketchGraphBuilder implements IntConsumer {
+    /**
+     * 默认列数（ε ≈ 2.6e-6），sketch 约占 width * depth * 4 字节。
+     */
+    static final int DEFAULT_WIDTH = 1 << 20;
+
+    /**
+     * 默认行数（δ ≈ 0.7%）。
+     */
+    static final int DEFAULT_DEPTH = 5;
+
+    /**
+     * 默认重边阈值：估计出现至少 2 次。
+     */
+    static final int DEFAULT_THRESHOLD = 2;
+
+    /**
+     * 默认显式保存的重边总数上限。
+     */
+    static final int DEFAULT_MAX_EDGES = 1 << 22;
+
+    private static final long EMPTY = -1L;
+
+    private final WordDictionary dictionary;
+    private final int width;
+    private final int depth;
+    private final int topK;
+
+    /**
+     * 当前的准入阈值：初始为构造时给出的重边阈值，每次淘汰后提高到被淘汰边的最大估计值 + 1。
+     */
+    private int admission;
+    private final int maxEdges;
+
+    /**
+     * 第 i 行第 j 列的计数位于 sketch[i * width + j]。
+     */
+    private final int[] sketch;
+    private final int[] cells;
+
+    /**
+     * 重边集合：以 (from << 32 | to) 为键的开放寻址表。
+     */
+    private long[] heavy;
+    private int heavyCount;
+
+    /**
+     * 因重边数达到上限而被淘汰的重边数。
+     */
+    private long evicted;
+    private long total;
+    private int previous = -1;
+
+    //width 向上取整为 2 的幂；topK 为每个节点最多保留的重边数；maxEdges 为重边总数上限
+    SketchGraphBuilder(WordDictionary dictionary, int width, int depth, int threshold, int topK, int maxEdges) {
+        if (width < 1 || depth < 1 || threshold < 1 || topK < 1 || maxEdges < 1) {
+            throw new IllegalArgumentException("width, depth, threshold, topK and maxEdges must be positive");
+        }
+        this.dictionary = dictionary;
+        this.width = Integer.bitCount(width) == 1 ? width : Integer.highestOneBit(width) << 1;
+        this.depth = depth;
+        this.admission = threshold;
+        this.topK = topK;
+        this.maxEdges = maxEdges;
+        this.sketch = new int[Math.multiplyExact(this.width, depth)];
+        this.cells = new int[depth];
+        this.heavy = new long[1 << 12];
+        Arrays.fill(heavy, EMPTY);
+    }
+
+    SketchGraphBuilder(WordDictionary dictionary) {
+        this(dictionary, DEFAULT_WIDTH, DEFAULT_DEPTH, DEFAULT_THRESHOLD, Integer.MAX_VALUE, DEFAULT_MAX_EDGES);
+    }
+
+    //达到误差 ε 所需的列数
+    static int widthFor(double epsilon) {
+        return (int) Math.min(1 << 30, (long) Math.ceil(Math.E / epsilon));
+    }
+
+    //达到失败概率 δ 所需的行数
+    static int depthFor(double delta) {
+        return Math.max(1, (int) Math.ceil(Math.log(1 / delta)));
+    }
+
+    //喂入下一个单词的编号
+    @Override
+    public void accept(int id) {
+        if (previous >= 0) {
+            addEdge(previous, id, 1);
+        }
+        previous = id;
+    }
+
+    //结束当前文本，下一个单词不与之前的单词相连
+    void breakSequence() {
+        previous = -1;
+    }
+
+    void addEdge(int from, int to, int count) {
+        long key = ((long) from << 32) | to;
+        total += count;
+        //保守更新：新估计值为 旧估计值 + count，只把小于它的计数格抬高到它
+        int min = locate(key);
+        int estimate = (int) Math.min(Integer.MAX_VALUE, (long) min + count);
+        for (int cell : cells) {
+            if (sketch[cell] < estimate) {
+                sketch[cell] = estimate;
+            }
+        }
+        if (estimate >= admission) {
+            promote(key, estimate);
+        }
+    }
+
+    //计算 key 在各行的计数格（双重哈希），返回其中的最小值
+    private int locate(long key) {
+        long h = mix(key);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32) | 1;
+        int mask = width - 1;
+        int min = Integer.MAX_VALUE;
+        for (int i = 0; i < depth; i++) {
+            int cell = i * width + ((h1 + i * h2) & mask);
+            cells[i] = cell;
+            min = Math.min(min, sketch[cell]);
+        }
+        return min;
+    }
+
+    //边 from->to 的估计出现次数（不小于真实值）
+    int estimate(int from, int to) {
+        return locate(((long) from << 32) | to);
+    }
+
+    private void promote(long key, int estimate) {
+        if (contains(key)) {
+            return;
+        }
+        if (heavyCount == maxEdges) {
+            evictLightest();
+            if (estimate < admission) {
+                return;
+            }
+        }
+        insert(key);
+        if (2 * ++heavyCount > heavy.length) {
+            rehash(heavy.length * 2);
+        }
+    }
+
+    private boolean contains(long key) {
+        int mask = heavy.length - 1;
+        for (int slot = (int) mix(key) & mask; heavy[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (heavy[slot] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void insert(long key) {
+        int mask = heavy.length - 1;
+        int slot = (int) mix(key) & mask;
+        while (heavy[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        heavy[slot] = key;
+    }
+
+    //淘汰当前估计值最小的约 1/4 重边（至少一条），准入阈值提高到被淘汰边的最大估计值 + 1；
+    //每次淘汰 O(maxEdges log maxEdges)，之后至少再准入 maxEdges / 4 条边才会再次淘汰
+    private void evictLightest() {
+        //高 32 位为估计值，低 32 位为槽位，排序后前 drop 个即为最轻的重边
+        long[] order = new long[heavyCount];
+        int m = 0;
+        for (int slot = 0; slot < heavy.length; slot++) {
+            long key = heavy[slot];
+            if (key != EMPTY) {
+                order[m++] = ((long) estimate((int) (key >>> 32), (int) key) << 32) | slot;
+            }
+        }
+        Arrays.sort(order);
+        int drop = Math.max(1, heavyCount / 4);
+        for (int i = 0; i < drop; i++) {
+            heavy[(int) order[i]] = EMPTY;
+        }
+        admission = Math.max(admission, (int) Math.min(Integer.MAX_VALUE, (order[drop - 1] >>> 32) + 1));
+        heavyCount -= drop;
+        evicted += drop;
+        //删除破坏了线性探测链，按原大小重新插入
+        rehash(heavy.length);
+    }
+
+    private void rehash(int capacity) {
+        long[] old = heavy;
+        heavy = new long[capacity];
+        Arrays.fill(heavy, EMPTY);
+        for (long key : old) {
+            if (key != EMPTY) {
+                insert(key);
+            }
+        }
+    }
+
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xFF51AFD7ED558CCDL;
+        key ^= key >>> 33;
+        key *= 0xC4CEB9FE1A85EC53L;
+        return key ^ (key >>> 33);
+    }
+
+    //ε = e / width
+    double epsilon() {
+        return Math.E / width;
+    }
+
+    //δ = e^-depth
+    double delta() {
+        return Math.exp(-depth);
+    }
+
+    //以至少 1 - δ 的概率成立的单条边权的最大高估量 ε·N
+    long maxOverestimate() {
+        return (long) Math.ceil(epsilon() * total);
+    }
+
+    //已计数的边总数 N
+    long totalCount() {
+        return total;
+    }
+
+    int heavyEdgeCount() {
+        return heavyCount;
+    }
+
+    long evictedCount() {
+        return evicted;
+    }
+
+    //当前的准入阈值（未发生淘汰时等于构造时给出的重边阈值）
+    int admissionThreshold() {
+        return admission;
+    }
+
+    long sketchBytes() {
+        return 4L * sketch.length;
+    }
+
+    String errorBounds() {
+        return String.format("count-min %dx%d (%d KB): weights overestimate by at most %d (epsilon=%.3g of %d pairs) "
+                        + "with probability %.4f; %d heavy edges kept, %d evicted at the cap (admission threshold %d); "
+                        + "vocabulary %d words",
+                depth, width, sketchBytes() >> 10, maxOverestimate(), epsilon(), total, 1 - delta(), heavyCount, evicted,
+                admission, dictionary.size());
+    }
+
+    //整理为 CSR 图：每个节点保留估计值最大的 topK 条重边，边权为估计值；没有保留任何边的单词不出现在图中
+    CsrGraph build() {
+        long[] keys = new long[heavyCount];
+        int m = 0;
+        for (long key : heavy) {
+            if (key != EMPTY) {
+                keys[m++] = key;
+            }
+        }
+        Arrays.sort(keys);
+        String[] words = dictionary.words();
+        long[] kept = new long[m];
+        int[] weights = new int[m];
+        boolean[] used = new boolean[words.length];
+        int e = 0;
+        //同一起点的重边在排序后相邻；超过 topK 时按估计值降序截取，再恢复按目标排序
+        long[] row = new long[0];
+        for (int i = 0; i < m; ) {
+            int from = (int) (keys[i] >>> 32);
+            int j = i;
+            while (j < m && (int) (keys[j] >>> 32) == from) {
+                j++;
+            }
+            int size = j - i;
+            if (row.length < size) {
+                row = new long[size];
+            }
+            for (int k = 0; k < size; k++) {
+                int to = (int) keys[i + k];
+                //高 32 位放估计值的反码（降序），低 32 位放目标编号
+                row[k] = ((long) ~estimate(from, to) << 32) | to;
+            }
+            int keep = Math.min(size, topK);
+            if (keep < size) {
+                Arrays.sort(row, 0, size);
+            }
+            int rowStart = e;
+            for (int k = 0; k < keep; k++) {
+                kept[e++] = ((long) from << 32) | (int) row[k];
+            }
+            Arrays.sort(kept, rowStart, e);
+            for (int k = rowStart; k < e; k++) {
+                int to = (int) kept[k];
+                weights[k] = estimate(from, to);
+                used[from] = true;
+                used[to] = true;
+            }
+            i = j;
+        }
+        if (e == 0) {
+            return new CsrGraph(new String[0], new int[1], new int[0], new int[0]);
+        }
+        //去掉没有边的单词，编号保持首次出现的先后顺序
+        int[] remap = new int[words.length];
+        int n = 0;
+        for (int u = 0; u < words.length; u++) {
+            remap[u] = used[u] ? n++ : -1;
+        }
+        String[] nodeWords = new String[n];
+        for (int u = 0; u < words.length; u++) {
+            if (used[u]) {
+                nodeWords[remap[u]] = words[u];
+            }
+        }
+        int[] offsets = new int[n + 1];
+        int[] targets = new int[e];
+        for (int i = 0; i < e; i++) {
+            offsets[remap[(int) (kept[i] >>> 32)] + 1]++;
+            targets[i] = remap[(int) kept[i]];
+        }
+        for (int u = 0; u < n; u++) {
+            offsets[u + 1] += offsets[u];
+        }
+        return new CsrGraph(nodeWords, offsets, targets, Arrays.copyOf(weights, e));
+    }
+}
@@ -0,0 +1,157 @@
+package cn.edu.hit;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+//流式分词器：按块读取或内存映射文件，一次扫描字节切出小写英文单词（大小写在扫描时就地转换）
+//可输出 String，也可经 WordDictionary 输出单词编号（重复单词不分配对象）
+//切词规则与 TextGraphApp.cleanWords 一致：只有 A-Z / a-z 组成单词，其余字节（含非 ASCII）都视为分隔符
+final class StreamingTokenizer {
+    /**
+     * 内存映射窗口大小，超大文件按窗口逐段映射。
+     */
+    static final int MAP_WINDOW = 64 << 20;
+
+    /**
+     * 输入流读取块大小。
+     */
+    static final int READ_CHUNK = 64 << 10;
+
+    /**
+     * 接收每个完整单词的回调。
+     */
+    private final Consumer<String> sink;
+
+    /**
+     * 编号模式：单词在字典中查找编号后交给 idSink，不为重复出现的单词创建 String。
+     */
+    private final WordDictionary dictionary;
+    private final IntConsumer idSink;
+
+    /**
+     * 尚未结束的单词（可能跨越块边界）。
+     */
+    private char[] word = new char[32];
+    private int length;
+
+    StreamingTokenizer(Consumer<String> sink) {
+        this.sink = sink;
+        this.dictionary = null;
+        this.idSink = null;
+    }
+
+    StreamingTokenizer(WordDictionary dictionary, IntConsumer idSink) {
+        this.sink = null;
+        this.dictionary = dictionary;
+        this.idSink = idSink;
+    }
+
+    //判断字节是否为英文字母
+    static boolean isLetter(byte b) {
+        return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z');
+    }
+
+    //大写字母转小写
+    static byte toLower(byte b) {
+        return b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+    }
+
+    //扫描缓冲区中剩余的字节，跨块的半个单词保留到下一次调用
+    void feed(ByteBuffer buf) {
+        while (buf.hasRemaining()) {
+            accept(buf.get());
+        }
+    }
+
+    void feed(byte[] bytes, int offset, int len) {
+        for (int i = offset; i < offset + len; i++) {
+            accept(bytes[i]);
+        }
+    }
+
+    //输入结束，输出最后一个单词
+    void finish() {
+        if (length > 0) {
+            emit();
+        }
+    }
+
+    private void emit() {
+        if (dictionary != null) {
+            idSink.accept(dictionary.intern(word, length));
+        } else {
+            sink.accept(new String(word, 0, length));
+        }
+        length = 0;
+    }
+
+    private void accept(byte b) {
+        if (isLetter(b)) {
+            if (length == word.length) {
+                word = Arrays.copyOf(word, length * 2);
+            }
+            word[length++] = (char) toLower(b);
+        } else if (length > 0) {
+            emit();
+        }
+    }
+
+    //内存映射整个文件并逐个输出单词
+    static void tokenizeFile(Path path, Consumer<String> sink) throws IOException {
+        tokenizeFile(path, sink, MAP_WINDOW);
+    }
+
+    static void tokenizeFile(Path path, Consumer<String> sink, int window) throws IOException {
+        tokenizeFile(path, new StreamingTokenizer(sink), window);
+    }
+
+    //内存映射整个文件，单词经字典转为编号后逐个输出
+    static void tokenizeFile(Path path, WordDictionary dictionary, IntConsumer idSink) throws IOException {
+        tokenizeFile(path, new StreamingTokenizer(dictionary, idSink), MAP_WINDOW);
+    }
+
+    private static void tokenizeFile(Path path, StreamingTokenizer tokenizer, int window) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long pos = 0; pos < size; pos += window) {
+                MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(window, size - pos));
+                tokenizer.feed(buf);
+            }
+        }
+        tokenizer.finish();
+    }
+
+    //按块读取输入流（如解压流）并逐个输出单词
+    static void tokenize(InputStream in, Consumer<String> sink) throws IOException {
+        StreamingTokenizer tokenizer = new StreamingTokenizer(sink);
+        byte[] chunk = new byte[READ_CHUNK];
+        int n;
+        while ((n = in.read(chunk)) != -1) {
+            tokenizer.feed(chunk, 0, n);
+        }
+        tokenizer.finish();
+    }
+
+    //切分内存中的文本（只有 ASCII 字母组成单词）
+    static void tokenize(CharSequence text, Consumer<String> sink) {
+        int start = -1;
+        for (int i = 0, n = text.length(); i <= n; i++) {
+            char c = i < n ? text.charAt(i) : ' ';
+            boolean letter = c < 128 && isLetter((byte) c);
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                sink.accept(text.subSequence(start, i).toString().toLowerCase());
+                start = -1;
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package cn.edu.hit;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+//批量文本扩展：在共享的只读冻结图上为大文件或整个目录插入桥接词
+//文档并行处理、按输入顺序经缓冲写出；每个文档使用由种子和文档序号决定的随机数，结果可复现
+final class TextEnricher {
+    /**
+     * 文件模式下每个任务处理的行数。
+     */
+    static final int LINES_PER_TASK = 1024;
+
+    private final CsrGraph graph;
+    private final BridgeIndex bridges;
+    private final long seed;
+
+    TextEnricher(CsrGraph graph, long seed) {
+        this.graph = graph;
+        this.bridges = graph.bridgeIndex();
+        this.seed = seed;
+    }
+
+    //边读入单词边输出：前后两个单词之间若有桥接词，随机插入其中一个
+    private final class Inserter implements Consumer<String> {
+        private final StringBuilder out;
+        private final SplittableRandom random;
+        private int previous = -1;
+
+        Inserter(StringBuilder out, long document) {
+            this.out = out;
+            this.random = new SplittableRandom(seed ^ (document * 0x9E3779B97F4A7C15L));
+        }
+
+        @Override
+        public void accept(String word) {
+            int current = graph.id(word);
+            if (previous >= 0 && current >= 0) {
+                int[] candidates = bridges.bridges(previous, current);
+                if (candidates.length > 0) {
+                    out.append(graph.words[candidates[random.nextInt(candidates.length)]]).append(' ');
+                }
+            }
+            out.append(word).append(' ');
+            previous = current;
+        }
+
+        //结束一个文档：去掉末尾空格
+        void end() {
+            if (out.length() > 0 && out.charAt(out.length() - 1) == ' ') {
+                out.setLength(out.length() - 1);
+            }
+        }
+    }
+
+    //扩展一段文本（与 generateNewText 相同的规则，只是随机数不同）
+    String enrich(CharSequence text, long document) {
+        StringBuilder out = new StringBuilder(text.length() + 16);
+        Inserter inserter = new Inserter(out, document);
+        StreamingTokenizer.tokenize(text, inserter);
+        inserter.end();
+        return out.toString();
+    }
+
+    //文件模式：输入文件的每一行是一个文档，输出文件逐行对应
+    void enrichFile(Path input, Path output, int threads) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8);
+             BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8);
+             OrderedPipeline pipeline = new OrderedPipeline(executor, writer, threads * 4)) {
+            List<String> batch = new ArrayList<>(LINES_PER_TASK);
+            long line = 0;
+            String text;
+            while ((text = reader.readLine()) != null) {
+                batch.add(text);
+                if (batch.size() == LINES_PER_TASK) {
+                    pipeline.submit(lineTask(batch, line));
+                    line += batch.size();
+                    batch = new ArrayList<>(LINES_PER_TASK);
+                }
+            }
+            if (!batch.isEmpty()) {
+                pipeline.submit(lineTask(batch, line));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Callable<String> lineTask(List<String> lines, long firstLine) {
+        return () -> {
+            StringBuilder out = new StringBuilder();
+            for (int i = 0; i < lines.size(); i++) {
+                Inserter inserter = new Inserter(out, firstLine + i);
+                StreamingTokenizer.tokenize(lines.get(i), inserter);
+                inserter.end();
+                out.append('\n');
+            }
+            return out.toString();
+        };
+    }
+
+    //目录模式：目录下每个普通文件是一个文档（按文件名排序），扩展结果依次写成输出文件的一行
+    void enrichDirectory(Path directory, Path output, int threads) throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(directory)) {
+            files = stream.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8);
+             OrderedPipeline pipeline = new OrderedPipeline(executor, writer, threads * 2)) {
+            for (int i = 0; i < files.size(); i++) {
+                Path file = files.get(i);
+                long document = i;
+                pipeline.submit(() -> {
+                    StringBuilder out = new StringBuilder();
+                    Inserter inserter = new Inserter(out, document);
+                    StreamingTokenizer.tokenizeFile(file, inserter);
+                    inserter.end();
+                    return out.append('\n').toString();
+                });
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -1,23 +1,23 @@
 package cn.edu.hit;
 
-import java.io.File;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
-import guru.nidi.graphviz.attribute.Label;
-import guru.nidi.graphviz.engine.Format;
-import guru.nidi.graphviz.engine.Graphviz;
-import guru.nidi.graphviz.engine.GraphvizCmdLineEngine;
+import java.util.stream.IntStream;
 
 
-import static guru.nidi.graphviz.model.Factory.mutGraph;
-import static guru.nidi.graphviz.model.Factory.mutNode;
-import static guru.nidi.graphviz.model.Factory.to;
-import guru.nidi.graphviz.model.MutableGraph;
-import guru.nidi.graphviz.model.MutableNode;
 import org.apache.commons.io.FilenameUtils;
 
 import java.nio.charset.StandardCharsets;
@@ -57,12 +57,17 @@ public class TextGraphApp {
             return word;
         }
     }
-    //构建有向图
+    //构建有向图（非线程安全；边写入边查询时使用 ConcurrentGraph）
     public static class DirectedGraph {
         /**
          * 所有单词与其对应节点的映射关系，用于快速查找图中的节点。
          */
-        Map<String, Node> nodes = new HashMap<>();
+        Map<String, Node> nodes = new LinkedHashMap<>();
+
+        /**
+         * 冻结后的 CSR 形式，图被修改时失效。
+         */
+        private CsrGraph frozen;
 
         //获取节点（不分大小写）
         Node getNode(String word) {
@@ -71,60 +76,133 @@ public class TextGraphApp {
 
         //添加边
         void addEdge(String from, String to) {
+            addEdge(from, to, 1);
+        }
+
+        //按次数加边（用于写入预先统计好的边计数）
+        void addEdge(String from, String to, int count) {
             from = from.toLowerCase();
             to = to.toLowerCase();
             Node fromNode = nodes.computeIfAbsent(from, Node::new);
             Node toNode = nodes.computeIfAbsent(to, Node::new);
-            fromNode.edges.put(toNode, fromNode.edges.getOrDefault(toNode, 0) + 1);
+            fromNode.edges.put(toNode, fromNode.edges.getOrDefault(toNode, 0) + count);
+            frozen = null;
+        }
+
+        //由冻结图还原为可变图（节点加入顺序与编号一致），并直接沿用该冻结图
+        static DirectedGraph thaw(CsrGraph csr) {
+            DirectedGraph graph = new DirectedGraph();
+            Node[] byId = new Node[csr.nodeCount()];
+            for (int u = 0; u < byId.length; u++) {
+                byId[u] = new Node(csr.words[u]);
+                graph.nodes.put(csr.words[u], byId[u]);
+            }
+            for (int u = 0; u < byId.length; u++) {
+                for (int e = csr.offsets[u]; e < csr.offsets[u + 1]; e++) {
+                    byId[u].edges.put(byId[csr.targets[e]], csr.weights[e]);
+                }
+            }
+            graph.frozen = csr;
+            return graph;
+        }
+
+        //冻结为紧凑的 CSR 形式（缓存到下一次修改为止），查询都在冻结形式上进行
+        CsrGraph freeze() {
+            if (frozen == null) {
+                frozen = CsrGraph.of(this);
+            }
+            return frozen;
+        }
+
+        //构成该图的单词总数：每个单词（除最后一个）贡献一次边出现
+        long wordCount() {
+            long count = 0;
+            for (Node node : nodes.values()) {
+                for (int weight : node.edges.values()) {
+                    count += weight;
+                }
+            }
+            return nodes.isEmpty() ? 0 : count + 1;
         }
 
         //展示有向图
         void showDirectedGraph() {
-            StringBuilder sb = new StringBuilder();
-            //对每个Node进行遍历
-            for (Node node : nodes.values()) {
-                //遍历当前节点的所有边
-                for (Map.Entry<Node, Integer> entry : node.edges.entrySet()) {
-                    String line = node.word + " -> " + entry.getKey().word + " (weight: " + entry.getValue() + ")";
-                    //LOGGER.info(line);
-                    System.out.println(line);
+            showDirectedGraph(new EdgeLister(), Paths.get("graph_show.txt"), true);
+        }
 
-                    sb.append(line).append("\n");
+        //按 lister 的排序、过滤与分页条件把边列表流式写入 output，echo 为 true 时同时输出到控制台
+        void showDirectedGraph(EdgeLister lister, Path output, boolean echo) {
+            try (Writer file = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+                if (!echo) {
+                    lister.list(freeze(), file);
+                    return;
                 }
-            }
-            try {
-                Files.write(Paths.get("graph_show.txt"), sb.toString().getBytes(StandardCharsets.UTF_8));
+                //控制台不能关闭，只在结束时刷新
+                Writer console = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+                lister.list(freeze(), new Writer() {
+                    @Override
+                    public void write(char[] buf, int off, int len) throws IOException {
+                        file.write(buf, off, len);
+                        console.write(buf, off, len);
+                    }
+
+                    @Override
+                    public void write(String str) throws IOException {
+                        file.write(str);
+                        console.write(str);
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        file.flush();
+                        console.flush();
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        flush();
+                    }
+                });
+                console.flush();
             } catch (IOException e) {
                 System.err.println("Failed to write graph to file.");
             }
         }
 
         //导出图像（借用外部工具Graphviz）
-        void exportGraphToImage(String outputFilePath) {
-            MutableGraph g = mutGraph("Graph").setDirected(true);
-            Map<String, MutableNode> gvNodes = new HashMap<>();
-
-            for (Node node : nodes.values()) {
-                gvNodes.putIfAbsent(node.word, mutNode(node.word)); //创建源节点
-                for (Map.Entry<Node, Integer> edge : node.edges.entrySet()) {
-                    gvNodes.putIfAbsent(edge.getKey().word, mutNode(edge.getKey().word));
-                    gvNodes.get(node.word).addLink(to(gvNodes.get(edge.getKey().word))
-                            .with(Label.of(String.valueOf(edge.getValue()))));
-                }
-            }
+        CompletableFuture<Path> exportGraphToImage(String outputFilePath) {
+            return exportGraphToImage(outputFilePath, new DotExporter(), DotExporter.DEFAULT_RENDER_TIMEOUT);
+        }
 
-            //将所有节点添加到图中
-            for (MutableNode n : gvNodes.values()) {
-                g.add(n);
+        //先把（裁剪后的）图流式写成同名 .dot 文件，再在后台调用 dot 渲染，超过 timeout 则放弃
+        //不阻塞调用线程：渲染结束（成功、失败或超时）后报告结果并删除中间的 .dot 文件
+        CompletableFuture<Path> exportGraphToImage(String outputFilePath, DotExporter exporter, Duration timeout) {
+            Path dotFile = Paths.get(FilenameUtils.removeExtension(outputFilePath) + ".dot");
+            String format = FilenameUtils.getExtension(outputFilePath);
+            CompletableFuture<Path> rendering;
+            try {
+                exporter.writeTo(freeze(), dotFile);
+                rendering = exporter.render(dotFile, Paths.get(outputFilePath), format.isEmpty() ? "png" : format, timeout);
+            } catch (IOException | IllegalArgumentException e) {
+                System.err.println("Failed to export graph image: " + e.getMessage());
+                deleteQuietly(dotFile);
+                return CompletableFuture.failedFuture(e);
             }
+            return rendering.whenComplete((image, error) -> {
+                if (error == null) {
+                    System.out.println("Graph image exported to: " + image);
+                } else {
+                    System.err.println("Failed to export graph image: " + error.getMessage());
+                }
+                deleteQuietly(dotFile);
+            });
+        }
 
-            //导出图片文件
+        private static void deleteQuietly(Path file) {
             try {
-                Graphviz.fromGraph(g).render(Format.PNG).toFile(new File(outputFilePath));
-                //LOGGER.info("Graph image exported to: " + outputFilePath);
-                System.out.println("Graph image exported to: " + outputFilePath);
+                Files.deleteIfExists(file);
             } catch (IOException e) {
-                System.err.println("Failed to export graph image: " + e.getMessage());
+                System.err.println("Failed to delete " + file + ": " + e.getMessage());
             }
         }
     }
@@ -140,11 +218,8 @@ public class TextGraphApp {
 
     //读取文本文件内容，提取单词构建有向图
     static DirectedGraph buildGraphFromFile(String filename) throws IOException {
-// 确保文件名不包含非法路径元素（防止路径遍历）
-        String safeName = FilenameUtils.getName(filename);
-        if (!filename.endsWith(safeName)) {
-            throw new SecurityException("Illegal file path detected: " + filename);
-        }
+        checkSafePath(filename);
+        GraphMetrics.Timer timer = GraphMetrics.start(GraphMetrics.Operation.BUILD);
 
 // 安全验证通过，继续使用原始路径读取文件
         String content = Files.readString(Paths.get(filename));
@@ -156,78 +231,311 @@ public class TextGraphApp {
         for (int i = 0; i < words.size() - 1; i++) {
             graph.addEdge(words.get(i), words.get(i + 1));
         }
+        logBuild(filename, timer.stop(filename, words.size()), words.size());
+        return graph;
+    }
+
+    //记录建图吞吐量
+    private static void logBuild(String filename, long nanos, long words) {
+        LOGGER.fine(() -> String.format("Built graph from %s: %d words in %.1f ms (%.0f words/sec)",
+                filename, words, nanos / 1e6, words * 1e9 / Math.max(1, nanos)));
+    }
+
+    // 确保文件名不包含非法路径元素（防止路径遍历）
+    static void checkSafePath(String filename) {
+        String safeName = FilenameUtils.getName(filename);
+        if (!filename.endsWith(safeName)) {
+            throw new SecurityException("Illegal file path detected: " + filename);
+        }
+    }
+
+    //流式构建有向图：内存映射文件，一次扫描切词，内存只与词表大小相关
+    //单词经字典直接转为编号，相邻编号对在计数表中加边，重复出现的单词不再创建 String 或查找 Node
+    static DirectedGraph buildGraphFromFileStreaming(String filename) throws IOException {
+        checkSafePath(filename);
+        GraphMetrics.Timer timer = GraphMetrics.start(GraphMetrics.Operation.BUILD);
+        WordDictionary dictionary = new WordDictionary();
+        IdGraphBuilder builder = new IdGraphBuilder(dictionary);
+        StreamingTokenizer.tokenizeFile(Paths.get(filename), dictionary, builder);
+        DirectedGraph graph = DirectedGraph.thaw(builder.build());
+        long words = graph.wordCount();
+        logBuild(filename, timer.stop(filename, words), words);
+        return graph;
+    }
+
+    //并行构建有向图：按单词边界切分文件，各工作线程在各自的基本类型计数表中统计后按编号映射合并，结果与顺序构建相同
+    static DirectedGraph buildGraphFromFileParallel(String filename) throws IOException {
+        return DirectedGraph.thaw(buildFrozenGraphFromFile(filename));
+    }
+
+    //同 buildGraphFromFileParallel，但直接返回冻结图：单词经字典转为编号后计数，整个过程不创建 Node、不装箱，
+    //只做只读查询的入口（快照、批量、服务器等）都走这里
+    static CsrGraph buildFrozenGraphFromFile(String filename) throws IOException {
+        checkSafePath(filename);
+        GraphMetrics.Timer timer = GraphMetrics.start(GraphMetrics.Operation.BUILD);
+        CsrGraph graph = ParallelGraphBuilder.build(Paths.get(filename));
+        long words = wordCount(graph);
+        logBuild(filename, timer.stop(filename, words), words);
+        return graph;
+    }
+
+    //构成该图的单词总数：每个单词（除最后一个）贡献一次边出现
+    private static long wordCount(CsrGraph graph) {
+        long count = 0;
+        for (int weight : graph.weights) {
+            count += weight;
+        }
+        return graph.nodeCount() == 0 ? 0 : count + 1;
+    }
+
+    //外存构建有向图：二元组分段排序后写入临时文件再归并，堆内存只需容纳词表与最终的图
+    static DirectedGraph buildGraphFromFileExternal(String filename, int bufferPairs) throws IOException {
+        checkSafePath(filename);
+        GraphMetrics.Timer timer = GraphMetrics.start(GraphMetrics.Operation.BUILD);
+        DirectedGraph graph = DirectedGraph.thaw(ExternalGraphBuilder.build(Paths.get(filename), bufferPairs, null));
+        long words = graph.wordCount();
+        logBuild(filename, timer.stop(filename, words), words);
+        return graph;
+    }
+
+    //近似建图：边权由 count-min sketch 估计，只保留重边，堆内存主要由 sketch 大小与重边上限决定
+    static DirectedGraph buildGraphFromFileSketch(String filename, SketchGraphBuilder builder, WordDictionary dictionary)
+            throws IOException {
+        checkSafePath(filename);
+        GraphMetrics.Timer timer = GraphMetrics.start(GraphMetrics.Operation.BUILD);
+        StreamingTokenizer.tokenizeFile(Paths.get(filename), dictionary, builder);
+        DirectedGraph graph = DirectedGraph.thaw(builder.build());
+        logBuild(filename, timer.stop(filename, builder.totalCount()), builder.totalCount());
+        LOGGER.fine(builder::errorBounds);
+        return graph;
+    }
+
+    //按选项创建近似建图器：width/depth 直接给出 sketch 大小，或由 epsilon/delta 换算
+    static SketchGraphBuilder sketchBuilder(WordDictionary dictionary, Map<String, String> options) {
+        int width = options.containsKey("epsilon")
+                ? SketchGraphBuilder.widthFor(Double.parseDouble(options.get("epsilon")))
+                : Integer.parseInt(options.getOrDefault("width", String.valueOf(SketchGraphBuilder.DEFAULT_WIDTH)));
+        int depth = options.containsKey("delta")
+                ? SketchGraphBuilder.depthFor(Double.parseDouble(options.get("delta")))
+                : Integer.parseInt(options.getOrDefault("depth", String.valueOf(SketchGraphBuilder.DEFAULT_DEPTH)));
+        return new SketchGraphBuilder(dictionary, width, depth,
+                Integer.parseInt(options.getOrDefault("threshold", String.valueOf(SketchGraphBuilder.DEFAULT_THRESHOLD))),
+                Integer.parseInt(options.getOrDefault("topk", String.valueOf(Integer.MAX_VALUE))),
+                Integer.parseInt(options.getOrDefault("maxedges", String.valueOf(SketchGraphBuilder.DEFAULT_MAX_EDGES))));
+    }
+
+    //多文件导入：目录或通配符（可含 .gz 文件），读取解压、分词与汇总在有界流水线上并行进行
+    static CsrGraph buildGraphFromCorpus(String input) throws IOException {
+        checkSafePath(input);
+        GraphMetrics.Timer timer = GraphMetrics.start(GraphMetrics.Operation.BUILD);
+        CsrGraph graph = new CorpusIngestor().ingest(input);
+        long words = wordCount(graph);
+        logBuild(input, timer.stop(input, words), words);
+        return graph;
+    }
+
+    //按输入类型加载图：快照文件直接加载，目录、通配符或 .gz 走多文件导入，其余为单个语料文件
+    static DirectedGraph loadGraph(String path) throws IOException {
+        if (path.endsWith(".tgs")) {
+            return DirectedGraph.thaw(loadSnapshot(path));
+        }
+        return CorpusIngestor.isCorpus(path) ? DirectedGraph.thaw(buildGraphFromCorpus(path)) : loadOrBuildGraph(path);
+    }
+
+    //同 loadGraph，但只需要只读查询时直接返回冻结图，快照不再还原为可变图
+    static CsrGraph loadFrozenGraph(String path) throws IOException {
+        if (path.endsWith(".tgs")) {
+            return loadSnapshot(path);
+        }
+        if (CorpusIngestor.isCorpus(path)) {
+            return buildGraphFromCorpus(path);
+        }
+        checkSafePath(path);
+        CsrGraph graph = loadFreshSnapshot(path);
+        if (graph == null) {
+            graph = buildFrozenGraphFromFile(path);
+            trySaveSnapshot(graph, path);
+        }
         return graph;
     }
 
+    //优先加载语料旁的快照（<语料>.tgs），快照不存在或与语料不符时重新构建并保存快照
+    static DirectedGraph loadOrBuildGraph(String filename) throws IOException {
+        checkSafePath(filename);
+        CsrGraph frozen = loadFreshSnapshot(filename);
+        if (frozen == null) {
+            frozen = buildFrozenGraphFromFile(filename);
+            trySaveSnapshot(frozen, filename);
+        }
+        return DirectedGraph.thaw(frozen);
+    }
+
+    //加载语料旁与语料相符的快照；快照不存在、过期或无法读取时返回 null
+    private static CsrGraph loadFreshSnapshot(String filename) throws IOException {
+        Path snapshot = Paths.get(filename + ".tgs");
+        if (GraphSnapshot.isStale(snapshot, Paths.get(filename))) {
+            return null;
+        }
+        try {
+            return GraphSnapshot.load(snapshot, true).graph;
+        } catch (IOException e) {
+            System.err.println("Ignoring unreadable snapshot: " + e.getMessage());
+            return null;
+        }
+    }
+
+    //保存语料旁的快照；写入失败（如目录只读）时只给出提示，图照常使用
+    private static void trySaveSnapshot(CsrGraph graph, String filename) {
+        try {
+            saveSnapshot(graph, Paths.get(filename), Paths.get(filename + ".tgs"));
+        } catch (IOException e) {
+            System.err.println("Failed to save snapshot, continuing without it: " + e.getMessage());
+        }
+    }
+
+    //直接加载快照文件
+    static CsrGraph loadSnapshot(String filename) throws IOException {
+        checkSafePath(filename);
+        return GraphSnapshot.load(Paths.get(filename), true).graph;
+    }
+
+    //保存快照（附带 PageRank，计算结果同时留在图上供之后的查询复用）
+    static void saveSnapshot(CsrGraph graph, Path corpus, Path snapshot) throws IOException {
+        pageRankValues(graph, 0.85, 1e-6);
+        GraphSnapshot.save(graph, corpus, snapshot);
+    }
+
     //查询桥接词
     static String queryBridgeWords(DirectedGraph graph, String word1, String word2) {
-        Node n1 = graph.getNode(word1);
-        Node n2 = graph.getNode(word2);
-        if (n1 == null) {
-            if (n2 == null) {
+        return queryBridgeWords(graph.freeze(), word1, word2);
+    }
+
+    //查询桥接词（CSR 图）
+    static String queryBridgeWords(CsrGraph graph, String word1, String word2) {
+        GraphMetrics.Timer timer = GraphMetrics.start(GraphMetrics.Operation.BRIDGE);
+        int n1 = graph.id(word1);
+        int n2 = graph.id(word2);
+        List<String> bridges = n1 >= 0 && n2 >= 0 ? bridgeWords(graph, n1, n2) : List.of();
+        timer.stop(word1, word2, bridges.size());
+        if (n1 < 0) {
+            if (n2 < 0) {
                 return "No " + word1 + " and " + word2 + " in the graph!";
             } else {
                 return "No " + word1 + " in the graph!";
             }
-        } else if (n2 == null) {
+        } else if (n2 < 0) {
             return "No " + word2 + " in the graph!";
         }
-        List<String> bridges = new ArrayList<>();
-        for (Node mid : n1.edges.keySet()) {
-            if (mid.edges.containsKey(n2)) {
-                bridges.add(mid.word);
-            }
-        }
         if (bridges.isEmpty()) {
             return "No bridge words from " + word1 + " to " + word2 + "!";
         }
         return "The bridge words from " + word1 + " to " + word2 + " is/are: " + String.join(", ", bridges) + ".";
     }
 
+    //所有满足 from -> mid -> to 的中间单词
+    static List<String> bridgeWords(CsrGraph graph, int from, int to) {
+        int[] bridges = graph.bridgeIndex().bridges(from, to);
+        List<String> words = new ArrayList<>(bridges.length);
+        for (int mid : bridges) {
+            words.add(graph.words[mid]);
+        }
+        return words;
+    }
+
+    //批量查询桥接词：pairs 中每项为 {word1, word2}，并行计算，结果与输入顺序一一对应
+    static List<String> queryBridgeWordsBatch(CsrGraph graph, List<String[]> pairs) {
+        String[] results = new String[pairs.size()];
+        IntStream.range(0, pairs.size()).parallel()
+                .forEach(i -> results[i] = queryBridgeWords(graph, pairs.get(i)[0], pairs.get(i)[1]));
+        return Arrays.asList(results);
+    }
+
     //根据输入文本和桥接词生成扩展文本
     static String generateNewText(DirectedGraph graph, String inputText) {
+        return generateNewText(graph.freeze(), inputText);
+    }
+
+    static String generateNewText(CsrGraph graph, String inputText) {
+        GraphMetrics.Timer timer = GraphMetrics.start(GraphMetrics.Operation.NEW_TEXT);
         List<String> words = cleanWords(inputText);
         List<String> result = new ArrayList<>();
         for (int i = 0; i < words.size() - 1; i++) {
             result.add(words.get(i));
-            Node from = graph.getNode(words.get(i));
-            Node to = graph.getNode(words.get(i + 1));
-            if (from != null && to != null) {
-                List<String> bridges = new ArrayList<>();
-                for (Node mid : from.edges.keySet()) {
-                    if (mid.edges.containsKey(to)) {
-                        bridges.add(mid.word);
-                    }
-                }
-                if (!bridges.isEmpty()) {
-                    result.add(bridges.get(SECURE_RANDOM.nextInt(bridges.size())));
+            int from = graph.id(words.get(i));
+            int to = graph.id(words.get(i + 1));
+            if (from >= 0 && to >= 0) {
+                int[] bridges = graph.bridgeIndex().bridges(from, to);
+                if (bridges.length > 0) {
+                    result.add(graph.words[bridges[SECURE_RANDOM.nextInt(bridges.length)]]);
                 }
             }
         }
         //补上最后一个单词，并合并文本
         result.add(words.get(words.size() - 1));
+        timer.stop(words.size(), "input words", result.size());
         return String.join(" ", result);
     }
 
+    //批量扩展文本：input 为文件时逐行扩展，为目录时每个文件作为一个文档，结果按顺序写入 output
+    static void generateNewTextBulk(CsrGraph graph, String input, String output) throws IOException {
+        checkSafePath(input);
+        checkSafePath(output);
+        TextEnricher enricher = new TextEnricher(graph, SECURE_RANDOM.nextLong());
+        int threads = Runtime.getRuntime().availableProcessors();
+        if (Files.isDirectory(Paths.get(input))) {
+            enricher.enrichDirectory(Paths.get(input), Paths.get(output), threads);
+        } else {
+            enricher.enrichFile(Paths.get(input), Paths.get(output), threads);
+        }
+    }
+
     //查询两词间最短路径
     static String calcShortestPath(DirectedGraph graph, String start, String end) {
-        Node source = null;
-        Node target = null;
+        return calcShortestPath(graph.freeze(), start, end);
+    }
+
+    //使用图共享的最短路径引擎，搜索方式见 configureShortestPaths
+    static String calcShortestPath(CsrGraph graph, String start, String end) {
+        return calcShortestPath(graph.shortestPaths(), start, end);
+    }
+
+    //按选项设置图共享引擎的两词查询方式：mode=dijkstra|bidirectional|alt，
+    //ALT 另可指定 landmarks=<地标数> 与 strategy=random|highest_degree|farthest；返回所用方式的说明（含地标构建耗时）
+    static String configureShortestPaths(CsrGraph graph, Map<String, String> options) {
+        ShortestPathEngine engine = graph.shortestPaths();
+        ShortestPathEngine.Mode mode = ShortestPathEngine.Mode.valueOf(options.getOrDefault("mode", "dijkstra").toUpperCase());
+        if (mode == ShortestPathEngine.Mode.ALT) {
+            int count = Integer.parseInt(options.getOrDefault("landmarks", String.valueOf(LandmarkIndex.DEFAULT_COUNT)));
+            LandmarkIndex.Strategy strategy = LandmarkIndex.Strategy.valueOf(options.getOrDefault("strategy", "farthest").toUpperCase());
+            LandmarkIndex index = LandmarkIndex.build(graph, count, strategy, SECURE_RANDOM.nextLong());
+            engine.setLandmarks(index);
+            engine.setMode(mode);
+            return String.format("Shortest paths: ALT with %d %s landmarks (built in %d ms)",
+                    index.landmarks.length, index.strategy, index.buildMillis);
+        }
+        engine.setMode(mode);
+        return "Shortest paths: " + mode;
+    }
+
+    static String calcShortestPath(ShortestPathEngine engine, String start, String end) {
+        CsrGraph graph = engine.graph();
+        int source = -1;
+        int target = -1;
         if (start == null) {
             return "Start word is NULL";
         } else {
-            source = graph.getNode(start);
+            source = graph.id(start);
         }
 
         if (end != null) {
-            target = graph.getNode(end);
+            target = graph.id(end);
         }
 
 
-        if (source == null) {
+        if (source < 0) {
             if (end == null) {
                 return "Start word is not in graph and end word is null.";
-            } else if (target == null) {
+            } else if (target < 0) {
                 return "Start word and end word are not in graph.";
             } else {
                     return "Start word is not in graph.";
@@ -236,155 +544,143 @@ public class TextGraphApp {
 
         // 单词到所有节点的最短路径
         if (end == null || end.isEmpty()) {
-            Map<Node, Integer> dist = new HashMap<>();
-            Map<Node, Node> prev = new HashMap<>();
-            PriorityQueue<Node> queue = new PriorityQueue<>(Comparator.comparingInt(dist::get));
-            for (Node node : graph.nodes.values()) {
-                dist.put(node, Integer.MAX_VALUE);
-            }
-            dist.put(source, 0);
-            queue.add(source);
-
-            while (!queue.isEmpty()) {
-                Node u = queue.poll();
-                for (Map.Entry<Node, Integer> entry : u.edges.entrySet()) {
-                    Node v = entry.getKey();
-                    int alt = dist.get(u) + entry.getValue();
-                    if (alt < dist.get(v)) {
-                        dist.put(v, alt);
-                        prev.put(v, u);
-                        queue.remove(v);
-                        queue.add(v);
-                    }
-                }
-            }
+            GraphMetrics.Timer timer = GraphMetrics.start(GraphMetrics.Operation.SHORTEST_PATH);
+            ShortestPathEngine.Tree tree = engine.singleSource(source);
+            timer.stop(start, tree.settled);
+            int[] dist = tree.dist;
 
             StringBuilder result = new StringBuilder("Shortest paths from \"" + start + "\":\n");
-            for (Node node : graph.nodes.values()) {
+            for (int node = 0; node < graph.nodeCount(); node++) {
                 if (node == source) {
                     continue;
                 }
-                if (dist.get(node) == Integer.MAX_VALUE) {
-                    result.append("No path to ").append(node.word).append(".\n");
+                if (dist[node] == ShortestPathEngine.INFINITY) {
+                    result.append("No path to ").append(graph.words[node]).append(".\n");
                 } else {
-                    List<String> path = new ArrayList<>();
-                    for (Node at = node; at != null; at = prev.get(at)) {
-                        path.add(at.word);
-                    }
-                    Collections.reverse(path);
-                    result.append("To ").append(node.word)
-                            .append(": ").append(String.join(" -> ", path))
-                            .append(" (length: ").append(dist.get(node)).append(")\n");
+                    result.append("To ").append(graph.words[node])
+                            .append(": ").append(String.join(" -> ", pathTo(graph, tree.prev, node)))
+                            .append(" (length: ").append(dist[node]).append(")\n");
                 }
             }
             return result.toString();
         }
 
         // 起点和终点都存在时，执行原有路径计算逻辑
-        if (target == null) {
+        if (target < 0) {
             return "End word is not in graph.";
         }
 
-        Map<Node, Integer> dist = new HashMap<>();
-        Map<Node, Node> prev = new HashMap<>();
-        PriorityQueue<Node> queue = new PriorityQueue<>(Comparator.comparingInt(dist::get));
-        for (Node node : graph.nodes.values()) {
-            dist.put(node, Integer.MAX_VALUE);
-        }
-        dist.put(source, 0);
-        queue.add(source);
-
-        while (!queue.isEmpty()) {
-            Node u = queue.poll();
-            for (Map.Entry<Node, Integer> entry : u.edges.entrySet()) {
-                Node v = entry.getKey();
-                int alt = dist.get(u) + entry.getValue();
-                if (alt < dist.get(v)) {
-                    dist.put(v, alt);
-                    prev.put(v, u);
-                    queue.remove(v);
-                    queue.add(v);
-                }
-            }
-        }
-
-        if (!dist.containsKey(target) || dist.get(target) == Integer.MAX_VALUE) {
+        GraphMetrics.Timer timer = GraphMetrics.start(GraphMetrics.Operation.SHORTEST_PATH);
+        ShortestPathEngine.Path path = engine.pointToPoint(source, target);
+        timer.stop(start, end, path.settled);
+        if (!path.exists()) {
             return "No path from " + start + " to " + end + ".";
         }
+        List<String> words = new ArrayList<>(path.nodes.length);
+        for (int node : path.nodes) {
+            words.add(graph.words[node]);
+        }
+        return "Shortest path: " + String.join(" -> ", words) + " (length: " + path.length + ")";
+    }
 
+    //沿前驱回溯出从起点到 node 的路径
+    static List<String> pathTo(CsrGraph graph, int[] prev, int node) {
         List<String> path = new ArrayList<>();
-        for (Node at = target; at != null; at = prev.get(at)) {
-            path.add(at.word);
+        for (int at = node; at >= 0; at = prev[at]) {
+            path.add(graph.words[at]);
         }
         Collections.reverse(path);
-        return "Shortest path: " + String.join(" -> ", path) + " (length: " + dist.get(target) + ")";
+        return path;
     }
 
 
     //计算PageRank
     static Map<String, Double> calcPageRank(DirectedGraph graph, double d, double epsilon) {
-        Map<String, Double> pr = new HashMap<>();
-        int nodeCount = graph.nodes.size();
-        //int N = graph.nodes.size();
-        for (String node : graph.nodes.keySet()) {
-            pr.put(node, 1.0 / nodeCount);
-        }
-
-        boolean converged = false;
-        while (!converged) {
-            Map<String, Double> newPr = new HashMap<>();
-            double danglingPR = 0;
-
-            // 收集所有出度为0节点的总贡献
-            for (String node : graph.nodes.keySet()) {
-                if (graph.getNode(node).edges.isEmpty()) {
-                    danglingPR += pr.get(node);
-                }
-            }
-            double distributedDanglingPR = danglingPR / nodeCount;
-
-            double maxDiff = 0;  // 最大变化量
-            for (String u : graph.nodes.keySet()) {
-                double sum = 0;
-                for (Node v : graph.nodes.values()) {
-                    if (v.edges.containsKey(graph.getNode(u))) {
-                        sum += pr.get(v.word) / v.edges.size();
-                    }
-                }
-                double newVal = (1 - d) / nodeCount + d * (sum + distributedDanglingPR);
-                newPr.put(u, newVal);
-                maxDiff = Math.max(maxDiff, Math.abs(newVal - pr.get(u)));
-            }
+        return calcPageRank(graph.freeze(), d, epsilon);
+    }
+
+    //稀疏并行引擎：反向邻接 + double[] 迭代，每轮 O(N + E)
+    static Map<String, Double> calcPageRank(CsrGraph graph, double d, double epsilon) {
+        return toRankMap(graph, pageRankValues(graph, d, epsilon));
+    }
+
+    //编号索引的 PR 向量：图上已有同一阻尼系数、收敛阈值不更宽松的结果（如随快照加载）时直接复用，否则计算后保存在图上
+    static double[] pageRankValues(CsrGraph graph, double d, double epsilon) {
+        double[] ranks = graph.storedPageRank(d, epsilon);
+        if (ranks != null) {
+            return ranks;
+        }
+        GraphMetrics.Timer timer = GraphMetrics.start(GraphMetrics.Operation.PAGE_RANK);
+        PageRankEngine.Result result = new PageRankEngine(graph).compute(d, epsilon);
+        timer.stop(graph.nodeCount(), "nodes", result.iterations);
+        graph.storePageRank(d, epsilon, result.ranks);
+        return result.ranks;
+    }
+
+    //近似 PageRank 的 Top-K：seeds 为空时为全局 PR，否则为以这些单词为起点的个性化 PR；结果按 PR 降序
+    static Map<String, Double> calcPageRankTopK(CsrGraph graph, List<String> seeds, int k, double d) {
+        int[] seedIds = seeds == null || seeds.isEmpty() ? null : MonteCarloPageRank.seedIds(graph, seeds);
+        MonteCarloPageRank.Result result = graph.monteCarloPageRank(d)
+                .topK(seedIds, k, MonteCarloPageRank.DEFAULT_MAX_WALKS, SECURE_RANDOM.nextLong());
+        Map<String, Double> top = new LinkedHashMap<>();
+        for (int i = 0; i < result.top.length; i++) {
+            top.put(graph.words[result.top[i]], result.scores[i]);
+        }
+        return top;
+    }
 
-            pr = newPr;
-            converged = maxDiff < epsilon;
+    //编号索引的 PR 向量转换为 单词 -> PR 值
+    static Map<String, Double> toRankMap(CsrGraph graph, double[] pr) {
+        Map<String, Double> result = new HashMap<>(graph.nodeCount() * 2);
+        for (int u = 0; u < graph.nodeCount(); u++) {
+            result.put(graph.words[u], pr[u]);
         }
-        return pr;
+        return result;
     }
 
 
     //在图上随机游走
     static List<String> randomWalk(DirectedGraph graph, boolean stepByStep) {
+        return randomWalk(graph.freeze(), stepByStep);
+    }
+
+    static List<String> randomWalk(CsrGraph graph, boolean stepByStep) {
+        List<String> walk = walk(graph, stepByStep ? new Scanner(System.in, StandardCharsets.UTF_8.name()) : null);
+
+        // 最终 walk 打印
+        System.out.println("Random walk finished:");
+        System.out.println(String.join(" -> ", walk));
+
+        // 写入文件
+        try {
+            Files.write(Paths.get("random_walk.txt"), String.join(" ", walk).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            System.err.println("Failed to write walk to file.");
+        }
+
+        return walk;
+    }
+
+    //游走本身，不打印结果也不写文件；scanner 不为 null 时每走一步询问是否继续
+    static List<String> walk(CsrGraph graph, Scanner scanner) {
+        boolean stepByStep = scanner != null;
+        GraphMetrics.Timer timer = GraphMetrics.start(GraphMetrics.Operation.RANDOM_WALK);
         List<String> walk = new ArrayList<>();
-        List<Node> nodeList = new ArrayList<>(graph.nodes.values());
-        Node current = nodeList.get(SECURE_RANDOM.nextInt(nodeList.size())); //随机选择起点
-        Set<String> visitedEdges = new HashSet<>();
+        int current = SECURE_RANDOM.nextInt(graph.nodeCount()); //随机选择起点
+        BitSet visitedEdges = new BitSet(graph.edgeCount());  //已走过的边，按边在 CSR 中的下标记录
 
-        walk.add(current.word);
-        Scanner scanner = new Scanner(System.in, StandardCharsets.UTF_8.name());
+        walk.add(graph.words[current]);
 
 
-        while (!current.edges.isEmpty()) {
-            List<Node> neighbors = new ArrayList<>(current.edges.keySet());
-            Node next = neighbors.get(SECURE_RANDOM.nextInt(neighbors.size()));  //每次随机选择一个邻居继续走
-            String edgeKey = current.word + "->" + next.word;
-            if (visitedEdges.contains(edgeKey)) {
+        while (graph.outDegree(current) > 0) {
+            int edge = graph.offsets[current] + SECURE_RANDOM.nextInt(graph.outDegree(current));  //每次随机选择一个邻居继续走
+            if (visitedEdges.get(edge)) {
                 break;
             }
-            visitedEdges.add(edgeKey);
+            visitedEdges.set(edge);
 
-            current = next;
-            walk.add(current.word);
+            current = graph.targets[edge];
+            walk.add(graph.words[current]);
 
             // 如果是 step-by-step 模式，每次询问
             if (stepByStep) {
@@ -397,34 +693,233 @@ public class TextGraphApp {
             }
         }
 
-        // 最终 walk 打印
-        System.out.println("Random walk finished:");
-        System.out.println(String.join(" -> ", walk));
+        timer.stop(stepByStep ? "step-by-step" : "automatic", walk.size() - 1);
+        return walk;
+    }
 
-        // 写入文件
-        try {
-            Files.write(Paths.get("random_walk.txt"), String.join(" ", walk).getBytes(StandardCharsets.UTF_8));
-        } catch (IOException e) {
-            System.err.println("Failed to write walk to file.");
+    //批量生成随机游走语料：count 条游走并行生成后按顺序写入 output，weighted 表示按边出现次数加权
+    static void randomWalkBulk(CsrGraph graph, long count, String output, boolean weighted) throws IOException {
+        checkSafePath(output);
+        new RandomWalkEngine(graph).generate(count, Paths.get(output), weighted, Integer.MAX_VALUE,
+                SECURE_RANDOM.nextLong(), Runtime.getRuntime().availableProcessors());
+    }
+
+
+
+    //解析 args[from..] 中的 key=value 选项
+    //开头不含 '=' 的位置参数个数，其后为 key=value 选项
+    static int positionalCount(String[] args) {
+        int count = 0;
+        while (count < args.length && args[count].indexOf('=') < 0) {
+            count++;
         }
+        return count;
+    }
 
-        return walk;
+    static Map<String, String> parseOptions(String[] args, int from) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = from; i < args.length; i++) {
+            int eq = args[i].indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Expected key=value: " + args[i]);
+            }
+            options.put(args[i].substring(0, eq), args[i].substring(eq + 1));
+        }
+        return options;
     }
 
+    //按选项排序、过滤、分页导出边列表
+    static void exportEdges(String[] args) throws IOException {
+        checkSafePath(args[2]);
+        Map<String, String> options = parseOptions(args, 3);
+        EdgeLister lister = new EdgeLister();
+        lister.setOrder(EdgeLister.Order.valueOf(options.getOrDefault("order", "none").toUpperCase()));
+        lister.setMinWeight(Integer.parseInt(options.getOrDefault("min", "1")));
+        lister.setFrom(options.get("from"));
+        lister.setTo(options.get("to"));
+        lister.setPage(Long.parseLong(options.getOrDefault("offset", "0")),
+                Long.parseLong(options.getOrDefault("limit", String.valueOf(Long.MAX_VALUE))));
+        DirectedGraph graph = loadGraph(args[1]);
+        graph.showDirectedGraph(lister, Paths.get(args[2]), Boolean.parseBoolean(options.getOrDefault("echo", "false")));
+    }
 
+    //按选项裁剪后流式导出 DOT 文件，可选地渲染为图片
+    static void exportDot(String[] args) throws IOException {
+        checkSafePath(args[2]);
+        DotExporter exporter = new DotExporter();
+        Map<String, String> options = parseOptions(args, 3);
+        if (options.containsKey("min")) {
+            exporter.setMinWeight(Integer.parseInt(options.get("min")));
+        }
+        if (options.containsKey("top")) {
+            exporter.setTopN(Integer.parseInt(options.get("top")),
+                    DotExporter.Rank.valueOf(options.getOrDefault("rank", "degree").toUpperCase()));
+        }
+        if (options.containsKey("around")) {
+            exporter.setFocus(options.get("around"), Integer.parseInt(options.getOrDefault("hops", "1")));
+        }
+        long edges = exporter.writeTo(loadFrozenGraph(args[1]), Paths.get(args[2]));
+        System.out.println("Wrote " + edges + " edges to " + args[2]);
+        String image = options.get("image");
+        if (image != null) {
+            checkSafePath(image);
+            Duration timeout = options.containsKey("timeout")
+                    ? Duration.ofSeconds(Long.parseLong(options.get("timeout"))) : DotExporter.DEFAULT_RENDER_TIMEOUT;
+            String format = FilenameUtils.getExtension(image);
+            try {
+                exporter.render(Paths.get(args[2]), Paths.get(image), format.isEmpty() ? "png" : format, timeout).get();
+                System.out.println("Graph image exported to: " + image);
+            } catch (ExecutionException e) {
+                System.err.println("Failed to export graph image: " + e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    //加载一次图，并行执行查询文件中的全部查询，结果按顺序写入输出文件
+    static void runBatch(String[] args) throws IOException {
+        checkSafePath(args[2]);
+        checkSafePath(args[3]);
+        int positional = positionalCount(args);
+        CsrGraph graph = loadFrozenGraph(args[1]);
+        System.out.println(configureShortestPaths(graph, parseOptions(args, positional)));
+        int threads = positional > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+        long start = System.nanoTime();
+        long count = new BatchQueryRunner(new GraphQueryService(graph))
+                .run(Paths.get(args[2]), Paths.get(args[3]), threads);
+        System.out.printf("Ran %d queries in %.1f ms, results written to %s%n",
+                count, (System.nanoTime() - start) / 1e6, args[3]);
+        System.out.println("Path tree cache: " + graph.shortestPaths().cacheStats());
+    }
+
+    //加载一次图，在本机端口上提供查询服务，直到进程结束
+    //ingest=true 时图可以继续增长：标准输入的每一行作为一段新文本写入 ConcurrentGraph，
+    //每隔 publish 毫秒（默认 1000）发布一次快照，查询总是读最近发布的快照
+    static void serve(String[] args) throws IOException {
+        int positional = positionalCount(args);
+        Map<String, String> options = parseOptions(args, positional);
+        boolean ingest = Boolean.parseBoolean(options.remove("ingest"));
+        String publishMillis = options.remove("publish");
+        CsrGraph graph = loadFrozenGraph(args[1]);
+        ConcurrentGraph live = null;
+        GraphQueryService service;
+        if (ingest) {
+            //每次发布都是新图，地标等按图构建的加速结构无法沿用
+            if (!options.isEmpty()) {
+                throw new IllegalArgumentException("Shortest-path options cannot be combined with ingest=true");
+            }
+            live = new ConcurrentGraph(graph);
+            live.startPublishing(publishMillis == null ? 1000 : Long.parseLong(publishMillis));
+            service = new GraphQueryService(live::snapshot);
+        } else {
+            System.out.println(configureShortestPaths(graph, options));
+            service = new GraphQueryService(graph);
+        }
+        int maxConcurrent = positional > 3 ? Integer.parseInt(args[3]) : GraphQueryServer.DEFAULT_MAX_CONCURRENT;
+        Duration timeout = positional > 4 ? Duration.ofMillis(Long.parseLong(args[4])) : GraphQueryServer.DEFAULT_TIMEOUT;
+        GraphQueryServer server = new GraphQueryServer(service::execute, Integer.parseInt(args[2]), maxConcurrent, timeout);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            //只在引擎已经建立时报告，关闭时不为统计而构建引擎与可达性索引
+            ShortestPathEngine engine = service.graph().shortestPathsIfPresent();
+            if (engine != null) {
+                System.out.println("Path tree cache: " + engine.cacheStats());
+            }
+            try {
+                server.close();
+            } catch (IOException e) {
+                System.err.println("Failed to stop server: " + e.getMessage());
+            }
+        }));
+        server.start();
+        System.out.println("Serving " + args[1] + " on port " + server.port());
+        if (live != null) {
+            System.out.println("Reading text to ingest from standard input, one document per line");
+            ingestLines(live, new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)));
+        }
+    }
+
+    //逐行写入可并发增长的图（各行之间不相连），输入结束后停止定时发布并发布剩余的写入
+    static void ingestLines(ConcurrentGraph live, BufferedReader in) throws IOException {
+        try (live) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                live.append(line);
+            }
+        }
+    }
 
     //主程序（功能询问+结果展示）
     public static void main(String[] args) throws IOException {
-        Graphviz.useEngine(new GraphvizCmdLineEngine()); // 调用外部库绘图
+        // 非交互模式：--enrich <语料文件> <输入文件或目录> <输出文件>
+        if (args.length == 4 && args[0].equals("--enrich")) {
+            generateNewTextBulk(buildFrozenGraphFromFile(args[1]), args[2], args[3]);
+            return;
+        }
+        // 非交互模式：--snapshot <语料文件> <快照文件>
+        if (args.length == 3 && args[0].equals("--snapshot")) {
+            checkSafePath(args[2]);
+            saveSnapshot(buildFrozenGraphFromFile(args[1]), Paths.get(args[1]), Paths.get(args[2]));
+            return;
+        }
+        // 非交互模式：--external <语料文件> <快照文件> [缓冲编号对数]，外存建图，归并结果直接流式写成快照（不含 PageRank）
+        if ((args.length == 3 || args.length == 4) && args[0].equals("--external")) {
+            checkSafePath(args[1]);
+            checkSafePath(args[2]);
+            int bufferPairs = args.length > 3 ? Integer.parseInt(args[3]) : ExternalGraphBuilder.DEFAULT_BUFFER_PAIRS;
+            ExternalGraphBuilder.buildSnapshot(Paths.get(args[1]), bufferPairs, null, Paths.get(args[2]));
+            return;
+        }
+        // 非交互模式：--sketch <语料文件> <快照文件> [width=<列数>|epsilon=<ε>] [depth=<行数>|delta=<δ>]
+        //             [threshold=<重边阈值>] [topk=<每个节点保留的边数>] [maxedges=<重边上限>]，近似建图后保存为快照
+        if (args.length >= 3 && args[0].equals("--sketch")) {
+            checkSafePath(args[2]);
+            WordDictionary dictionary = new WordDictionary();
+            SketchGraphBuilder builder = sketchBuilder(dictionary, parseOptions(args, 3));
+            DirectedGraph graph = buildGraphFromFileSketch(args[1], builder, dictionary);
+            saveSnapshot(graph.freeze(), Paths.get(args[1]), Paths.get(args[2]));
+            System.out.println(builder.errorBounds());
+            return;
+        }
+        // 非交互模式：--walks <语料文件> <游走条数> <输出文件>
+        if (args.length == 4 && args[0].equals("--walks")) {
+            randomWalkBulk(buildFrozenGraphFromFile(args[1]), Long.parseLong(args[2]), args[3], true);
+            return;
+        }
+        // 以下各模式与交互模式中的语料也可以是目录、通配符（如 shards/*.gz）或 .gz 文件，见 loadGraph
+        // 批量查询与服务器模式末尾可加最短路径选项：[mode=dijkstra|bidirectional|alt] [landmarks=<地标数>]
+        //                                             [strategy=random|highest_degree|farthest]，见 configureShortestPaths
+        // 批量查询：--batch <语料或快照文件> <查询文件> <输出文件> [线程数]
+        if ((positionalCount(args) == 4 || positionalCount(args) == 5) && args[0].equals("--batch")) {
+            runBatch(args);
+            return;
+        }
+        // 服务器模式：--serve <语料或快照文件> <端口> [最大并发查询数] [超时毫秒] [ingest=true [publish=<毫秒>]]
+        if (positionalCount(args) >= 3 && positionalCount(args) <= 5 && args[0].equals("--serve")) {
+            serve(args);
+            return;
+        }
+        // 非交互模式：--edges <语料文件> <输出文件> [order=none|weight|alpha] [min=<最小边权>] [from=<起点>] [to=<终点>]
+        //             [offset=<跳过条数>] [limit=<最多条数>] [echo=true|false]
+        if (args.length >= 3 && args[0].equals("--edges")) {
+            exportEdges(args);
+            return;
+        }
+        // 非交互模式：--dot <语料文件> <输出.dot> [min=<最小边权>] [top=<节点数>] [rank=degree|pagerank]
+        //             [around=<中心单词>] [hops=<跳数>] [image=<图片文件>] [timeout=<秒>]
+        if (args.length >= 3 && args[0].equals("--dot")) {
+            exportDot(args);
+            return;
+        }
         Scanner scanner = new Scanner(System.in, StandardCharsets.UTF_8.name());
         System.out.print("Enter the file path: ");
         String path = scanner.nextLine();
-        DirectedGraph graph = buildGraphFromFile(path);
+        DirectedGraph graph = loadGraph(path);
         System.out.print("是否绘制有向图？(y/n): ");
         String drawChoice = scanner.nextLine().trim().toLowerCase();
         if (drawChoice.equals("y") || drawChoice.equals("yes")) {
             graph.exportGraphToImage("graph.png");
-            System.out.println("图已绘制并保存为 graph.png");
+            System.out.println("图正在后台绘制，完成后保存为 graph.png");
             System.out.println("Graph built!");
         } else {
             System.out.println("跳过绘制图像。");
@@ -438,6 +933,7 @@ public class TextGraphApp {
             System.out.println("5. 计算PageRank");
             System.out.println("6. 随机游走");
             System.out.println("7. 退出");
+            System.out.println("8. 近似PageRank Top-K");
             String choice = scanner.nextLine();
 
             switch (choice) {
@@ -460,8 +956,8 @@ public class TextGraphApp {
                 case "3":
                     System.out.print("Enter new text: ");
                     String newText = scanner.nextLine();
-                    System.out.println(generateNewText(graph, newText));
                     String generated = generateNewText(graph, newText);
+                    System.out.println(generated);
                     try {
                         Files.write(Paths.get("new_text.txt"), generated.getBytes(StandardCharsets.UTF_8.name()));
                     } catch (IOException e) {
@@ -510,6 +1006,20 @@ public class TextGraphApp {
                 case "7":
                     System.out.println("Exiting...");
                     return;
+                case "8":
+                    System.out.print("Enter k: ");
+                    String kText = scanner.nextLine().trim();
+                    if (!kText.matches("[1-9][0-9]{0,8}")) {
+                        System.out.println("k must be a positive integer.");
+                        break;
+                    }
+                    int k = Integer.parseInt(kText);
+                    System.out.print("Enter seed words (leave empty for global PageRank): ");
+                    List<String> seeds = cleanWords(scanner.nextLine());
+                    for (Map.Entry<String, Double> entry : calcPageRankTopK(graph.freeze(), seeds, k, 0.85).entrySet()) {
+                        System.out.println(String.format("%s: %.6f", entry.getKey(), entry.getValue()));
+                    }
+                    break;
                 default:
                     System.out.println("Invalid option.");
             }
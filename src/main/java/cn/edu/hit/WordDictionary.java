@@ -0,0 +1,141 @@
+package cn.edu.hit;
+
+import java.util.Arrays;
+
+//单词字典：开放寻址（线性探测）散列表，把字符序列映射为从 0 开始的连续编号
+//查找直接比较调用方缓冲区里的字符，只有第一次见到的单词才创建 String，重复出现的单词不产生任何对象
+//非线程安全
+final class WordDictionary {
+    private static final int EMPTY = -1;
+
+    /**
+     * 槽位 -> 单词编号，EMPTY 表示空槽；长度为 2 的幂，装载率不超过 1/2。
+     */
+    private int[] table;
+
+    /**
+     * 编号 -> 单词。
+     */
+    private String[] words;
+
+    /**
+     * 编号 -> 散列值（扩容时不必重新计算）。
+     */
+    private int[] hashes;
+
+    private int size;
+
+    WordDictionary() {
+        this(1024);
+    }
+
+    WordDictionary(int expectedWords) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedWords * 2 - 1)) << 1;
+        table = new int[capacity];
+        Arrays.fill(table, EMPTY);
+        words = new String[Math.max(16, expectedWords)];
+        hashes = new int[words.length];
+    }
+
+    int size() {
+        return size;
+    }
+
+    String word(int id) {
+        return words[id];
+    }
+
+    //编号 -> 单词的数组（长度为 size）
+    String[] words() {
+        return Arrays.copyOf(words, size);
+    }
+
+    //buf[0..length) 对应的编号，不存在时分配新编号
+    int intern(char[] buf, int length) {
+        int hash = hash(buf, length);
+        int mask = table.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int id = table[slot];
+            if (id == EMPTY) {
+                return add(new String(buf, 0, length), hash, slot);
+            }
+            if (hashes[id] == hash && equals(words[id], buf, length)) {
+                return id;
+            }
+        }
+    }
+
+    //word 对应的编号，不存在时分配新编号并直接保存该 String（用于合并其他字典中已有的单词，不再复制字符）
+    int intern(String word) {
+        int hash = hash(word);
+        int mask = table.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int id = table[slot];
+            if (id == EMPTY) {
+                return add(word, hash, slot);
+            }
+            if (hashes[id] == hash && words[id].equals(word)) {
+                return id;
+            }
+        }
+    }
+
+    private int add(String word, int hash, int slot) {
+        if (size == words.length) {
+            words = Arrays.copyOf(words, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+        int id = size++;
+        words[id] = word;
+        hashes[id] = hash;
+        table[slot] = id;
+        if (2 * size > table.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    private void rehash() {
+        int[] bigger = new int[table.length * 2];
+        Arrays.fill(bigger, EMPTY);
+        int mask = bigger.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hashes[id] & mask;
+            while (bigger[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            bigger[slot] = id;
+        }
+        table = bigger;
+    }
+
+    private static boolean equals(String word, char[] buf, int length) {
+        if (word.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (word.charAt(i) != buf[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //FNV-1a，再打散高位以适应 2 的幂表长
+    private static int hash(char[] buf, int length) {
+        int h = 0x811C9DC5;
+        for (int i = 0; i < length; i++) {
+            h = (h ^ buf[i]) * 0x01000193;
+        }
+        return h ^ (h >>> 16);
+    }
+
+    //与 hash(char[], int) 相同的散列值
+    private static int hash(String word) {
+        int h = 0x811C9DC5;
+        for (int i = 0; i < word.length(); i++) {
+            h = (h ^ word.charAt(i)) * 0x01000193;
+        }
+        return h ^ (h >>> 16);
+    }
+}
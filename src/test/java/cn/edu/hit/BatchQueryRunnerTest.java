@@ -0,0 +1,95 @@
+package cn.edu.hit;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//批量查询测试
+class BatchQueryRunnerTest {
+
+    @Test
+    void testResultsInQueryOrder() throws IOException {
+        GraphQueryService service = new GraphQueryService(
+                TextGraphApp.buildGraphFromFile(GraphTestSupport.EASY_TEST).freeze());
+        String[] commands = {"bridge the it", "path the it", "newtext Seek to explore new life", "walk", "fly away"};
+        List<String> queries = new ArrayList<>();
+        queries.add("# nightly queries");
+        for (int i = 0; i < BatchQueryRunner.QUERIES_PER_TASK * 3 + 7; i++) {
+            queries.add(commands[i % commands.length]);
+            if (i % 10 == 0) {
+                queries.add("");
+            }
+        }
+        Path input = Files.createTempFile("queries", ".txt");
+        Path output = Files.createTempFile("results", ".tsv");
+        try {
+            Files.write(input, queries);
+            long count = new BatchQueryRunner(service).run(input, output, 4);
+            List<String> rows = Files.readAllLines(output);
+            assertEquals(BatchQueryRunner.HEADER.trim(), rows.get(0));
+            assertEquals(count + 1, rows.size());
+
+            int row = 1;
+            for (int line = 1; line <= queries.size(); line++) {
+                String query = queries.get(line - 1);
+                if (query.isEmpty() || query.startsWith("#")) {
+                    continue;
+                }
+                String[] columns = rows.get(row++).split("\t", -1);
+                assertEquals(5, columns.length);
+                assertEquals(String.valueOf(line), columns[0]);
+                assertTrue(Double.parseDouble(columns[1]) >= 0);
+                assertEquals(query, columns[3]);
+                if (query.startsWith("fly")) {
+                    assertEquals("ERROR", columns[2]);
+                    assertEquals("Unknown command: fly", columns[4]);
+                } else {
+                    assertEquals("OK", columns[2]);
+                }
+                if (query.startsWith("bridge") || query.startsWith("path")) {
+                    assertEquals(service.execute(query), columns[4]);
+                }
+            }
+            assertEquals(rows.size(), row);
+        } finally {
+            Files.deleteIfExists(input);
+            Files.deleteIfExists(output);
+        }
+        System.out.println("Test Case 1 Passed.");
+    }
+
+    @Test
+    void testMultiLineResultsAreEscaped() throws IOException {
+        BatchQueryRunner runner = new BatchQueryRunner(new GraphQueryService(
+                TextGraphApp.buildGraphFromFile(GraphTestSupport.EASY_TEST).freeze()));
+        String row = runner.row(3, "pagerank 2");
+        assertTrue(row.endsWith("\n"));
+        String[] columns = row.trim().split("\t");
+        assertEquals(2, columns[4].split("\\\\n").length);
+
+        //区域设置不影响耗时的格式
+        Locale locale = Locale.getDefault();
+        try {
+            Locale.setDefault(Locale.GERMANY);
+            assertTrue(runner.row(4, "walk").split("\t")[1].matches("\\d+\\.\\d{3}"));
+        } finally {
+            Locale.setDefault(locale);
+        }
+
+        //查询中的意外异常只让这一行失败
+        BatchQueryRunner failing = new BatchQueryRunner(new GraphQueryService(() -> {
+            throw new IllegalStateException("graph unavailable");
+        }));
+        String[] error = failing.row(5, "walk").trim().split("\t");
+        assertEquals("ERROR", error[2]);
+        assertEquals("java.lang.IllegalStateException: graph unavailable", error[4]);
+        System.out.println("Test Case 2 Passed.");
+    }
+}
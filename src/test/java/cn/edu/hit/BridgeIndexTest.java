@@ -0,0 +1,79 @@
+package cn.edu.hit;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//桥接词索引与批量查询测试
+class BridgeIndexTest {
+
+    @Test
+    void testBridgesMatchScan() {
+        CsrGraph graph = ShortestPathEngineTest.randomGraph(150, 3000, 9);
+        //阈值为 1 时所有词对都走物化缓存，与默认索引结果一致
+        BridgeIndex hubs = new BridgeIndex(graph, 1);
+        for (int a = 0; a < graph.nodeCount(); a++) {
+            for (int b = 0; b < graph.nodeCount(); b += 3) {
+                List<Integer> expected = new ArrayList<>();
+                for (int e = graph.offsets[a]; e < graph.offsets[a + 1]; e++) {
+                    if (graph.hasEdge(graph.targets[e], b)) {
+                        expected.add(graph.targets[e]);
+                    }
+                }
+                int[] actual = graph.bridgeIndex().bridges(a, b);
+                assertEquals(expected.size(), actual.length);
+                for (int i = 0; i < actual.length; i++) {
+                    assertEquals(expected.get(i), actual[i]);
+                }
+                assertArrayEquals(actual, hubs.bridges(a, b));
+            }
+        }
+        assertTrue(hubs.hubPairCount() > 0);
+        System.out.println("Test Case 1 Passed.");
+    }
+
+    @Test
+    void testBatchMatchesSingleQueries() throws IOException {
+        CsrGraph graph = TextGraphApp.buildGraphFromFile(GraphTestSupport.EASY_TEST).freeze();
+        String[] words = {"the", "so", "data", "it", "again", "good", "report", "scientist"};
+        Random random = new Random(1);
+        List<String[]> pairs = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            pairs.add(new String[]{words[random.nextInt(words.length)], words[random.nextInt(words.length)]});
+        }
+        List<String> results = TextGraphApp.queryBridgeWordsBatch(graph, pairs);
+        for (int i = 0; i < pairs.size(); i++) {
+            assertEquals(TextGraphApp.queryBridgeWords(graph, pairs.get(i)[0], pairs.get(i)[1]), results.get(i));
+        }
+        System.out.println("Test Case 2 Passed.");
+    }
+
+    @Test
+    void testHubCacheStaysWithinBudget() {
+        CsrGraph graph = ShortestPathEngineTest.randomGraph(150, 3000, 9);
+        long budget = 4096;
+        BridgeIndex hubs = new BridgeIndex(graph, 1, budget);
+        BridgeIndex unbounded = new BridgeIndex(graph, 1, Long.MAX_VALUE);
+        for (int a = 0; a < graph.nodeCount(); a++) {
+            for (int b = 0; b < graph.nodeCount(); b += 3) {
+                assertArrayEquals(unbounded.bridges(a, b), hubs.bridges(a, b));
+                assertTrue(hubs.hubPairBytes() <= budget);
+            }
+        }
+        assertTrue(hubs.hubPairCount() > 0);
+        assertTrue(hubs.hubPairCount() < unbounded.hubPairCount());
+
+        //继承时同样受上限约束
+        BridgeIndex next = new BridgeIndex(graph, 1, budget);
+        boolean[] none = new boolean[graph.nodeCount()];
+        next.inheritHubPairs(unbounded, none, none);
+        assertTrue(next.hubPairCount() > 0);
+        assertTrue(next.hubPairBytes() <= budget);
+        System.out.println("Test Case 3 Passed.");
+    }
+}
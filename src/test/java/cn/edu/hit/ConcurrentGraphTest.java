@@ -0,0 +1,121 @@
+package cn.edu.hit;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//并发写入与快照读取测试
+class ConcurrentGraphTest {
+
+    @Test
+    void testSeededSnapshotMatchesFreeze() throws IOException {
+        TextGraphApp.DirectedGraph graph = TextGraphApp.buildGraphFromFile(GraphTestSupport.EASY_TEST);
+        CsrGraph expected = graph.freeze();
+        try (ConcurrentGraph live = new ConcurrentGraph(graph)) {
+            CsrGraph snapshot = live.snapshot();
+            assertArrayEquals(expected.words, snapshot.words);
+            assertArrayEquals(expected.offsets, snapshot.offsets);
+            assertArrayEquals(expected.targets, snapshot.targets);
+            assertArrayEquals(expected.weights, snapshot.weights);
+            //没有新的写入时不重新发布
+            assertSame(snapshot, live.publish());
+        }
+        System.out.println("Test Case 1 Passed.");
+    }
+
+    @Test
+    void testConcurrentWritersWithReaders() throws Exception {
+        List<String> sentences = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            sentences.add("word" + (char) ('a' + i % 26) + " links to shared hub and word" + (char) ('a' + i % 7));
+        }
+        TextGraphApp.DirectedGraph expected = new TextGraphApp.DirectedGraph();
+        for (String sentence : sentences) {
+            List<String> words = TextGraphApp.cleanWords(sentence);
+            for (int i = 0; i + 1 < words.size(); i++) {
+                expected.addEdge(words.get(i), words.get(i + 1));
+            }
+        }
+
+        AtomicBoolean done = new AtomicBoolean();
+        try (ConcurrentGraph live = new ConcurrentGraph();
+             ExecutorService pool = Executors.newFixedThreadPool(8)) {
+            live.startPublishing(1);
+            GraphQueryService service = new GraphQueryService(live::snapshot);
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int first = t;
+                tasks.add(pool.submit(() -> {
+                    for (int i = first; i < sentences.size(); i += 4) {
+                        live.append(sentences.get(i));
+                    }
+                }));
+            }
+            //读线程在写入期间不断查询，每次都看到一个完整的快照
+            List<Future<Integer>> readers = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                readers.add(pool.submit(() -> {
+                    int queries = 0;
+                    while (!done.get() || queries == 0) {
+                        CsrGraph snapshot = live.snapshot();
+                        assertEquals(snapshot.edgeCount(), snapshot.offsets[snapshot.nodeCount()]);
+                        TextGraphApp.queryBridgeWords(snapshot, "links", "shared");
+                        service.execute("path links hub");
+                        queries++;
+                    }
+                    return queries;
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+            done.set(true);
+            for (Future<Integer> reader : readers) {
+                assertTrue(reader.get() > 0);
+            }
+            live.close();
+            TextGraphApp.DirectedGraph published = TextGraphApp.DirectedGraph.thaw(live.snapshot());
+            assertEquals(GraphTestSupport.edgesOf(expected), GraphTestSupport.edgesOf(published));
+            assertEquals("Shortest path: links -> to -> shared -> hub (length: 6000)", service.execute("path links hub"));
+        }
+        System.out.println("Test Case 2 Passed.");
+    }
+
+    @Test
+    void testIncrementalPublishAndIngest() throws IOException {
+        TextGraphApp.DirectedGraph expected = TextGraphApp.buildGraphFromFile(GraphTestSupport.EASY_TEST);
+        ConcurrentGraph live = new ConcurrentGraph(expected.freeze());
+        GraphQueryService service = new GraphQueryService(live::snapshot);
+        String[] lines = {"The scientist analyzed it again", "brand new words appear", "again the data"};
+        for (String line : lines) {
+            List<String> words = TextGraphApp.cleanWords(line);
+            for (int i = 0; i + 1 < words.size(); i++) {
+                expected.addEdge(words.get(i), words.get(i + 1));
+            }
+        }
+        //每行之后发布一次：增量与上一个快照逐行归并，结果与整体重新冻结一致
+        live.append(lines[0]);
+        CsrGraph first = live.publish();
+        assertEquals(first.nodeCount(), live.snapshot().nodeCount());
+        TextGraphApp.ingestLines(live, new BufferedReader(new StringReader(lines[1] + "\n" + lines[2] + "\n")));
+        CsrGraph merged = live.snapshot();
+        CsrGraph rebuilt = expected.freeze();
+        assertArrayEquals(rebuilt.words, merged.words);
+        assertArrayEquals(rebuilt.offsets, merged.offsets);
+        assertArrayEquals(rebuilt.targets, merged.targets);
+        assertArrayEquals(rebuilt.weights, merged.weights);
+        assertEquals(TextGraphApp.queryBridgeWords(rebuilt, "new", "appear"), service.execute("bridge new appear"));
+        assertEquals(TextGraphApp.calcShortestPath(rebuilt, "brand", "appear"), service.execute("path brand appear"));
+        System.out.println("Test Case 3 Passed.");
+    }
+}
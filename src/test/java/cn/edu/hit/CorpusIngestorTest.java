@@ -0,0 +1,162 @@
+package cn.edu.hit;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//多文件与 gzip 语料导入测试
+class CorpusIngestorTest {
+
+    private static void gzip(Path target, byte[] content) throws IOException {
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(target))) {
+            out.write(content);
+        }
+    }
+
+    private static void deleteTree(Path dir) throws IOException {
+        try (Stream<Path> stream = Files.walk(dir)) {
+            for (Path p : stream.sorted(Comparator.reverseOrder()).toArray(Path[]::new)) {
+                Files.delete(p);
+            }
+        }
+    }
+
+    @Test
+    void testTinyBlocksMatchSequentialBuild() throws IOException {
+        Map<String, Integer> expected = GraphTestSupport.edgesOf(TextGraphApp.buildGraphFromFile(GraphTestSupport.EASY_TEST));
+        Path dir = Files.createTempDirectory("ingest");
+        try {
+            Path shard = dir.resolve("easy.txt.gz");
+            gzip(shard, Files.readAllBytes(Paths.get(GraphTestSupport.EASY_TEST)));
+            //块远小于单词长度时缓冲区需要扩大；队列很快被填满，读取线程依赖背压等待
+            for (int blockSize : new int[]{1, 3, 8, 1 << 20}) {
+                CorpusIngestor ingestor = new CorpusIngestor(1, 3, blockSize);
+                assertEquals(expected, GraphTestSupport.edgesOf(TextGraphApp.DirectedGraph.thaw(ingestor.ingest(List.of(shard)))));
+            }
+
+            //许多文件、极小的块：队首之外的文件受窗口限制，读取线程等待汇总追上来，结果仍与顺序建图一致
+            TextGraphApp.DirectedGraph sequential = new TextGraphApp.DirectedGraph();
+            for (int f = 0; f < 12; f++) {
+                StringBuilder text = new StringBuilder();
+                for (int i = 0; i < 60; i++) {
+                    text.append("w").append((char) ('a' + (f * 7 + i * 3) % 26)).append(' ');
+                }
+                Files.writeString(dir.resolve(String.format("shard%02d.txt", f)), text);
+                List<String> words = TextGraphApp.cleanWords(text.toString());
+                for (int i = 0; i + 1 < words.size(); i++) {
+                    sequential.addEdge(words.get(i), words.get(i + 1));
+                }
+            }
+            CsrGraph expectedShards = sequential.freeze();
+            CsrGraph actual = new CorpusIngestor(4, 2, 1).ingest(dir + "/shard*.txt");
+            assertArrayEquals(expectedShards.words, actual.words);
+            assertArrayEquals(expectedShards.targets, actual.targets);
+            assertArrayEquals(expectedShards.weights, actual.weights);
+        } finally {
+            deleteTree(dir);
+        }
+        System.out.println("Test Case 1 Passed.");
+    }
+
+    @Test
+    void testDirectoryAndGlobMergeFilesWithoutCrossEdges() throws IOException {
+        Path dir = Files.createTempDirectory("ingest");
+        try {
+            Files.writeString(dir.resolve("a.txt"), "the quick brown fox");
+            gzip(dir.resolve("b.txt.gz"), "Fox jumps over the lazy dog".getBytes());
+            Files.createDirectory(dir.resolve("sub"));
+            Files.writeString(dir.resolve("sub").resolve("c.txt"), "lazy fox");
+            Files.writeString(dir.resolve("a.txt.tgs"), "not a corpus");
+
+            //目录：递归包含全部语料文件，文件之间（dog/fox、fox/lazy）不相连
+            TextGraphApp.DirectedGraph all = TextGraphApp.DirectedGraph.thaw(new CorpusIngestor(2, 2, 4).ingest(dir.toString()));
+            Map<String, Integer> edges = GraphTestSupport.edgesOf(all);
+            assertEquals(9, edges.size());
+            assertEquals(2, edges.get("the->quick") + edges.get("the->lazy"));
+            assertEquals(1, edges.get("fox->jumps"));
+            assertEquals(1, edges.get("lazy->fox"));
+            assertNull(edges.get("fox->fox"));
+            assertNull(edges.get("dog->lazy"));
+
+            //节点顺序与按文件排序依次读取时的首次出现顺序一致，与块大小和线程数无关
+            TextGraphApp.DirectedGraph sequential = new TextGraphApp.DirectedGraph();
+            for (String text : new String[]{"the quick brown fox", "Fox jumps over the lazy dog", "lazy fox"}) {
+                List<String> words = TextGraphApp.cleanWords(text);
+                for (int i = 0; i + 1 < words.size(); i++) {
+                    sequential.addEdge(words.get(i), words.get(i + 1));
+                }
+            }
+            CsrGraph expected = sequential.freeze();
+            for (int blockSize : new int[]{1, 4, 1 << 20}) {
+                CsrGraph actual = new CorpusIngestor(3, 3, blockSize).ingest(dir.toString());
+                assertArrayEquals(expected.words, actual.words);
+                assertArrayEquals(expected.offsets, actual.offsets);
+                assertArrayEquals(expected.targets, actual.targets);
+                assertArrayEquals(expected.weights, actual.weights);
+            }
+
+            //通配符只匹配最后一级文件名
+            List<Path> gz = CorpusIngestor.resolve(dir + "/*.gz");
+            assertEquals(List.of(dir.resolve("b.txt.gz")), gz);
+            assertEquals(List.of(dir.resolve("a.txt"), dir.resolve("b.txt.gz")), CorpusIngestor.resolve(dir + "/*.{txt,gz}"));
+            assertTrue(CorpusIngestor.resolve(dir + "/*.md").isEmpty());
+            //通配符同样跳过快照文件
+            assertEquals(List.of(dir.resolve("a.txt")), CorpusIngestor.resolve(dir + "/a.txt*"));
+            assertEquals(0, new CorpusIngestor().ingest(dir + "/*.md").nodeCount());
+
+            //经 TextGraphApp 统一入口加载后可以正常查询
+            assertTrue(CorpusIngestor.isCorpus(dir + "/*.txt"));
+            assertFalse(CorpusIngestor.isCorpus(GraphTestSupport.EASY_TEST));
+            //文件名含通配符字符的已有文件按普通文件处理
+            Path odd = Files.writeString(dir.resolve("odd[1].txt"), "odd words");
+            assertFalse(CorpusIngestor.isCorpus(odd.toString()));
+            assertEquals(List.of(odd), CorpusIngestor.resolve(odd.toString()));
+            Files.delete(odd);
+            TextGraphApp.DirectedGraph graph = TextGraphApp.loadGraph(dir.toString());
+            assertEquals("The bridge words from quick to fox is/are: brown.", TextGraphApp.queryBridgeWords(graph, "quick", "fox"));
+        } finally {
+            deleteTree(dir);
+        }
+        System.out.println("Test Case 2 Passed.");
+    }
+
+    @Test
+    void testErrorsAndPathSafety() throws IOException {
+        Path dir = Files.createTempDirectory("ingest");
+        Path outside = Files.createTempFile("outside", ".txt");
+        try {
+            Files.writeString(dir.resolve("ok.txt"), "fine words here");
+            Files.writeString(dir.resolve("broken.gz"), "plain text, not gzip");
+            assertThrows(IOException.class, () -> new CorpusIngestor(2, 2, 4).ingest(dir.toString()));
+
+            //指向目录外的符号链接被拒绝
+            Files.delete(dir.resolve("broken.gz"));
+            assertEquals(List.of(dir.resolve("ok.txt")), CorpusIngestor.resolve(dir.toString()));
+            boolean linked;
+            try {
+                Files.createSymbolicLink(dir.resolve("link.txt"), outside);
+                linked = true;
+            } catch (UnsupportedOperationException | IOException e) {
+                linked = false;
+            }
+            if (linked) {
+                assertThrows(SecurityException.class, () -> CorpusIngestor.resolve(dir.toString()));
+            }
+        } finally {
+            deleteTree(dir);
+            Files.deleteIfExists(outside);
+        }
+        System.out.println("Test Case 3 Passed.");
+    }
+}
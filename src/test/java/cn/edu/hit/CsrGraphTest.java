@@ -0,0 +1,111 @@
+package cn.edu.hit;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//CSR 冻结图测试
+class CsrGraphTest {
+
+    static TextGraphApp.DirectedGraph graph;
+    static CsrGraph csr;
+
+    @BeforeAll
+    static void setup() throws IOException {
+        graph = TextGraphApp.buildGraphFromFile(GraphTestSupport.EASY_TEST);
+        csr = graph.freeze();
+    }
+
+    @Test
+    void testSameEdgesAsDirectedGraph() {
+        Map<String, Integer> edges = new TreeMap<>();
+        for (int u = 0; u < csr.nodeCount(); u++) {
+            for (int e = csr.offsets[u]; e < csr.offsets[u + 1]; e++) {
+                edges.put(csr.words[u] + "->" + csr.words[csr.targets[e]], csr.weights[e]);
+                if (e > csr.offsets[u]) {
+                    assertTrue(csr.targets[e - 1] < csr.targets[e]);
+                }
+            }
+        }
+        assertEquals(GraphTestSupport.edgesOf(graph), edges);
+        assertEquals(csr.id("The"), csr.id("the"));
+        assertEquals(-1, csr.id("good"));
+        System.out.println("Test Case 1 Passed.");
+    }
+
+    @Test
+    void testTranspose() {
+        CsrGraph t = csr.transpose();
+        assertEquals(csr.edgeCount(), t.edgeCount());
+        for (int u = 0; u < csr.nodeCount(); u++) {
+            for (int e = csr.offsets[u]; e < csr.offsets[u + 1]; e++) {
+                int v = csr.targets[e];
+                assertEquals(csr.weights[e], t.weights[t.edgeIndex(v, u)]);
+            }
+        }
+        assertSame(csr, t.transpose());
+        System.out.println("Test Case 2 Passed.");
+    }
+
+    @Test
+    void testFreezeInvalidatedByAddEdge() throws IOException {
+        TextGraphApp.DirectedGraph g = TextGraphApp.buildGraphFromFile(GraphTestSupport.EASY_TEST);
+        CsrGraph before = g.freeze();
+        assertSame(before, g.freeze());
+        g.addEdge("again", "the");
+        assertNotSame(before, g.freeze());
+        assertEquals("Shortest path: again -> the (length: 1)", TextGraphApp.calcShortestPath(g, "again", "the"));
+        System.out.println("Test Case 3 Passed.");
+    }
+
+    @Test
+    void testPageRankMatchesDefinition() {
+        Map<String, Double> expected = referencePageRank(graph, 0.85, 1e-10);
+        Map<String, Double> actual = TextGraphApp.calcPageRank(csr, 0.85, 1e-10);
+        assertEquals(expected.keySet(), actual.keySet());
+        for (String word : expected.keySet()) {
+            assertEquals(expected.get(word), actual.get(word), 1e-8, word);
+        }
+        System.out.println("Test Case 4 Passed.");
+    }
+
+    //按定义逐点计算的 PageRank，作为对照
+    static Map<String, Double> referencePageRank(TextGraphApp.DirectedGraph g, double d, double epsilon) {
+        int n = g.nodes.size();
+        Map<String, Double> pr = new HashMap<>();
+        for (String word : g.nodes.keySet()) {
+            pr.put(word, 1.0 / n);
+        }
+        boolean converged = false;
+        while (!converged) {
+            double dangling = 0;
+            for (TextGraphApp.Node v : g.nodes.values()) {
+                if (v.edges.isEmpty()) {
+                    dangling += pr.get(v.word);
+                }
+            }
+            Map<String, Double> next = new HashMap<>();
+            double maxDiff = 0;
+            for (TextGraphApp.Node u : g.nodes.values()) {
+                double sum = 0;
+                for (TextGraphApp.Node v : g.nodes.values()) {
+                    if (v.edges.containsKey(u)) {
+                        sum += pr.get(v.word) / v.edges.size();
+                    }
+                }
+                double value = (1 - d) / n + d * (sum + dangling / n);
+                next.put(u.word, value);
+                maxDiff = Math.max(maxDiff, Math.abs(value - pr.get(u.word)));
+            }
+            pr = next;
+            converged = maxDiff < epsilon;
+        }
+        return pr;
+    }
+}
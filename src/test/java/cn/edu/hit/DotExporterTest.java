@@ -0,0 +1,144 @@
+package cn.edu.hit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//流式 DOT 导出与裁剪测试
+class DotExporterTest {
+
+    //a -> b（3 次）-> c -> d，以及 hub 指向 a、b、c、d
+    private static CsrGraph sample() {
+        TextGraphApp.DirectedGraph graph = new TextGraphApp.DirectedGraph();
+        graph.addEdge("a", "b", 3);
+        graph.addEdge("b", "c");
+        graph.addEdge("c", "d");
+        for (String word : new String[]{"a", "b", "c", "d"}) {
+            graph.addEdge("hub", word);
+        }
+        return graph.freeze();
+    }
+
+    private static String export(DotExporter exporter, CsrGraph graph) throws IOException {
+        StringWriter out = new StringWriter();
+        exporter.write(graph, out);
+        return out.toString();
+    }
+
+    @Test
+    void testFullExport() throws IOException {
+        CsrGraph graph = TextGraphApp.buildGraphFromFile(GraphTestSupport.EASY_TEST).freeze();
+        String dot = export(new DotExporter(), graph);
+        assertTrue(dot.startsWith("digraph Graph {\n"));
+        assertTrue(dot.endsWith("}\n"));
+        assertEquals(graph.edgeCount(), dot.lines().filter(line -> line.contains(" -> ")).count());
+        assertEquals(graph.nodeCount(), dot.lines().filter(line -> line.endsWith("\";")).count());
+        System.out.println("Test Case 1 Passed.");
+    }
+
+    @Test
+    void testMinWeight() throws IOException {
+        DotExporter exporter = new DotExporter();
+        exporter.setMinWeight(2);
+        assertEquals("digraph Graph {\n  \"a\";\n  \"b\";\n  \"a\" -> \"b\" [label=\"3\"];\n}\n", export(exporter, sample()));
+        System.out.println("Test Case 2 Passed.");
+    }
+
+    @Test
+    void testNeighbourhoodAndTopN() throws IOException {
+        DotExporter around = new DotExporter();
+        around.setFocus("C", 1);
+        String dot = export(around, sample());
+        assertTrue(dot.contains("\"b\" -> \"c\""));
+        assertTrue(dot.contains("\"c\" -> \"d\""));
+        assertTrue(dot.contains("\"hub\" -> \"c\""));
+        assertFalse(dot.contains("\"a\""));
+
+        DotExporter top = new DotExporter();
+        top.setTopN(2, DotExporter.Rank.DEGREE);
+        //hub 的度为 4，b 与 c 的度为 3，编号小的 b 优先
+        assertEquals("digraph Graph {\n  \"b\";\n  \"hub\";\n  \"hub\" -> \"b\" [label=\"1\"];\n}\n", export(top, sample()));
+
+        //随机图上保留的恰好是度最高的 topN 个节点
+        CsrGraph random = ShortestPathEngineTest.randomGraph(200, 1500, 5);
+        CsrGraph reverse = random.transpose();
+        DotExporter busiest = new DotExporter();
+        busiest.setTopN(10, DotExporter.Rank.DEGREE);
+        boolean[] kept = busiest.select(random);
+        int keptCount = 0;
+        int lowestKept = Integer.MAX_VALUE;
+        int highestDropped = 0;
+        for (int u = 0; u < random.nodeCount(); u++) {
+            int degree = random.outDegree(u) + reverse.outDegree(u);
+            if (kept[u]) {
+                keptCount++;
+                lowestKept = Math.min(lowestKept, degree);
+            } else {
+                highestDropped = Math.max(highestDropped, degree);
+            }
+        }
+        assertEquals(10, keptCount);
+        assertTrue(lowestKept >= highestDropped);
+
+        DotExporter missing = new DotExporter();
+        missing.setFocus("zebra", 2);
+        assertThrows(IllegalArgumentException.class, () -> export(missing, sample()));
+        System.out.println("Test Case 3 Passed.");
+    }
+
+    @Test
+    @EnabledOnOs({OS.LINUX, OS.MAC})
+    void testRenderInBackgroundWithTimeout() throws Exception {
+        Path dir = Files.createTempDirectory("dot");
+        try {
+            Path dotFile = dir.resolve("graph.dot");
+            new DotExporter().writeTo(sample(), dotFile);
+            //用脚本代替 dot：参数依次为 -Tpng -o <图片> <dot 文件>
+            Path copy = Files.writeString(dir.resolve("copy.sh"), "#!/bin/sh\ncp \"$4\" \"$3\"\n");
+            Path slow = Files.writeString(dir.resolve("slow.sh"), "#!/bin/sh\nexec sleep 30\n");
+            assertTrue(copy.toFile().setExecutable(true) && slow.toFile().setExecutable(true));
+
+            DotExporter exporter = new DotExporter();
+            exporter.setRenderCommand(copy.toString());
+            Path image = exporter.render(dotFile, dir.resolve("graph.png"), "png", Duration.ofSeconds(30)).get();
+            assertEquals(Files.readString(dotFile), Files.readString(image));
+
+            exporter.setRenderCommand(slow.toString());
+            long start = System.nanoTime();
+            ExecutionException e = assertThrows(ExecutionException.class,
+                    () -> exporter.render(dotFile, dir.resolve("slow.png"), "png", Duration.ofMillis(300)).get());
+            assertInstanceOf(TimeoutException.class, e.getCause());
+            //到期即失败，不等待 sleep 结束
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+
+            //sleep 作为孙进程运行时同样到期即失败，整个进程树被结束
+            Path nested = Files.writeString(dir.resolve("nested.sh"), "#!/bin/sh\nsleep 30\necho done\n");
+            assertTrue(nested.toFile().setExecutable(true));
+            exporter.setRenderCommand(nested.toString());
+            long nestedStart = System.nanoTime();
+            e = assertThrows(ExecutionException.class,
+                    () -> exporter.render(dotFile, dir.resolve("nested.png"), "png", Duration.ofMillis(300)).get());
+            assertInstanceOf(TimeoutException.class, e.getCause());
+            assertTrue(System.nanoTime() - nestedStart < TimeUnit.SECONDS.toNanos(5));
+        } finally {
+            try (var files = Files.list(dir)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(dir);
+        }
+        System.out.println("Test Case 4 Passed.");
+    }
+}
@@ -0,0 +1,111 @@
+package cn.edu.hit;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//边列表的排序、过滤与分页测试
+class EdgeListerTest {
+
+    private static CsrGraph sample() {
+        TextGraphApp.DirectedGraph graph = new TextGraphApp.DirectedGraph();
+        graph.addEdge("pear", "apple", 2);
+        graph.addEdge("apple", "pear");
+        graph.addEdge("apple", "fig", 2);
+        graph.addEdge("fig", "apple", 5);
+        return graph.freeze();
+    }
+
+    private static List<String> list(EdgeLister lister, CsrGraph graph) throws IOException {
+        StringWriter out = new StringWriter();
+        long lines = lister.list(graph, out);
+        List<String> result = out.toString().lines().toList();
+        assertEquals(result.size(), lines);
+        return result;
+    }
+
+    @Test
+    void testOrders() throws IOException {
+        EdgeLister lister = new EdgeLister();
+        assertEquals(List.of("pear -> apple (weight: 2)", "apple -> pear (weight: 1)", "apple -> fig (weight: 2)",
+                "fig -> apple (weight: 5)"), list(lister, sample()));
+        lister.setOrder(EdgeLister.Order.ALPHA);
+        assertEquals(List.of("apple -> fig (weight: 2)", "apple -> pear (weight: 1)", "fig -> apple (weight: 5)",
+                "pear -> apple (weight: 2)"), list(lister, sample()));
+        lister.setOrder(EdgeLister.Order.WEIGHT);
+        assertEquals(List.of("fig -> apple (weight: 5)", "apple -> fig (weight: 2)", "pear -> apple (weight: 2)",
+                "apple -> pear (weight: 1)"), list(lister, sample()));
+        System.out.println("Test Case 1 Passed.");
+    }
+
+    @Test
+    void testFiltersAndPaging() throws IOException {
+        EdgeLister lister = new EdgeLister();
+        lister.setOrder(EdgeLister.Order.ALPHA);
+        lister.setMinWeight(2);
+        lister.setTo("Apple");
+        assertEquals(List.of("fig -> apple (weight: 5)", "pear -> apple (weight: 2)"), list(lister, sample()));
+        lister.setTo(null);
+        lister.setFrom("apple");
+        assertEquals(List.of("apple -> fig (weight: 2)"), list(lister, sample()));
+        lister.setFrom("zebra");
+        assertEquals(List.of(), list(lister, sample()));
+
+        lister.setFrom(null);
+        lister.setMinWeight(1);
+        lister.setPage(1, 2);
+        assertEquals(List.of("apple -> pear (weight: 1)", "fig -> apple (weight: 5)"), list(lister, sample()));
+        System.out.println("Test Case 2 Passed.");
+    }
+
+    @Test
+    void testWeightPagesMatchFullSort() throws IOException {
+        CsrGraph graph = ShortestPathEngineTest.randomGraph(300, 5000, 11);
+        List<String> expected = new ArrayList<>();
+        for (int u = 0; u < graph.nodeCount(); u++) {
+            for (int e = graph.offsets[u]; e < graph.offsets[u + 1]; e++) {
+                expected.add(graph.words[u] + " -> " + graph.words[graph.targets[e]] + " (weight: " + graph.weights[e] + ")");
+            }
+        }
+        expected.sort(Comparator.comparing((String line) -> -Integer.parseInt(line.replaceAll(".*weight: (\\d+)\\)", "$1")))
+                .thenComparing(line -> line.split(" -> ")[0])
+                .thenComparing(line -> line.split(" -> ")[1].split(" ")[0]));
+
+        EdgeLister lister = new EdgeLister();
+        lister.setOrder(EdgeLister.Order.WEIGHT);
+        assertEquals(expected, list(lister, graph));
+        List<String> paged = new ArrayList<>();
+        for (int page = 0; page * 700 < expected.size(); page++) {
+            lister.setPage(page * 700L, 700);
+            paged.addAll(list(lister, graph));
+        }
+        assertEquals(expected, paged);
+        System.out.println("Test Case 3 Passed.");
+    }
+
+    @Test
+    void testShowDirectedGraphWithoutEcho() throws IOException {
+        TextGraphApp.DirectedGraph graph = TextGraphApp.buildGraphFromFile(GraphTestSupport.EASY_TEST);
+        Path output = Files.createTempFile("edges", ".txt");
+        try {
+            EdgeLister lister = new EdgeLister();
+            lister.setOrder(EdgeLister.Order.WEIGHT);
+            lister.setPage(0, 5);
+            graph.showDirectedGraph(lister, output, false);
+            List<String> lines = Files.readAllLines(output);
+            assertEquals(5, lines.size());
+            assertTrue(lines.get(0).startsWith("the -> "));
+        } finally {
+            Files.deleteIfExists(output);
+        }
+        System.out.println("Test Case 4 Passed.");
+    }
+}
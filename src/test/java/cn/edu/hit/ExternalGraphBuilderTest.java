@@ -0,0 +1,119 @@
+package cn.edu.hit;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//外存建图测试
+class ExternalGraphBuilderTest {
+
+    private static void assertSameGraph(CsrGraph expected, CsrGraph actual) {
+        assertArrayEquals(expected.words, actual.words);
+        assertArrayEquals(expected.offsets, actual.offsets);
+        assertArrayEquals(expected.targets, actual.targets);
+        assertArrayEquals(expected.weights, actual.weights);
+    }
+
+    @Test
+    void testManyRunsMatchInMemoryBuild() throws IOException {
+        CsrGraph expected = TextGraphApp.buildGraphFromFile(GraphTestSupport.EASY_TEST).freeze();
+        Path temp = Files.createTempDirectory("external");
+        try {
+            for (int bufferPairs : new int[]{1, 7, 1 << 20}) {
+                WordDictionary dictionary = new WordDictionary();
+                try (ExternalGraphBuilder builder = new ExternalGraphBuilder(dictionary, bufferPairs, temp)) {
+                    StreamingTokenizer.tokenizeFile(Paths.get(GraphTestSupport.EASY_TEST), dictionary, builder);
+                    assertSameGraph(expected, builder.build());
+                    //缓冲区足够大时只有一个段，否则必须多段归并
+                    if (bufferPairs == 1 << 20) {
+                        assertEquals(1, builder.runCount());
+                        assertEquals(0, builder.mergePassCount());
+                    } else {
+                        assertTrue(builder.runCount() > 1);
+                        assertEquals(1, builder.mergePassCount());
+                    }
+                }
+                //段文件在关闭后被删除
+                try (Stream<Path> left = Files.list(temp)) {
+                    assertEquals(0, left.count());
+                }
+            }
+            //归并路数受限时分多趟归并，结果不变
+            for (int fanIn : new int[]{2, 3}) {
+                WordDictionary dictionary = new WordDictionary();
+                try (ExternalGraphBuilder builder = new ExternalGraphBuilder(dictionary, 1, temp, fanIn)) {
+                    StreamingTokenizer.tokenizeFile(Paths.get(GraphTestSupport.EASY_TEST), dictionary, builder);
+                    assertSameGraph(expected, builder.build());
+                    int runs = builder.runCount();
+                    int passes = 0;
+                    while (runs > 1) {
+                        runs = (runs + fanIn - 1) / fanIn;
+                        passes++;
+                    }
+                    assertEquals(passes, builder.mergePassCount());
+                    assertTrue(passes > 1);
+                }
+                try (Stream<Path> left = Files.list(temp)) {
+                    assertEquals(0, left.count());
+                }
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        System.out.println("Test Case 1 Passed.");
+    }
+
+    @Test
+    void testDirectedGraphAndEdgeCases() throws IOException {
+        TextGraphApp.DirectedGraph expected = TextGraphApp.buildGraphFromFile(GraphTestSupport.EASY_TEST);
+        TextGraphApp.DirectedGraph actual = TextGraphApp.buildGraphFromFileExternal(GraphTestSupport.EASY_TEST, 5);
+        assertEquals(GraphTestSupport.edgesOf(expected), GraphTestSupport.edgesOf(actual));
+        assertEquals(TextGraphApp.calcShortestPath(expected, "the", "it"), TextGraphApp.calcShortestPath(actual, "the", "it"));
+
+        Path single = Files.createTempFile("single", ".txt");
+        try {
+            Files.writeString(single, "Hello!");
+            assertEquals(0, ExternalGraphBuilder.build(single, 4, null).nodeCount());
+        } finally {
+            Files.deleteIfExists(single);
+        }
+        assertThrows(IllegalArgumentException.class, () -> new ExternalGraphBuilder(new WordDictionary(), 0, null));
+        assertThrows(IllegalArgumentException.class, () -> new ExternalGraphBuilder(new WordDictionary(), 1, null, 1));
+        System.out.println("Test Case 2 Passed.");
+    }
+
+    @Test
+    void testSnapshotWrittenFromMergedRun() throws IOException {
+        CsrGraph expected = TextGraphApp.buildGraphFromFile(GraphTestSupport.EASY_TEST).freeze();
+        Path corpus = Paths.get(GraphTestSupport.EASY_TEST);
+        Path temp = Files.createTempDirectory("external");
+        Path snapshot = temp.resolve("easy.tgs");
+        try {
+            //多段归并后不构建 CSR 图，直接写出快照
+            ExternalGraphBuilder.buildSnapshot(corpus, 3, temp, snapshot);
+            GraphSnapshot.Loaded loaded = GraphSnapshot.load(snapshot, true);
+            assertSameGraph(expected, loaded.graph);
+            assertNull(loaded.pageRank);
+            assertFalse(GraphSnapshot.isStale(snapshot, corpus));
+            try (Stream<Path> left = Files.list(temp)) {
+                assertEquals(1, left.count());
+            }
+
+            Path single = temp.resolve("single.txt");
+            Files.writeString(single, "Hello!");
+            ExternalGraphBuilder.buildSnapshot(single, 4, temp, snapshot);
+            assertEquals(0, GraphSnapshot.load(snapshot, true).graph.nodeCount());
+            Files.delete(single);
+        } finally {
+            Files.deleteIfExists(snapshot);
+            Files.deleteIfExists(temp);
+        }
+        System.out.println("Test Case 3 Passed.");
+    }
+}
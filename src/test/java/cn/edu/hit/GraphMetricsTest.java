@@ -0,0 +1,103 @@
+package cn.edu.hit;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//操作埋点测试：计数、直方图、JMX 与 JFR 事件
+class GraphMetricsTest {
+
+    @Test
+    void testCountsAndWork() throws Exception {
+        OperationMetrics build = GraphMetrics.of(GraphMetrics.Operation.BUILD);
+        OperationMetrics path = GraphMetrics.of(GraphMetrics.Operation.SHORTEST_PATH);
+        OperationMetrics rank = GraphMetrics.of(GraphMetrics.Operation.PAGE_RANK);
+        long builds = build.getCount();
+        long words = build.getTotalWork();
+        long paths = path.getCount();
+        long ranks = rank.getCount();
+
+        TextGraphApp.DirectedGraph graph = TextGraphApp.buildGraphFromFileStreaming(GraphTestSupport.EASY_TEST);
+        List<String> cleaned = TextGraphApp.cleanWords(Files.readString(Path.of(GraphTestSupport.EASY_TEST)));
+        assertEquals(builds + 1, build.getCount());
+        assertEquals(words + cleaned.size(), build.getTotalWork());
+        assertTrue(build.getWorkPerSecond() > 0);
+
+        TextGraphApp.calcShortestPath(new ShortestPathEngine(graph.freeze()), "the", "it");
+        assertEquals(paths + 1, path.getCount());
+        assertTrue(path.getTotalWork() > 0);
+
+        TextGraphApp.calcPageRank(graph, 0.85, 1e-6);
+        assertEquals(ranks + 1, rank.getCount());
+        assertTrue(rank.getMeanWork() >= 1);
+
+        assertEquals(build.getCount(), Arrays.stream(build.getLatencyHistogram()).sum());
+        assertTrue(build.getP50Millis() <= build.getP99Millis());
+        System.out.println("Test Case 1 Passed.");
+    }
+
+    @Test
+    void testHistogramBuckets() {
+        OperationMetrics metrics = new OperationMetrics("units");
+        metrics.record(500, 1);
+        metrics.record(1_500, 1);
+        metrics.record(3_000_000, 1);
+        long[] histogram = metrics.getLatencyHistogram();
+        assertEquals(1, histogram[0]);
+        assertEquals(1, histogram[1]);
+        assertEquals(1, histogram[OperationMetrics.bucket(3_000_000)]);
+        assertEquals(0.002, metrics.getP50Millis());
+        assertEquals(3.0, metrics.getMaxMillis());
+        metrics.reset();
+        assertEquals(0, metrics.getCount());
+        assertEquals(0, Arrays.stream(metrics.getLatencyHistogram()).sum());
+        System.out.println("Test Case 2 Passed.");
+    }
+
+    @Test
+    void testMBeanRegistered() throws Exception {
+        TextGraphApp.DirectedGraph graph = TextGraphApp.buildGraphFromFile(GraphTestSupport.EASY_TEST);
+        TextGraphApp.queryBridgeWords(graph, "the", "it");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = GraphMetrics.objectName(GraphMetrics.Operation.BRIDGE);
+        assertTrue(server.isRegistered(name));
+        assertTrue((Long) server.getAttribute(name, "Count") >= 1);
+        assertEquals("bridge words", server.getAttribute(name, "WorkUnit"));
+        System.out.println("Test Case 3 Passed.");
+    }
+
+    @Test
+    void testFlightRecorderEvents() throws Exception {
+        TextGraphApp.DirectedGraph graph = TextGraphApp.buildGraphFromFile(GraphTestSupport.EASY_TEST);
+        Path dump = Files.createTempFile("graph", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(GraphOperationEvent.class);
+            recording.start();
+            TextGraphApp.calcShortestPath(new ShortestPathEngine(graph.freeze()), "the", "it");
+            recording.stop();
+            recording.dump(dump);
+            List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+            RecordedEvent event = events.stream()
+                    .filter(e -> e.getEventType().getName().equals("cn.edu.hit.GraphOperation"))
+                    .filter(e -> "path".equals(e.getString("operation")))
+                    .findFirst().orElseThrow();
+            assertEquals("the it", event.getString("detail"));
+            assertEquals("nodes settled", event.getString("workUnit"));
+            assertTrue(event.getLong("work") > 0);
+        } finally {
+            Files.deleteIfExists(dump);
+        }
+        System.out.println("Test Case 4 Passed.");
+    }
+}
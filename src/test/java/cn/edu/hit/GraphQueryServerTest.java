@@ -0,0 +1,106 @@
+package cn.edu.hit;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//查询服务器测试：行协议、并发连接、超时与并发上限
+class GraphQueryServerTest {
+
+    //发送一条命令并读取应答（到空行为止）
+    private static String ask(BufferedReader in, PrintWriter out, String command) throws IOException {
+        out.println(command);
+        out.flush();
+        StringBuilder response = new StringBuilder();
+        String line;
+        while ((line = in.readLine()) != null && !line.isEmpty()) {
+            if (response.length() > 0) {
+                response.append('\n');
+            }
+            response.append(line);
+        }
+        return response.toString();
+    }
+
+    private static String ask(int port, String command) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             PrintWriter out = new PrintWriter(socket.getOutputStream(), false, StandardCharsets.UTF_8)) {
+            return ask(in, out, command);
+        }
+    }
+
+    @Test
+    void testConcurrentClients() throws Exception {
+        GraphQueryService service = new GraphQueryService(
+                TextGraphApp.buildGraphFromFile(GraphTestSupport.EASY_TEST).freeze());
+        String expected = "OK\n" + service.execute("path the it");
+        try (GraphQueryServer server = new GraphQueryServer(service::execute, 0, 64, Duration.ofSeconds(10));
+             ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            server.start();
+            List<Future<String>> responses = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                responses.add(clients.submit(() -> ask(server.port(), "path the it")));
+            }
+            for (Future<String> response : responses) {
+                assertEquals(expected, response.get());
+            }
+
+            //同一连接上的多条命令按顺序应答
+            try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.port());
+                 BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                 PrintWriter out = new PrintWriter(socket.getOutputStream(), false, StandardCharsets.UTF_8)) {
+                assertEquals("OK\n" + service.execute("bridge the it"), ask(in, out, "bridge the it"));
+                assertEquals("ERROR Unknown command: fly", ask(in, out, "fly"));
+                assertTrue(ask(in, out, "pagerank 2").startsWith("OK\n"));
+                out.println("quit");
+                out.flush();
+                assertNull(in.readLine());
+            }
+        }
+        System.out.println("Test Case 1 Passed.");
+    }
+
+    @Test
+    void testTimeoutAndConcurrencyLimit() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        try (GraphQueryServer server = new GraphQueryServer(command -> {
+            //模拟不响应中断的慢查询
+            while (command.equals("slow") && release.getCount() > 0) {
+                try {
+                    release.await();
+                } catch (InterruptedException ignored) {
+                    //继续等待
+                }
+            }
+            return command;
+        }, 0, 1, Duration.ofMillis(200))) {
+            server.start();
+            assertEquals("ERROR timeout", ask(server.port(), "slow"));
+            //超时的查询仍占用唯一的名额
+            assertEquals("ERROR busy", ask(server.port(), "fast"));
+            release.countDown();
+            String response = "";
+            for (int i = 0; i < 50 && !response.equals("OK\nfast"); i++) {
+                response = ask(server.port(), "fast");
+            }
+            assertEquals("OK\nfast", response);
+        }
+        System.out.println("Test Case 2 Passed.");
+    }
+}
@@ -0,0 +1,65 @@
+package cn.edu.hit;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//文本命令查询服务测试
+class GraphQueryServiceTest {
+
+    private static GraphQueryService service() throws IOException {
+        return new GraphQueryService(TextGraphApp.buildGraphFromFile(GraphTestSupport.EASY_TEST).freeze());
+    }
+
+    @Test
+    void testCommandsMatchDirectCalls() throws IOException {
+        GraphQueryService service = service();
+        CsrGraph graph = service.graph();
+        assertEquals(TextGraphApp.queryBridgeWords(graph, "the", "it"), service.execute("bridge the it"));
+        assertEquals(TextGraphApp.calcShortestPath(graph, "the", "it"), service.execute("  PATH the   it "));
+        assertEquals(TextGraphApp.calcShortestPath(graph, "the", null).stripTrailing(), service.execute("path the"));
+        String generated = service.execute("newtext Seek to explore new life");
+        assertTrue(generated.startsWith("seek"));
+        assertTrue(generated.endsWith("life"));
+        System.out.println("Test Case 1 Passed.");
+    }
+
+    @Test
+    void testPageRankAndWalk() throws IOException {
+        GraphQueryService service = service();
+        String[] top = service.execute("pagerank 3").split("\n");
+        assertEquals(3, top.length);
+        String best = top[0].substring(0, top[0].indexOf(':'));
+        assertEquals(top[0], service.execute("pagerank " + best.toUpperCase()));
+        assertEquals(GraphQueryService.DEFAULT_TOP, service.execute("pagerank").split("\n").length);
+        assertEquals("No zebra in the graph!", service.execute("pagerank zebra"));
+        //近似 Top-K：again 没有出边，以它为起点的游走总是回到它自己
+        assertEquals("again: 1.000000", service.execute("pagerank approx 3 again"));
+        assertTrue(service.execute("pagerank approx 2").split("\n").length <= 2);
+
+        String[] walk = service.execute("walk").split(" -> ");
+        CsrGraph graph = service.graph();
+        for (int i = 0; i + 1 < walk.length; i++) {
+            assertTrue(graph.hasEdge(graph.id(walk[i]), graph.id(walk[i + 1])));
+        }
+        service.execute("path the it");
+        String[] stats = service.execute("stats").split("\n");
+        assertTrue(stats[0].startsWith("path tree cache: trees="), stats[0]);
+        assertTrue(Arrays.stream(stats).anyMatch(line -> line.startsWith("path: count=")));
+        System.out.println("Test Case 2 Passed.");
+    }
+
+    @Test
+    void testMalformedCommands() throws IOException {
+        GraphQueryService service = service();
+        assertThrows(IllegalArgumentException.class, () -> service.execute("bridge the"));
+        assertThrows(IllegalArgumentException.class, () -> service.execute("newtext 123"));
+        assertThrows(IllegalArgumentException.class, () -> service.execute("fly me"));
+        assertThrows(IllegalArgumentException.class, () -> service.execute("pagerank approx"));
+        assertThrows(IllegalArgumentException.class, () -> service.execute("pagerank approx 0"));
+        System.out.println("Test Case 3 Passed.");
+    }
+}
@@ -0,0 +1,131 @@
+package cn.edu.hit;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//二进制快照测试
+class GraphSnapshotTest {
+
+    @Test
+    void testRoundTrip() throws IOException {
+        Path corpus = Paths.get(GraphTestSupport.EASY_TEST);
+        TextGraphApp.DirectedGraph graph = TextGraphApp.buildGraphFromFile(GraphTestSupport.EASY_TEST);
+        CsrGraph csr = graph.freeze();
+        double[] ranks = TextGraphApp.pageRankValues(csr, 0.85, 1e-6);
+        Path snapshot = Files.createTempFile("graph", ".tgs");
+        try {
+            GraphSnapshot.save(csr, corpus, snapshot);
+            GraphSnapshot.Loaded loaded = GraphSnapshot.load(snapshot, true);
+            assertArrayEquals(csr.words, loaded.graph.words);
+            assertArrayEquals(csr.offsets, loaded.graph.offsets);
+            assertArrayEquals(csr.targets, loaded.graph.targets);
+            assertArrayEquals(csr.weights, loaded.graph.weights);
+            assertArrayEquals(ranks, loaded.pageRank);
+            assertEquals(Files.size(corpus), loaded.corpusSize);
+            assertFalse(GraphSnapshot.isStale(snapshot, corpus));
+
+            //加载的 PageRank 附在图上：阻尼系数相同、收敛阈值不更严格时直接复用
+            assertSame(loaded.pageRank, loaded.graph.storedPageRank(0.85, 1e-6));
+            assertSame(loaded.pageRank, loaded.graph.storedPageRank(0.85, 1e-4));
+            assertNull(loaded.graph.storedPageRank(0.85, 1e-8));
+            assertNull(loaded.graph.storedPageRank(0.5, 1e-6));
+            assertEquals(TextGraphApp.calcPageRank(csr, 0.85, 1e-6), TextGraphApp.calcPageRank(loaded.graph, 0.85, 1e-6));
+
+            TextGraphApp.DirectedGraph thawed = TextGraphApp.DirectedGraph.thaw(loaded.graph);
+            assertEquals(GraphTestSupport.edgesOf(graph), GraphTestSupport.edgesOf(thawed));
+            assertEquals(TextGraphApp.calcShortestPath(graph, "the", "it"), TextGraphApp.calcShortestPath(thawed, "the", "it"));
+        } finally {
+            Files.deleteIfExists(snapshot);
+        }
+        System.out.println("Test Case 1 Passed.");
+    }
+
+    @Test
+    void testCorruptionAndStalenessDetected() throws IOException {
+        CsrGraph csr = TextGraphApp.buildGraphFromFile(GraphTestSupport.EASY_TEST).freeze();
+        Path corpus = Files.createTempFile("corpus", ".txt");
+        Path snapshot = Files.createTempFile("graph", ".tgs");
+        try {
+            Files.writeString(corpus, "some corpus");
+            GraphSnapshot.save(csr, corpus, snapshot);
+            assertNull(GraphSnapshot.load(snapshot, true).pageRank);
+            assertNull(GraphSnapshot.load(snapshot, true).graph.storedPageRank(0.85, 1e-6));
+            assertFalse(GraphSnapshot.isStale(snapshot, corpus));
+            //长度与修改时间都没变时不读取语料；修改时间变了才比较内容
+            FileTime saved = Files.getLastModifiedTime(corpus);
+            Files.writeString(corpus, "some corpuz");
+            Files.setLastModifiedTime(corpus, saved);
+            assertFalse(GraphSnapshot.isStale(snapshot, corpus));
+            Files.setLastModifiedTime(corpus, FileTime.fromMillis(saved.toMillis() + 5000));
+            assertTrue(GraphSnapshot.isStale(snapshot, corpus));
+            //内容没变、只是修改时间变了时仍可使用，并记下新的修改时间
+            Files.writeString(corpus, "some corpus");
+            Files.setLastModifiedTime(corpus, FileTime.fromMillis(saved.toMillis() + 9000));
+            assertFalse(GraphSnapshot.isStale(snapshot, corpus));
+            Files.writeString(corpus, "some corpuz");
+            Files.setLastModifiedTime(corpus, FileTime.fromMillis(saved.toMillis() + 9000));
+            assertFalse(GraphSnapshot.isStale(snapshot, corpus));
+            //长度不同同样过期
+            Files.writeString(corpus, "some corpus ");
+            assertTrue(GraphSnapshot.isStale(snapshot, corpus));
+
+            byte[] bytes = Files.readAllBytes(snapshot);
+            bytes[bytes.length - 1] ^= 1;
+            Files.write(snapshot, bytes);
+            assertThrows(IOException.class, () -> GraphSnapshot.load(snapshot, true));
+        } finally {
+            Files.deleteIfExists(corpus);
+            Files.deleteIfExists(snapshot);
+        }
+        System.out.println("Test Case 2 Passed.");
+    }
+
+    @Test
+    void testCorruptHeaderFallsBackToRebuild() throws IOException {
+        Path dir = Files.createTempDirectory("snapshot");
+        Path corpus = dir.resolve("easy.txt");
+        Path snapshot = dir.resolve("easy.txt.tgs");
+        Files.copy(Paths.get(GraphTestSupport.EASY_TEST), corpus);
+        try {
+            CsrGraph expected = TextGraphApp.loadFrozenGraph(corpus.toString());
+            byte[] original = Files.readAllBytes(snapshot);
+            //节点数、边数或单词字节数被改成负数或与文件长度不符，都按 IOException 报告而不是运行时异常
+            int[][] corruptions = {{12, -1}, {12, Integer.MAX_VALUE}, {16, -7}, {16, 1 << 30}, {20, -3}};
+            for (int[] corruption : corruptions) {
+                byte[] bytes = original.clone();
+                ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).putInt(corruption[0], corruption[1]);
+                Files.write(snapshot, bytes);
+                assertThrows(IOException.class, () -> GraphSnapshot.load(snapshot, false));
+            }
+            //总长不变而偏移越界时不经校验和也能发现
+            byte[] bytes = original.clone();
+            ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).putInt(GraphSnapshot.HEADER_BYTES, 5);
+            Files.write(snapshot, bytes);
+            assertThrows(IOException.class, () -> GraphSnapshot.load(snapshot, false));
+
+            //语料旁的快照损坏时重新建图并覆盖快照
+            bytes = original.clone();
+            ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).putInt(12, -1);
+            Files.write(snapshot, bytes);
+            CsrGraph rebuilt = TextGraphApp.loadFrozenGraph(corpus.toString());
+            assertArrayEquals(expected.words, rebuilt.words);
+            assertArrayEquals(expected.targets, rebuilt.targets);
+            assertArrayEquals(expected.weights, rebuilt.weights);
+            assertArrayEquals(expected.targets, GraphSnapshot.load(snapshot, true).graph.targets);
+        } finally {
+            Files.deleteIfExists(snapshot);
+            Files.deleteIfExists(corpus);
+            Files.deleteIfExists(dir);
+        }
+        System.out.println("Test Case 3 Passed.");
+    }
+}
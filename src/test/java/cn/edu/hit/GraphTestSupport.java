@@ -0,0 +1,23 @@
+package cn.edu.hit;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+//测试辅助：把有向图展开成 "from->to" 到权重的有序映射，便于比较两张图是否一致
+final class GraphTestSupport {
+
+    static final String EASY_TEST = "src/main/java/cn/edu/hit/Easy Test.txt";
+
+    private GraphTestSupport() {
+    }
+
+    static Map<String, Integer> edgesOf(TextGraphApp.DirectedGraph graph) {
+        Map<String, Integer> edges = new TreeMap<>();
+        for (TextGraphApp.Node node : graph.nodes.values()) {
+            for (Map.Entry<TextGraphApp.Node, Integer> entry : node.edges.entrySet()) {
+                edges.put(node.word + "->" + entry.getKey().word, entry.getValue());
+            }
+        }
+        return edges;
+    }
+}
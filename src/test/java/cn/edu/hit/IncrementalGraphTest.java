@@ -0,0 +1,82 @@
+package cn.edu.hit;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//增量更新测试
+class IncrementalGraphTest {
+
+    @Test
+    void testAppendRecordsDelta() throws IOException {
+        IncrementalGraph live = new IncrementalGraph(TextGraphApp.buildGraphFromFile(GraphTestSupport.EASY_TEST));
+        IncrementalGraph.Delta delta = live.append("The team wrote code.");
+        assertEquals(3, delta.edgesAdded);
+        assertTrue(delta.newNodes.contains("code"));
+        //the -> team 已存在，只是权重增加
+        assertFalse(delta.newEdgeSources.contains("the"));
+        assertTrue(delta.changedSources.contains("the"));
+        assertTrue(delta.newEdgeSources.contains("team"));
+        assertTrue(delta.newEdgeTargets.contains("code"));
+
+        CsrGraph next = live.refresh();
+        assertEquals(TextGraphApp.calcShortestPath(next, "team", "code"), "Shortest path: team -> wrote -> code (length: 2)");
+        System.out.println("Test Case 1 Passed.");
+    }
+
+    @Test
+    void testOnlyAffectedCachesInvalidated() {
+        TextGraphApp.DirectedGraph graph = new TextGraphApp.DirectedGraph();
+        //两个互不相通的部分：a -> b -> c 与 x -> y
+        graph.addEdge("a", "b");
+        graph.addEdge("b", "c");
+        graph.addEdge("x", "y");
+        IncrementalGraph live = new IncrementalGraph(graph);
+        CsrGraph old = live.current();
+        //从未查询过的图刷新时不创建任何引擎或索引
+        live.append("c d");
+        CsrGraph unqueried = live.refresh();
+        assertNull(old.shortestPathsIfPresent());
+        assertNull(old.bridgeIndexIfPresent());
+        assertNull(unqueried.shortestPathsIfPresent());
+        assertNull(unqueried.bridgeIndexIfPresent());
+        assertNull(unqueried.reachabilityIfPresent());
+
+        old = unqueried;
+        old.shortestPaths().singleSource(old.id("a"));
+        old.shortestPaths().singleSource(old.id("x"));
+
+        //只改动 x 所在的部分
+        live.append("y z");
+        CsrGraph next = live.refresh();
+        //继承路径树时创建了引擎，但可达性索引等到第一次查询才构建
+        ShortestPathEngine engine = next.shortestPathsIfPresent();
+        assertNotNull(engine);
+        assertNull(next.reachabilityIfPresent());
+        assertNull(next.bridgeIndexIfPresent());
+        long misses = engine.cacheMisses();
+        engine.singleSource(next.id("a"));
+        assertEquals(misses, engine.cacheMisses());
+        engine.singleSource(next.id("x"));
+        assertEquals(misses + 1, engine.cacheMisses());
+        assertNotNull(next.reachabilityIfPresent());
+        assertEquals("Shortest path: x -> y -> z (length: 2)", TextGraphApp.calcShortestPath(next, "x", "z"));
+        assertEquals("No path from a to z.", TextGraphApp.calcShortestPath(next, "a", "z"));
+        System.out.println("Test Case 2 Passed.");
+    }
+
+    @Test
+    void testWarmStartedPageRank() throws IOException {
+        IncrementalGraph live = new IncrementalGraph(TextGraphApp.buildGraphFromFile(GraphTestSupport.EASY_TEST));
+        live.pageRank(0.85, 1e-10);
+        live.appendSentences(Stream.of("the report was shared", "more data again"));
+        PageRankEngine.Result warm = live.pageRank(0.85, 1e-10);
+        PageRankEngine.Result cold = new PageRankEngine(live.current()).compute(0.85, 1e-10);
+        assertArrayEquals(cold.ranks, warm.ranks, 1e-8);
+        assertTrue(warm.iterations <= cold.iterations);
+        System.out.println("Test Case 3 Passed.");
+    }
+}
@@ -0,0 +1,52 @@
+package cn.edu.hit;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//蒙特卡洛近似 PageRank 测试
+class MonteCarloPageRankTest {
+
+    @Test
+    void testEstimateCloseToPowerIteration() throws IOException {
+        CsrGraph graph = TextGraphApp.buildGraphFromFile(GraphTestSupport.EASY_TEST).freeze();
+        double[] exact = new PageRankEngine(graph).compute(0.85, 1e-10).ranks;
+        double[] approx = new MonteCarloPageRank(graph, 0.85).estimate(null, 400000, 3);
+        for (int v = 0; v < graph.nodeCount(); v++) {
+            assertEquals(exact[v], approx[v], 0.01, graph.words[v]);
+        }
+        System.out.println("Test Case 1 Passed.");
+    }
+
+    @Test
+    void testTopKStopsWhenSeparated() {
+        //星形图：所有叶子都指向 hub，hub 的 PR 明显最高
+        TextGraphApp.DirectedGraph graph = new TextGraphApp.DirectedGraph();
+        for (int i = 0; i < 200; i++) {
+            graph.addEdge("leaf" + i, "hub");
+        }
+        CsrGraph csr = graph.freeze();
+        MonteCarloPageRank.Result result = new MonteCarloPageRank(csr, 0.85).topK(1, 1L << 24, 1);
+        assertTrue(result.separated);
+        assertTrue(result.walks < 1L << 24);
+        assertEquals("hub", csr.words[result.top[0]]);
+        System.out.println("Test Case 2 Passed.");
+    }
+
+    @Test
+    void testPersonalizedStaysNearSeed() throws IOException {
+        CsrGraph graph = TextGraphApp.buildGraphFromFile(GraphTestSupport.EASY_TEST).freeze();
+        Map<String, Double> top = TextGraphApp.calcPageRankTopK(graph, List.of("again"), 3, 0.85);
+        //again 没有出边，游走总是回到 again 本身
+        assertEquals(List.of("again"), List.copyOf(top.keySet()));
+        assertEquals(1.0, top.get("again"), 1e-12);
+        //同一个图与阻尼系数共享一个实例
+        assertSame(graph.monteCarloPageRank(0.85), graph.monteCarloPageRank(0.85));
+        assertNotSame(graph.monteCarloPageRank(0.85), graph.monteCarloPageRank(0.5));
+        System.out.println("Test Case 3 Passed.");
+    }
+}
@@ -0,0 +1,100 @@
+package cn.edu.hit;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//PageRank 引擎测试
+class PageRankEngineTest {
+
+    static TextGraphApp.DirectedGraph graph;
+    static PageRankEngine engine;
+
+    @BeforeAll
+    static void setup() throws IOException {
+        graph = TextGraphApp.buildGraphFromFile(GraphTestSupport.EASY_TEST);
+        engine = new PageRankEngine(graph.freeze());
+    }
+
+    @Test
+    void testDefaultMatchesDefinition() {
+        Map<String, Double> expected = CsrGraphTest.referencePageRank(graph, 0.85, 1e-6);
+        Map<String, Double> actual = TextGraphApp.calcPageRank(graph, 0.85, 1e-6);
+        for (String word : expected.keySet()) {
+            assertEquals(expected.get(word), actual.get(word), 1e-12, word);
+        }
+        System.out.println("Test Case 1 Passed.");
+    }
+
+    @Test
+    void testIterationCapAndNorms() {
+        PageRankEngine.Result capped = engine.compute(0.85, 1e-12, 3, PageRankEngine.Norm.LINF, false, null);
+        assertEquals(3, capped.iterations);
+        assertFalse(capped.converged);
+
+        PageRankEngine.Result l1 = engine.compute(0.85, 1e-9, 1000, PageRankEngine.Norm.L1, false, null);
+        assertTrue(l1.converged);
+        assertTrue(l1.residual < 1e-9);
+        assertEquals(1.0, Arrays.stream(l1.ranks).sum(), 1e-9);
+        System.out.println("Test Case 2 Passed.");
+    }
+
+    @Test
+    void testWeightedFavoursFrequentEdges() {
+        CsrGraph csr = graph.freeze();
+        PageRankEngine.Result uniform = engine.compute(0.85, 1e-10, 1000, PageRankEngine.Norm.L1, false, null);
+        PageRankEngine.Result weighted = engine.compute(0.85, 1e-10, 1000, PageRankEngine.Norm.L1, true, null);
+        assertEquals(1.0, Arrays.stream(weighted.ranks).sum(), 1e-9);
+        //按出现次数分配后，"scientist" 得到的份额应与均匀分配不同
+        assertNotEquals(uniform.ranks[csr.id("scientist")], weighted.ranks[csr.id("scientist")], 1e-12);
+        System.out.println("Test Case 3 Passed.");
+    }
+
+    @Test
+    void testParallelLargeGraph() {
+        //节点数超过并行阈值，与顺序的“推送式”迭代逐点比较
+        int n = PageRankEngine.PARALLEL_THRESHOLD * 2;
+        Random random = new Random(42);
+        TextGraphApp.DirectedGraph big = new TextGraphApp.DirectedGraph();
+        for (int i = 0; i < n * 3; i++) {
+            big.addEdge("w" + random.nextInt(n), "w" + random.nextInt(n));
+        }
+        CsrGraph csr = big.freeze();
+        double[] actual = new PageRankEngine(csr).compute(0.85, 1e-6, 20, PageRankEngine.Norm.LINF, false, null).ranks;
+
+        int nodes = csr.nodeCount();
+        double[] pr = new double[nodes];
+        Arrays.fill(pr, 1.0 / nodes);
+        for (int iteration = 0; iteration < 20; iteration++) {
+            double[] next = new double[nodes];
+            double dangling = 0;
+            for (int v = 0; v < nodes; v++) {
+                if (csr.outDegree(v) == 0) {
+                    dangling += pr[v];
+                }
+                for (int e = csr.offsets[v]; e < csr.offsets[v + 1]; e++) {
+                    next[csr.targets[e]] += pr[v] / csr.outDegree(v);
+                }
+            }
+            double maxDiff = 0;
+            for (int u = 0; u < nodes; u++) {
+                next[u] = 0.15 / nodes + 0.85 * (next[u] + dangling / nodes);
+                maxDiff = Math.max(maxDiff, Math.abs(next[u] - pr[u]));
+            }
+            pr = next;
+            if (maxDiff < 1e-6) {
+                break;
+            }
+        }
+        for (int u = 0; u < nodes; u++) {
+            assertEquals(pr[u], actual[u], 1e-12);
+        }
+        System.out.println("Test Case 4 Passed.");
+    }
+}
@@ -0,0 +1,101 @@
+package cn.edu.hit;
+
+import com.sun.management.ThreadMXBean;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//并行分块建图测试：任意切分方式下都应与顺序构建得到同一张图
+class ParallelGraphBuilderTest {
+
+    private static void assertSameAsSequential(Path file, int chunkSize) throws IOException {
+        TextGraphApp.DirectedGraph expected = TextGraphApp.buildGraphFromFile(file.toString());
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            //节点编号（首次出现顺序）也必须一致，否则查询输出的顺序会随建图方式变化
+            CsrGraph frozenExpected = expected.freeze();
+            CsrGraph frozenActual = ParallelGraphBuilder.build(file, chunkSize, pool);
+            assertArrayEquals(frozenExpected.words, frozenActual.words);
+            assertArrayEquals(frozenExpected.offsets, frozenActual.offsets);
+            assertArrayEquals(frozenExpected.targets, frozenActual.targets);
+            assertArrayEquals(frozenExpected.weights, frozenActual.weights);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testSmallChunksEqualSequential() throws IOException {
+        Path file = Paths.get(GraphTestSupport.EASY_TEST);
+        for (int chunkSize : new int[]{1, 3, 7, 16, 64, 1 << 20}) {
+            assertSameAsSequential(file, chunkSize);
+        }
+        Path novel = Paths.get("src/main/java/cn/edu/hit/Cursed Be The Treasure.txt");
+        for (int chunkSize : new int[]{1 << 10, 1 << 16}) {
+            assertSameAsSequential(novel, chunkSize);
+        }
+        System.out.println("Test Case 1 Passed.");
+    }
+
+    @Test
+    void testDegenerateFiles() throws IOException {
+        Path file = Files.createTempFile("parallel", ".txt");
+        try {
+            for (String text : new String[]{"", "single", "  ,, !! ", "a b", "loooooooooooong word"}) {
+                Files.writeString(file, text);
+                assertSameAsSequential(file, 2);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+        System.out.println("Test Case 2 Passed.");
+    }
+
+    @Test
+    void testMergeRemapsWorkerIds() {
+        //两个线程的计数表编号各不相同，按区间顺序合并后与顺序读入全部文本一致
+        String[] parts = {"the quick brown", " fox jumps over the", "", " lazy dog and the quick", " cat"};
+        ParallelGraphBuilder.WorkerTable left = new ParallelGraphBuilder.WorkerTable();
+        ParallelGraphBuilder.WorkerTable right = new ParallelGraphBuilder.WorkerTable();
+        ParallelGraphBuilder.Chunk[] chunks = new ParallelGraphBuilder.Chunk[parts.length];
+        for (int i = parts.length - 1; i >= 0; i--) {
+            byte[] bytes = parts[i].getBytes(StandardCharsets.UTF_8);
+            chunks[i] = (i % 2 == 0 ? left : right).count(bytes, 0, bytes.length);
+        }
+        ParallelGraphBuilder.Merger merger = new ParallelGraphBuilder.Merger();
+        for (ParallelGraphBuilder.Chunk chunk : chunks) {
+            merger.append(chunk);
+        }
+        CsrGraph actual = merger.build();
+        TextGraphApp.DirectedGraph expected = new TextGraphApp.DirectedGraph();
+        List<String> words = TextGraphApp.cleanWords(String.join("", parts));
+        for (int i = 0; i + 1 < words.size(); i++) {
+            expected.addEdge(words.get(i), words.get(i + 1));
+        }
+        assertArrayEquals(expected.freeze().words, actual.words);
+        assertEquals(GraphTestSupport.edgesOf(expected), GraphTestSupport.edgesOf(TextGraphApp.DirectedGraph.thaw(actual)));
+
+        //重复统计同样的区间时只分配区间结果（每个不同单词一个槽位），不随单词数增长
+        byte[] text = "the quick brown fox jumps over the lazy dog ".repeat(1000).getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < 20; i++) {
+            left.count(text, 0, text.length);
+        }
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 20; i++) {
+            left.count(text, 0, text.length);
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+        assertTrue(allocated < 64 * 1024, "allocated " + allocated + " bytes");
+        System.out.println("Test Case 3 Passed.");
+    }
+}
@@ -0,0 +1,78 @@
+package cn.edu.hit;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//随机游走引擎测试
+class RandomWalkEngineTest {
+
+    @Test
+    void testWeightedSamplingFollowsCounts() {
+        TextGraphApp.DirectedGraph graph = new TextGraphApp.DirectedGraph();
+        graph.addEdge("a", "b", 1);
+        graph.addEdge("a", "c", 3);
+        graph.addEdge("a", "d", 6);
+        CsrGraph csr = graph.freeze();
+        RandomWalkEngine engine = new RandomWalkEngine(csr);
+        SplittableRandom random = new SplittableRandom(5);
+        int[] hits = new int[csr.nodeCount()];
+        int samples = 200000;
+        for (int i = 0; i < samples; i++) {
+            hits[csr.targets[engine.nextEdge(csr.id("a"), true, random)]]++;
+        }
+        assertEquals(0.1, hits[csr.id("b")] / (double) samples, 0.01);
+        assertEquals(0.3, hits[csr.id("c")] / (double) samples, 0.01);
+        assertEquals(0.6, hits[csr.id("d")] / (double) samples, 0.01);
+        assertEquals(-1, engine.nextEdge(csr.id("b"), true, random));
+        System.out.println("Test Case 1 Passed.");
+    }
+
+    @Test
+    void testWalksStopAtRepeatedEdge() {
+        CsrGraph graph = ShortestPathEngineTest.randomGraph(50, 200, 6);
+        RandomWalkEngine engine = new RandomWalkEngine(graph);
+        RandomWalkEngine.Walker walker = engine.new Walker();
+        SplittableRandom random = new SplittableRandom(1);
+        for (int i = 0; i < 1000; i++) {
+            walker.walk(random.nextInt(graph.nodeCount()), i % 2 == 0, Integer.MAX_VALUE, random);
+            Set<Long> edges = new HashSet<>();
+            for (int j = 0; j + 1 < walker.length; j++) {
+                assertTrue(graph.hasEdge(walker.nodes[j], walker.nodes[j + 1]));
+                assertTrue(edges.add(((long) walker.nodes[j] << 32) | walker.nodes[j + 1]));
+            }
+        }
+        System.out.println("Test Case 2 Passed.");
+    }
+
+    @Test
+    void testBulkOutputIndependentOfThreads() throws IOException {
+        CsrGraph graph = ShortestPathEngineTest.randomGraph(100, 400, 8);
+        RandomWalkEngine engine = new RandomWalkEngine(graph);
+        Path one = Files.createTempFile("walks", ".txt");
+        Path many = Files.createTempFile("walks", ".txt");
+        try {
+            long count = RandomWalkEngine.WALKS_PER_TASK * 2L + 17;
+            engine.generate(count, one, true, 20, 99, 1);
+            engine.generate(count, many, true, 20, 99, 4);
+            List<String> lines = Files.readAllLines(one);
+            assertEquals(count, lines.size());
+            assertEquals(lines, Files.readAllLines(many));
+            for (String line : lines) {
+                assertTrue(line.split(" ").length <= 20);
+            }
+        } finally {
+            Files.deleteIfExists(one);
+            Files.deleteIfExists(many);
+        }
+        System.out.println("Test Case 3 Passed.");
+    }
+}
@@ -0,0 +1,116 @@
+package cn.edu.hit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//强连通分量与可达性索引测试
+class ReachabilityIndexTest {
+
+    //BFS 对照：source 能到达的全部节点
+    private static boolean[] reachableFrom(CsrGraph graph, int source) {
+        boolean[] seen = new boolean[graph.nodeCount()];
+        Deque<Integer> queue = new ArrayDeque<>();
+        seen[source] = true;
+        queue.add(source);
+        while (!queue.isEmpty()) {
+            int u = queue.poll();
+            for (int e = graph.offsets[u]; e < graph.offsets[u + 1]; e++) {
+                if (!seen[graph.targets[e]]) {
+                    seen[graph.targets[e]] = true;
+                    queue.add(graph.targets[e]);
+                }
+            }
+        }
+        return seen;
+    }
+
+    @Test
+    void testMatchesBreadthFirstSearch() {
+        for (long seed = 1; seed <= 5; seed++) {
+            //稀疏随机图有大量单点分量，较密时出现大分量
+            CsrGraph graph = ShortestPathEngineTest.randomGraph(300, (int) (150 * seed), seed);
+            ReachabilityIndex exact = new ReachabilityIndex(graph);
+            ReachabilityIndex filterOnly = new ReachabilityIndex(graph, 0);
+            assertTrue(exact.hasClosure());
+            assertFalse(filterOnly.hasClosure());
+            boolean[][] reach = new boolean[graph.nodeCount()][];
+            for (int u = 0; u < graph.nodeCount(); u++) {
+                reach[u] = reachableFrom(graph, u);
+            }
+            for (int u = 0; u < graph.nodeCount(); u++) {
+                for (int v = 0; v < graph.nodeCount(); v++) {
+                    assertEquals(reach[u][v], exact.mayReach(u, v), "seed " + seed + ": " + u + " -> " + v);
+                    //没有闭包时只允许把不可达判为“可能可达”
+                    if (reach[u][v]) {
+                        assertTrue(filterOnly.mayReach(u, v));
+                    }
+                    assertEquals(reach[u][v] && reach[v][u], exact.sameComponent(u, v));
+                }
+            }
+        }
+        System.out.println("Test Case 1 Passed.");
+    }
+
+    @Test
+    void testLongChainAndCycleWithoutRecursion() {
+        //很长的链会让递归 Tarjan 栈溢出
+        int n = 200_000;
+        TextGraphApp.DirectedGraph chain = new TextGraphApp.DirectedGraph();
+        for (int i = 0; i < n - 1; i++) {
+            chain.addEdge("w" + i, "w" + (i + 1));
+        }
+        CsrGraph graph = chain.freeze();
+        ReachabilityIndex index = new ReachabilityIndex(graph);
+        assertEquals(n, index.componentCount());
+        assertFalse(index.hasClosure());
+        int first = graph.id("w0");
+        int last = graph.id("w" + (n - 1));
+        assertTrue(index.mayReach(first, last));
+        assertFalse(index.mayReach(last, first));
+        assertTrue(index.isDeadEnd(last));
+
+        //首尾相连后成为一个分量
+        chain.addEdge("w" + (n - 1), "w0");
+        ReachabilityIndex cycle = new ReachabilityIndex(chain.freeze());
+        assertEquals(1, cycle.componentCount());
+        assertTrue(cycle.mayReach(last, first));
+        assertFalse(cycle.isDeadEnd(last));
+        System.out.println("Test Case 2 Passed.");
+    }
+
+    @Test
+    void testShortCircuitsPathQueries() {
+        CsrGraph graph = ShortestPathEngineTest.randomGraph(400, 500, 7);
+        ShortestPathEngine plain = new ShortestPathEngine(graph);
+        ShortestPathEngine indexed = new ShortestPathEngine(graph);
+        indexed.setReachability(new ReachabilityIndex(graph));
+        int unreachable = 0;
+        for (int s = 0; s < graph.nodeCount(); s += 7) {
+            for (int t = 0; t < graph.nodeCount(); t += 3) {
+                ShortestPathEngine.Path expected = plain.pointToPoint(s, t);
+                ShortestPathEngine.Path actual = indexed.pointToPoint(s, t);
+                assertEquals(expected.length, actual.length);
+                assertTrue(actual.settled <= expected.settled);
+                if (!expected.exists()) {
+                    //不可达时不做任何搜索
+                    assertEquals(0, actual.settled);
+                    unreachable++;
+                }
+            }
+            assertArrayEquals(plain.singleSource(s).dist, indexed.singleSource(s).dist);
+        }
+        assertTrue(unreachable > 0);
+
+        TextGraphApp.DirectedGraph easy = new TextGraphApp.DirectedGraph();
+        easy.addEdge("the", "again");
+        easy.addEdge("again", "again");
+        CsrGraph small = easy.freeze();
+        assertEquals("No path from again to the.", TextGraphApp.calcShortestPath(small, "again", "the"));
+        assertEquals(2, small.reachability().componentCount());
+        System.out.println("Test Case 3 Passed.");
+    }
+}
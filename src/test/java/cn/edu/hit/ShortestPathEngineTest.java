@@ -0,0 +1,201 @@
+package cn.edu.hit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//索引堆与最短路径引擎测试
+class ShortestPathEngineTest {
+
+    //随机图：n 个节点，m 条随机边
+    static CsrGraph randomGraph(int n, int m, long seed) {
+        Random random = new Random(seed);
+        TextGraphApp.DirectedGraph graph = new TextGraphApp.DirectedGraph();
+        for (int i = 0; i < m; i++) {
+            graph.addEdge("w" + random.nextInt(n), "w" + random.nextInt(n));
+        }
+        return graph.freeze();
+    }
+
+    //Bellman-Ford 对照
+    static int[] referenceDistances(CsrGraph graph, int source) {
+        int[] dist = new int[graph.nodeCount()];
+        Arrays.fill(dist, ShortestPathEngine.INFINITY);
+        dist[source] = 0;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int u = 0; u < graph.nodeCount(); u++) {
+                if (dist[u] == ShortestPathEngine.INFINITY) {
+                    continue;
+                }
+                for (int e = graph.offsets[u]; e < graph.offsets[u + 1]; e++) {
+                    int v = graph.targets[e];
+                    if (dist[u] + graph.weights[e] < dist[v]) {
+                        dist[v] = dist[u] + graph.weights[e];
+                        changed = true;
+                    }
+                }
+            }
+        }
+        return dist;
+    }
+
+    @Test
+    void testHeapOrderWithDecreaseKey() {
+        Random random = new Random(7);
+        int n = 1000;
+        int[] key = new int[n];
+        IndexedMinHeap heap = new IndexedMinHeap(n);
+        for (int i = 0; i < n; i++) {
+            key[i] = random.nextInt(100000);
+            heap.insertOrDecrease(i, key[i]);
+        }
+        for (int i = 0; i < n; i += 3) {
+            key[i] -= random.nextInt(1000);
+            heap.insertOrDecrease(i, key[i]);
+            //更大的键不生效
+            heap.insertOrDecrease(i, key[i] + 5);
+        }
+        int last = Integer.MIN_VALUE;
+        int count = 0;
+        while (!heap.isEmpty()) {
+            int k = heap.minKey();
+            int item = heap.poll();
+            assertEquals(key[item], k);
+            assertTrue(k >= last);
+            last = k;
+            count++;
+        }
+        assertEquals(n, count);
+        System.out.println("Test Case 1 Passed.");
+    }
+
+    @Test
+    void testDistancesMatchReference() {
+        CsrGraph graph = randomGraph(300, 1200, 1);
+        ShortestPathEngine engine = new ShortestPathEngine(graph);
+        for (int source = 0; source < graph.nodeCount(); source += 17) {
+            int[] expected = referenceDistances(graph, source);
+            ShortestPathEngine.Tree tree = engine.singleSource(source);
+            assertArrayEquals(expected, tree.dist);
+            for (int target = 0; target < graph.nodeCount(); target += 13) {
+                assertEquals(expected[target], engine.search(source, target).dist[target]);
+            }
+        }
+        System.out.println("Test Case 2 Passed.");
+    }
+
+    @Test
+    void testEarlyExitSettlesFewerNodes() {
+        CsrGraph graph = randomGraph(2000, 8000, 2);
+        ShortestPathEngine engine = new ShortestPathEngine(graph);
+        int source = 0;
+        int target = graph.targets[graph.offsets[source]];
+        ShortestPathEngine.Tree full = engine.singleSource(source);
+        ShortestPathEngine.Tree partial = engine.search(source, target);
+        assertEquals(full.dist[target], partial.dist[target]);
+        assertTrue(partial.settled < full.settled);
+        System.out.println("Test Case 3 Passed.");
+    }
+
+    //路径必须真实存在于图中，且长度等于各边权重之和
+    private static void assertValidPath(CsrGraph graph, ShortestPathEngine.Path path, int source, int target) {
+        assertEquals(source, path.nodes[0]);
+        assertEquals(target, path.nodes[path.nodes.length - 1]);
+        int length = 0;
+        for (int i = 0; i + 1 < path.nodes.length; i++) {
+            int e = graph.edgeIndex(path.nodes[i], path.nodes[i + 1]);
+            assertTrue(e >= 0);
+            length += graph.weights[e];
+        }
+        assertEquals(path.length, length);
+    }
+
+    @Test
+    void testAcceleratedModesMatchDijkstra() {
+        CsrGraph graph = randomGraph(400, 1000, 3);
+        for (LandmarkIndex.Strategy strategy : LandmarkIndex.Strategy.values()) {
+            LandmarkIndex index = LandmarkIndex.build(graph, 4, strategy, 11);
+            ShortestPathEngine engine = new ShortestPathEngine(graph);
+            engine.setLandmarks(index);
+            for (int source = 0; source < graph.nodeCount(); source += 23) {
+                int[] expected = referenceDistances(graph, source);
+                for (int target = 0; target < graph.nodeCount(); target += 7) {
+                    assertTrue(index.lowerBound(source, target) <= expected[target]);
+                    for (ShortestPathEngine.Mode mode : ShortestPathEngine.Mode.values()) {
+                        engine.setMode(mode);
+                        ShortestPathEngine.Path path = engine.pointToPoint(source, target);
+                        assertEquals(expected[target], path.length, mode + " " + strategy);
+                        if (path.exists()) {
+                            assertValidPath(graph, path, source, target);
+                        }
+                    }
+                }
+            }
+        }
+        System.out.println("Test Case 4 Passed.");
+    }
+
+    @Test
+    void testAltRequiresLandmarks() {
+        ShortestPathEngine engine = new ShortestPathEngine(randomGraph(10, 20, 4));
+        assertThrows(IllegalStateException.class, () -> engine.setMode(ShortestPathEngine.Mode.ALT));
+
+        //服务器与批量模式的选项设置图共享的引擎，calcShortestPath 的结果不变
+        CsrGraph graph = randomGraph(100, 300, 6);
+        String expected = TextGraphApp.calcShortestPath(graph, graph.words[0], graph.words[50]);
+        String report = TextGraphApp.configureShortestPaths(graph, Map.of("mode", "alt", "landmarks", "3", "strategy", "highest_degree"));
+        assertTrue(report.startsWith("Shortest paths: ALT with 3 HIGHEST_DEGREE landmarks (built in "), report);
+        assertEquals(ShortestPathEngine.Mode.ALT, graph.shortestPaths().mode());
+        assertEquals(3, graph.shortestPaths().landmarks().landmarks.length);
+        assertEquals(expected, TextGraphApp.calcShortestPath(graph, graph.words[0], graph.words[50]));
+        assertEquals("Shortest paths: BIDIRECTIONAL", TextGraphApp.configureShortestPaths(graph, Map.of("mode", "bidirectional")));
+        assertEquals(expected, TextGraphApp.calcShortestPath(graph, graph.words[0], graph.words[50]));
+        assertThrows(IllegalArgumentException.class, () -> TextGraphApp.configureShortestPaths(graph, Map.of("mode", "bfs")));
+        assertEquals(3, TextGraphApp.positionalCount(new String[]{"--serve", "g.txt", "8080", "mode=alt", "landmarks=4"}));
+        System.out.println("Test Case 5 Passed.");
+    }
+
+    @Test
+    void testTreeCacheAnswersLaterQueries() {
+        CsrGraph graph = randomGraph(200, 800, 5);
+        ShortestPathEngine engine = new ShortestPathEngine(graph);
+        engine.setTreeCacheCapacity(2);
+        ShortestPathEngine.Tree tree = engine.singleSource(0);
+        assertSame(tree, engine.singleSource(0));
+        assertEquals(1, engine.cacheHits());
+        assertEquals(1, engine.cacheMisses());
+
+        int[] expected = referenceDistances(graph, 0);
+        for (int target = 0; target < graph.nodeCount(); target++) {
+            ShortestPathEngine.Path path = engine.pointToPoint(0, target);
+            assertEquals(expected[target], path.length);
+            assertEquals(0, path.settled);
+        }
+
+        //两词查询只查看缓存，不计入命中与未命中
+        engine.pointToPoint(3, 4);
+        assertEquals(1, engine.cacheHits());
+        assertEquals(1, engine.cacheMisses());
+
+        //容量为 2：再访问两个新起点后，0 被淘汰
+        engine.singleSource(1);
+        engine.singleSource(2);
+        assertNotSame(tree, engine.singleSource(0));
+        assertEquals("trees=2/2, hits=1, misses=4", engine.cacheStats());
+
+        //按内存上限折算棵数：每棵树约 8 * 节点数 字节，至少一棵
+        engine.setTreeCacheBytes(10 * (8L * graph.nodeCount() + 64));
+        assertEquals(10, engine.treeCacheCapacity());
+        engine.setTreeCacheBytes(1);
+        assertEquals(1, engine.treeCacheCapacity());
+        assertEquals(ShortestPathEngine.DEFAULT_TREE_CACHE_BYTES / (8L * graph.nodeCount() + 64),
+                graph.shortestPaths().treeCacheCapacity());
+        System.out.println("Test Case 6 Passed.");
+    }
+}
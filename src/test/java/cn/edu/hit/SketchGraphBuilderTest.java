@@ -0,0 +1,134 @@
+package cn.edu.hit;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//count-min sketch 近似建图测试
+class SketchGraphBuilderTest {
+
+    @Test
+    void testWideSketchMatchesExactGraph() throws IOException {
+        TextGraphApp.DirectedGraph expected = TextGraphApp.buildGraphFromFile(GraphTestSupport.EASY_TEST);
+        WordDictionary dictionary = new WordDictionary();
+        //阈值为 1 时所有边都是重边；sketch 足够宽时没有碰撞，结果与精确建图一致
+        SketchGraphBuilder builder = new SketchGraphBuilder(dictionary, 1 << 16, 4, 1, Integer.MAX_VALUE, 1 << 10);
+        TextGraphApp.DirectedGraph actual = TextGraphApp.buildGraphFromFileSketch(GraphTestSupport.EASY_TEST, builder, dictionary);
+        assertEquals(GraphTestSupport.edgesOf(expected), GraphTestSupport.edgesOf(actual));
+        assertEquals(TextGraphApp.queryBridgeWords(expected, "the", "data"), TextGraphApp.queryBridgeWords(actual, "the", "data"));
+        assertEquals(TextGraphApp.calcShortestPath(expected, "the", "it"), TextGraphApp.calcShortestPath(actual, "the", "it"));
+        assertEquals(TextGraphApp.calcShortestPath(expected, "again", "the"), TextGraphApp.calcShortestPath(actual, "again", "the"));
+        assertEquals(TextGraphApp.calcPageRank(expected, 0.85, 1e-6), TextGraphApp.calcPageRank(actual, 0.85, 1e-6));
+        assertEquals(0, builder.evictedCount());
+        System.out.println("Test Case 1 Passed.");
+    }
+
+    @Test
+    void testEstimatesStayWithinErrorBound() {
+        //Zipf 式分布的随机单词流：少数高频边与大量只出现一次的长尾边
+        Random random = new Random(42);
+        int vocabulary = 2000;
+        WordDictionary dictionary = new WordDictionary();
+        for (int i = 0; i < vocabulary; i++) {
+            char[] word = ("w" + i).toCharArray();
+            dictionary.intern(word, word.length);
+        }
+        SketchGraphBuilder builder = new SketchGraphBuilder(dictionary, 10000, 4, 5, Integer.MAX_VALUE, 1 << 16);
+        Map<Long, Integer> truth = new HashMap<>();
+        int previous = -1;
+        for (int i = 0; i < 50000; i++) {
+            int id = (int) Math.min(vocabulary - 1, Math.floor(Math.pow(vocabulary, random.nextDouble())) - 1);
+            builder.accept(id);
+            if (previous >= 0) {
+                truth.merge(((long) previous << 32) | id, 1, Integer::sum);
+            }
+            previous = id;
+        }
+        //列数向上取整为 2 的幂
+        assertEquals(16384, (int) Math.round(Math.E / builder.epsilon()));
+        assertEquals(Math.exp(-4), builder.delta(), 1e-15);
+        assertEquals(49999, builder.totalCount());
+        assertEquals((long) Math.ceil(49999 * Math.E / 16384), builder.maxOverestimate());
+
+        int within = 0;
+        for (Map.Entry<Long, Integer> entry : truth.entrySet()) {
+            int estimate = builder.estimate((int) (entry.getKey() >>> 32), (int) (long) entry.getKey());
+            assertTrue(estimate >= entry.getValue());
+            if (estimate - entry.getValue() <= builder.maxOverestimate()) {
+                within++;
+            }
+        }
+        assertTrue(within >= (1 - builder.delta()) * truth.size());
+
+        //真实次数达到阈值的边一定被保留，且边权不低于真实值
+        CsrGraph graph = builder.build();
+        for (Map.Entry<Long, Integer> entry : truth.entrySet()) {
+            if (entry.getValue() >= 5) {
+                int u = graph.id(dictionary.word((int) (entry.getKey() >>> 32)));
+                int v = graph.id(dictionary.word((int) (long) entry.getKey()));
+                int e = graph.edgeIndex(u, v);
+                assertTrue(e >= 0);
+                assertTrue(graph.weights[e] >= entry.getValue());
+            }
+        }
+        //长尾边大多没有进入邻接表
+        assertTrue(graph.edgeCount() < truth.size() / 2);
+        assertEquals(graph.edgeCount(), builder.heavyEdgeCount());
+        System.out.println("Test Case 2 Passed.");
+    }
+
+    @Test
+    void testTopKAndEdgeCap() {
+        WordDictionary dictionary = new WordDictionary();
+        SketchGraphBuilder builder = new SketchGraphBuilder(dictionary, 1 << 12, 3, 1, 1, 1 << 10);
+        int a = intern(dictionary, "a");
+        int b = intern(dictionary, "b");
+        int c = intern(dictionary, "c");
+        int d = intern(dictionary, "d");
+        builder.addEdge(a, b, 3);
+        builder.addEdge(a, c, 5);
+        builder.addEdge(b, c, 1);
+        builder.addEdge(d, d, 0);
+        CsrGraph graph = builder.build();
+        //每个节点只保留估计值最大的一条边；没有边的 d 不在图中
+        assertArrayEquals(new String[]{"a", "b", "c"}, graph.words);
+        assertEquals(2, graph.edgeCount());
+        assertEquals(5, graph.weights[graph.edgeIndex(graph.id("a"), graph.id("c"))]);
+        assertFalse(graph.hasEdge(graph.id("a"), graph.id("b")));
+
+        //重边数达到上限后淘汰估计值最小的重边并提高准入阈值，后出现的高频边仍能进入
+        SketchGraphBuilder capped = new SketchGraphBuilder(dictionary, 1 << 12, 3, 1, Integer.MAX_VALUE, 2);
+        capped.addEdge(a, b, 5);
+        capped.addEdge(a, c, 1);
+        capped.addEdge(b, c, 3);
+        assertEquals(2, capped.heavyEdgeCount());
+        assertEquals(1, capped.evictedCount());
+        assertEquals(2, capped.admissionThreshold());
+        //低于准入阈值的新边不进入；被淘汰的边估计值超过阈值后重新进入
+        capped.addEdge(c, d, 1);
+        assertEquals(2, capped.heavyEdgeCount());
+        assertEquals(1, capped.evictedCount());
+        capped.addEdge(a, c, 9);
+        CsrGraph heavy = capped.build();
+        assertEquals(2, heavy.edgeCount());
+        assertTrue(heavy.hasEdge(heavy.id("a"), heavy.id("b")));
+        assertTrue(heavy.hasEdge(heavy.id("a"), heavy.id("c")));
+        assertEquals(2, capped.evictedCount());
+        assertEquals(4, capped.admissionThreshold());
+
+        assertEquals(0, new SketchGraphBuilder(dictionary).build().nodeCount());
+        assertEquals(272, SketchGraphBuilder.widthFor(0.01));
+        assertEquals(5, SketchGraphBuilder.depthFor(0.01));
+        assertThrows(IllegalArgumentException.class, () -> new SketchGraphBuilder(dictionary, 0, 1, 1, 1, 1));
+        System.out.println("Test Case 3 Passed.");
+    }
+
+    private static int intern(WordDictionary dictionary, String word) {
+        return dictionary.intern(word.toCharArray(), word.length());
+    }
+}
@@ -0,0 +1,52 @@
+package cn.edu.hit;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//流式分词与流式建图测试
+class StreamingTokenizerTest {
+
+    @Test
+    void testSameWordsAsCleanWords() throws IOException {
+        String text = "Hello, World! It's 2024 -- the  end.\nNew\tline café again";
+        List<String> words = new ArrayList<>();
+        StreamingTokenizer.tokenize(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), words::add);
+        assertEquals(TextGraphApp.cleanWords(text), words);
+        System.out.println("Test Case 1 Passed.");
+    }
+
+    @Test
+    void testWordsAcrossMapWindows() throws IOException {
+        Path file = Files.createTempFile("tokenizer", ".txt");
+        try {
+            String text = Files.readString(Paths.get(GraphTestSupport.EASY_TEST));
+            Files.writeString(file, text);
+            List<String> words = new ArrayList<>();
+            //窗口只有 7 字节，几乎每个单词都会跨窗口
+            StreamingTokenizer.tokenizeFile(file, words::add, 7);
+            assertEquals(TextGraphApp.cleanWords(text), words);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+        System.out.println("Test Case 2 Passed.");
+    }
+
+    @Test
+    void testStreamingGraphEqualsOriginal() throws IOException {
+        TextGraphApp.DirectedGraph expected = TextGraphApp.buildGraphFromFile(GraphTestSupport.EASY_TEST);
+        TextGraphApp.DirectedGraph actual = TextGraphApp.buildGraphFromFileStreaming(GraphTestSupport.EASY_TEST);
+        assertEquals(GraphTestSupport.edgesOf(expected), GraphTestSupport.edgesOf(actual));
+        assertEquals(expected.nodes.keySet(), actual.nodes.keySet());
+        System.out.println("Test Case 3 Passed.");
+    }
+}
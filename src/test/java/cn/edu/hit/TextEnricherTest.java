@@ -0,0 +1,75 @@
+package cn.edu.hit;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//批量文本扩展测试
+class TextEnricherTest {
+
+    static CsrGraph graph;
+
+    @BeforeAll
+    static void setup() throws IOException {
+        graph = TextGraphApp.buildGraphFromFile(GraphTestSupport.EASY_TEST).freeze();
+    }
+
+    @Test
+    void testInsertsOnlyBridgeWords() {
+        TextEnricher enricher = new TextEnricher(graph, 1);
+        //the -> so 只有 data 一个桥接词；again 与 the 之间没有
+        assertEquals("the data so", enricher.enrich("The, so!", 0));
+        assertEquals("again the", enricher.enrich("again the", 0));
+        assertEquals("", enricher.enrich("  ", 0));
+        System.out.println("Test Case 1 Passed.");
+    }
+
+    @Test
+    void testFileModeKeepsLineOrder() throws IOException {
+        Path input = Files.createTempFile("enrich-in", ".txt");
+        Path output = Files.createTempFile("enrich-out", ".txt");
+        try {
+            List<String> lines = new ArrayList<>();
+            for (int i = 0; i < TextEnricher.LINES_PER_TASK * 3 + 5; i++) {
+                lines.add(i % 2 == 0 ? "the so " + i : "");
+            }
+            Files.write(input, lines);
+            TextEnricher enricher = new TextEnricher(graph, 7);
+            enricher.enrichFile(input, output, 4);
+            List<String> result = Files.readAllLines(output);
+            assertEquals(lines.size(), result.size());
+            for (int i = 0; i < lines.size(); i++) {
+                assertEquals(i % 2 == 0 ? "the data so" : "", result.get(i));
+            }
+        } finally {
+            Files.deleteIfExists(input);
+            Files.deleteIfExists(output);
+        }
+        System.out.println("Test Case 2 Passed.");
+    }
+
+    @Test
+    void testDirectoryModeOneLinePerDocument() throws IOException {
+        Path dir = Files.createTempDirectory("enrich-dir");
+        Path output = Files.createTempFile("enrich-out", ".txt");
+        try {
+            Files.writeString(dir.resolve("b.txt"), "again\nthe");
+            Files.writeString(dir.resolve("a.txt"), "the\nso");
+            new TextEnricher(graph, 3).enrichDirectory(dir, output, 2);
+            assertEquals(List.of("the data so", "again the"), Files.readAllLines(output));
+        } finally {
+            Files.deleteIfExists(dir.resolve("a.txt"));
+            Files.deleteIfExists(dir.resolve("b.txt"));
+            Files.deleteIfExists(dir);
+            Files.deleteIfExists(output);
+        }
+        System.out.println("Test Case 3 Passed.");
+    }
+}
@@ -0,0 +1,118 @@
+package cn.edu.hit;
+
+import com.sun.management.ThreadMXBean;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//单词字典与按编号建图测试
+class WordDictionaryTest {
+
+    @Test
+    void testInternAssignsStableIds() {
+        WordDictionary dictionary = new WordDictionary(4);
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            char[] word = ("w" + i).toCharArray();
+            ids.add(dictionary.intern(word, word.length));
+        }
+        assertEquals(10000, dictionary.size());
+        for (int i = 0; i < 10000; i++) {
+            //缓冲区尾部的多余字符不参与比较
+            char[] buf = ("w" + i + "xyz").toCharArray();
+            assertEquals(ids.get(i), dictionary.intern(buf, buf.length - 3));
+            assertEquals(i, (int) ids.get(i));
+            assertEquals("w" + i, dictionary.word(i));
+        }
+        System.out.println("Test Case 1 Passed.");
+    }
+
+    @Test
+    void testIdTokenizerMatchesStringTokenizer() {
+        String text = "The team, THE team and the Team again; café x";
+        WordDictionary dictionary = new WordDictionary();
+        List<String> words = new ArrayList<>();
+        StreamingTokenizer tokenizer = new StreamingTokenizer(dictionary, id -> words.add(dictionary.word(id)));
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        tokenizer.feed(bytes, 0, bytes.length);
+        tokenizer.finish();
+        assertEquals(TextGraphApp.cleanWords(text), words);
+        assertEquals(6, dictionary.size());
+        System.out.println("Test Case 2 Passed.");
+    }
+
+    @Test
+    void testBuilderMatchesFreeze() throws Exception {
+        CsrGraph expected = TextGraphApp.buildGraphFromFile(GraphTestSupport.EASY_TEST).freeze();
+        WordDictionary dictionary = new WordDictionary();
+        IdGraphBuilder builder = new IdGraphBuilder(dictionary);
+        StreamingTokenizer.tokenizeFile(Paths.get(GraphTestSupport.EASY_TEST), dictionary, builder);
+        CsrGraph actual = builder.build();
+        assertArrayEquals(expected.words, actual.words);
+        assertArrayEquals(expected.offsets, actual.offsets);
+        assertArrayEquals(expected.targets, actual.targets);
+        assertArrayEquals(expected.weights, actual.weights);
+        System.out.println("Test Case 3 Passed.");
+    }
+
+    @Test
+    void testRepeatedWordsDoNotAllocate() {
+        WordDictionary dictionary = new WordDictionary();
+        IdGraphBuilder builder = new IdGraphBuilder(dictionary);
+        StreamingTokenizer tokenizer = new StreamingTokenizer(dictionary, builder);
+        byte[] text = "the quick brown fox jumps over the lazy dog ".repeat(1000).getBytes(StandardCharsets.UTF_8);
+        //预热：让所有单词和边都已存在，并让 JIT 编译热点
+        for (int i = 0; i < 20; i++) {
+            tokenizer.feed(text, 0, text.length);
+        }
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 20; i++) {
+            tokenizer.feed(text, 0, text.length);
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+        //18 万个单词，每个单词分配一个 String 就会超过数 MB
+        assertTrue(allocated < 64 * 1024, "allocated " + allocated + " bytes");
+        assertEquals(8, dictionary.size());
+        System.out.println("Test Case 4 Passed.");
+    }
+
+    @Test
+    void testDefaultLoadUsesIdBuilder() throws Exception {
+        //交互、批量与服务器模式加载语料的入口：没有快照时经编号计数建图并保存快照，之后直接加载快照
+        Path dir = Files.createTempDirectory("load");
+        Path corpus = dir.resolve("easy.txt");
+        Files.copy(Paths.get(GraphTestSupport.EASY_TEST), corpus);
+        try {
+            CsrGraph expected = TextGraphApp.buildGraphFromFile(GraphTestSupport.EASY_TEST).freeze();
+            OperationMetrics build = GraphMetrics.of(GraphMetrics.Operation.BUILD);
+            long builds = build.getCount();
+            long words = build.getTotalWork();
+            CsrGraph built = TextGraphApp.loadFrozenGraph(corpus.toString());
+            assertEquals(builds + 1, build.getCount());
+            assertEquals(words + TextGraphApp.cleanWords(Files.readString(corpus)).size(), build.getTotalWork());
+            assertTrue(Files.exists(Paths.get(corpus + ".tgs")));
+            CsrGraph loaded = TextGraphApp.loadGraph(corpus.toString()).freeze();
+            assertEquals(builds + 1, build.getCount());
+            for (CsrGraph actual : new CsrGraph[]{built, loaded}) {
+                assertArrayEquals(expected.words, actual.words);
+                assertArrayEquals(expected.offsets, actual.offsets);
+                assertArrayEquals(expected.targets, actual.targets);
+                assertArrayEquals(expected.weights, actual.weights);
+            }
+        } finally {
+            Files.deleteIfExists(Paths.get(corpus + ".tgs"));
+            Files.deleteIfExists(corpus);
+            Files.deleteIfExists(dir);
+        }
+        System.out.println("Test Case 5 Passed.");
+    }
+}